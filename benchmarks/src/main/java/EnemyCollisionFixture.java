@@ -0,0 +1,31 @@
+import java.io.IOException;
+
+/**
+ * Steps the enemy level one frame at a time with a crowd of enemies stealing notes.
+ */
+public class EnemyCollisionFixture extends PlayingFixture {
+    private final static int ENEMY_LEVEL = 3;
+    private final static int ENEMIES = 200;
+
+    private final ScriptedControls controls = new ScriptedControls();
+
+    public EnemyCollisionFixture(String chartFile, boolean packedNotes) throws IOException {
+        super(chartFile, packedNotes);
+    }
+
+    @Override
+    protected Level createLevel(Chart chart, boolean packedNotes) {
+        Level level = new Level(ENEMY_LEVEL, chart, packedNotes);
+        for (int i = 0; i < ENEMIES; i++) {
+            level.spawnEnemy();
+        }
+        return level;
+    }
+
+    @Override
+    public int step() {
+        restartIfFinished();
+        level.update(controls);
+        return level.getTotalScore();
+    }
+}
@@ -0,0 +1,27 @@
+import shadowdance.bench.Fixture;
+
+/**
+ * Judges note heights which sweep from well above the target to past the miss window.
+ */
+public class EvaluateScoreFixture implements Fixture {
+    private final static int TARGET_HEIGHT = 657;
+    private final static int MIN_HEIGHT = 400;
+    private final static int MAX_HEIGHT = 800;
+
+    private final Accuracy accuracy = new Accuracy();
+    private int height = MIN_HEIGHT;
+
+    public EvaluateScoreFixture(String chartFile, boolean packedNotes) {
+    }
+
+    @Override
+    public void reset() {
+        height = MIN_HEIGHT;
+    }
+
+    @Override
+    public int step() {
+        height = height >= MAX_HEIGHT ? MIN_HEIGHT : height + 1;
+        return accuracy.evaluateScore(height, TARGET_HEIGHT, (height & 1) == 0);
+    }
+}
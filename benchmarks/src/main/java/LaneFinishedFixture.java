@@ -0,0 +1,19 @@
+/**
+ * Asks every lane whether it is finished.
+ */
+public class LaneFinishedFixture extends MidChartFixture {
+    public LaneFinishedFixture(String chartFile, boolean packedNotes) {
+        super(chartFile, packedNotes);
+    }
+
+    @Override
+    public int step() {
+        int finished = 0;
+        for (Lane lane : lanes) {
+            if (lane.isFinished()) {
+                finished++;
+            }
+        }
+        return finished;
+    }
+}
@@ -0,0 +1,31 @@
+import java.io.IOException;
+
+/**
+ * Steps the first lane of a level one frame at a time with no input.
+ */
+public class LaneUpdateFixture extends PlayingFixture {
+    private final ScriptedControls controls = new ScriptedControls();
+    private Lane lane;
+    private int currentFrame;
+
+    public LaneUpdateFixture(String chartFile, boolean packedNotes) throws IOException {
+        super(chartFile, packedNotes);
+    }
+
+    @Override
+    protected void start() {
+        lane = level.getLanes().get(0);
+        currentFrame = 0;
+    }
+
+    @Override
+    protected boolean isFinished() {
+        return lane.isFinished();
+    }
+
+    @Override
+    public int step() {
+        restartIfFinished();
+        return lane.update(controls, ++currentFrame);
+    }
+}
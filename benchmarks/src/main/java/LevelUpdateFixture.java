@@ -0,0 +1,19 @@
+import java.io.IOException;
+
+/**
+ * Steps a whole level one frame at a time with no input.
+ */
+public class LevelUpdateFixture extends PlayingFixture {
+    private final ScriptedControls controls = new ScriptedControls();
+
+    public LevelUpdateFixture(String chartFile, boolean packedNotes) throws IOException {
+        super(chartFile, packedNotes);
+    }
+
+    @Override
+    public int step() {
+        restartIfFinished();
+        level.update(controls);
+        return level.getTotalScore();
+    }
+}
@@ -0,0 +1,35 @@
+import shadowdance.bench.Fixture;
+
+import java.util.ArrayList;
+
+/**
+ * A fixture which loads a level and plays it until notes are falling in every lane, then measures a query which only
+ * reads the lanes.
+ */
+public abstract class MidChartFixture implements Fixture {
+    private final static int LEAD_IN_FRAMES = 600;
+
+    private final String chartFile;
+    private final boolean packedNotes;
+    private final ScriptedControls controls = new ScriptedControls();
+    protected ArrayList<Lane> lanes;
+
+    protected MidChartFixture(String chartFile, boolean packedNotes) {
+        this.chartFile = chartFile;
+        this.packedNotes = packedNotes;
+    }
+
+    @Override
+    public void reset() {
+        Level level = new Level(1, chartFile, packedNotes);
+        for (int i = 0; i < LEAD_IN_FRAMES; i++) {
+            level.update(controls);
+        }
+        lanes = level.getLanes();
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+}
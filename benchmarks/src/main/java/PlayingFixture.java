@@ -0,0 +1,52 @@
+import shadowdance.bench.Fixture;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * A fixture which plays a level from its first frame and starts it again whenever it finishes, so every step plays a
+ * frame however long a measurement runs. The chart is read once. Each reset builds the level and a spare copy outside
+ * the measured region, so the first restart within a measurement only swaps the spare in; any later one builds a level
+ * from the chart already in memory.
+ */
+public abstract class PlayingFixture implements Fixture {
+    private final Chart chart;
+    private final boolean packedNotes;
+    private Level spare;
+    protected Level level;
+
+    protected PlayingFixture(String chartFile, boolean packedNotes) throws IOException {
+        chart = LevelCatalog.readChart(Paths.get(chartFile));
+        this.packedNotes = packedNotes;
+    }
+
+    // Builds a level at its first frame.
+    protected Level createLevel(Chart chart, boolean packedNotes) {
+        return new Level(1, chart, packedNotes);
+    }
+
+    // Called whenever a new level has been started, before it is stepped.
+    protected void start() {
+    }
+
+    // Determines whether the fixture has played to the end and must start again.
+    protected boolean isFinished() {
+        return level.isFinished();
+    }
+
+    @Override
+    public void reset() {
+        level = createLevel(chart, packedNotes);
+        spare = createLevel(chart, packedNotes);
+        start();
+    }
+
+    // Starts again from the first frame if the fixture has finished, using the spare level if it is still unused.
+    protected void restartIfFinished() {
+        if (isFinished()) {
+            level = spare != null ? spare : createLevel(chart, packedNotes);
+            spare = null;
+            start();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+import shadowdance.bench.Fixture;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Loads a level from a compiled chart, memory-mapping the file each time.
+ */
+public class ReadChartFixture implements Fixture {
+    private final Path compiledChart;
+    private final boolean packedNotes;
+
+    public ReadChartFixture(String chartFile, boolean packedNotes) {
+        this.packedNotes = packedNotes;
+        try {
+            compiledChart = Files.createTempFile("chart-", ChartFile.EXTENSION);
+            compiledChart.toFile().deleteOnExit();
+            ChartFile.write(ChartCompiler.parseCsv(Paths.get(chartFile)), compiledChart);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public int step() {
+        try {
+            return new Level(1, ChartFile.read(compiledChart), packedNotes).getLanes().size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
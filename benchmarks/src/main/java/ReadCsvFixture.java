@@ -0,0 +1,23 @@
+import shadowdance.bench.Fixture;
+
+/**
+ * Loads a level from its csv chart.
+ */
+public class ReadCsvFixture implements Fixture {
+    private final String chartFile;
+    private final boolean packedNotes;
+
+    public ReadCsvFixture(String chartFile, boolean packedNotes) {
+        this.chartFile = chartFile;
+        this.packedNotes = packedNotes;
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public int step() {
+        return new Level(1, chartFile, packedNotes).getLanes().size();
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * Counts the visible notes of every lane.
+ */
+public class VisibleNotesFixture extends MidChartFixture {
+    public VisibleNotesFixture(String chartFile, boolean packedNotes) {
+        super(chartFile, packedNotes);
+    }
+
+    @Override
+    public int step() {
+        int visible = 0;
+        for (Lane lane : lanes) {
+            for (int i = lane.getFirstVisibleNote(); i < lane.getVisibleNotesEnd(); i++) {
+                if (lane.isNoteVisible(i)) {
+                    visible++;
+                }
+            }
+        }
+        return visible;
+    }
+}
@@ -0,0 +1,57 @@
+package shadowdance.bench;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Common state for benchmarks run against synthetic charts of varying size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class ChartBenchmark {
+    /**
+     * The number of steps per invocation, which are frames for fixtures that play a level and queries for fixtures
+     * that only read one. Benchmarks use this with {@code @OperationsPerInvocation} so results are reported per step.
+     */
+    public final static int FRAMES = 1000;
+
+    @Param({"20", "1000", "100000", "1000000"})
+    public int notes;
+
+    @Param({"4", "16", "64"})
+    public int lanes;
+
+    @Param({"false", "true"})
+    public boolean packed;
+
+    protected Fixture fixture;
+
+    /**
+     * Gets the fixture class this benchmark drives.
+     * @return The simple name of the fixture class.
+     */
+    protected abstract String fixtureName();
+
+    @Setup(Level.Trial)
+    public void createChart() throws IOException {
+        Path chart = SyntheticChart.write(lanes, notes);
+        fixture = Fixtures.create(fixtureName(), chart.toString(), packed);
+    }
+}
@@ -0,0 +1,27 @@
+package shadowdance.bench;
+
+/**
+ * A piece of game state that a benchmark drives. The game lives in the unnamed package, which JMH benchmarks cannot
+ * reference directly, so fixtures are written in the unnamed package against this interface and created by name
+ * through {@link Fixtures}.
+ */
+public interface Fixture {
+    /**
+     * Rebuilds the fixture's state, outside of the measured region.
+     */
+    void reset();
+
+    /**
+     * Performs one measured operation.
+     * @return A value derived from the operation, to be consumed by a blackhole.
+     */
+    int step();
+
+    /**
+     * Determines whether {@link #step()} only reads the fixture's state, so the fixture never needs to be rebuilt.
+     * @return Whether stepping leaves the state unchanged.
+     */
+    default boolean isReadOnly() {
+        return false;
+    }
+}
@@ -0,0 +1,48 @@
+package shadowdance.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures one step of a fixture, {@link #FRAMES} steps per invocation, for each of the fixtures listed in
+ * {@link #fixtureClass}:
+ * <ul>
+ *     <li>LaneUpdateFixture steps the first lane of the level one frame.</li>
+ *     <li>LevelUpdateFixture steps the whole level one frame.</li>
+ *     <li>EnemyCollisionFixture steps the enemy level one frame with a crowd of enemies stealing notes.</li>
+ *     <li>LaneFinishedFixture asks every lane whether it is finished, mid-chart.</li>
+ *     <li>VisibleNotesFixture counts the visible notes of every lane, mid-chart.</li>
+ * </ul>
+ * Fixtures which play the level are rebuilt before each iteration and start again in place whenever the level
+ * finishes, so every step plays a frame without a setup call around each invocation. Fixtures which only read the
+ * level are loaded once per trial and queried repeatedly.
+ */
+public class FixtureBenchmark extends ChartBenchmark {
+    @Param({"LaneUpdateFixture", "LevelUpdateFixture", "EnemyCollisionFixture", "LaneFinishedFixture",
+            "VisibleNotesFixture"})
+    public String fixtureClass;
+
+    @Override
+    protected String fixtureName() {
+        return fixtureClass;
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        if (!fixture.isReadOnly()) {
+            fixture.reset();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES)
+    public void step(Blackhole blackhole) {
+        for (int i = 0; i < FRAMES; i++) {
+            blackhole.consume(fixture.step());
+        }
+    }
+}
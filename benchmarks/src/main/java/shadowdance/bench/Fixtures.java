@@ -0,0 +1,28 @@
+package shadowdance.bench;
+
+/**
+ * Creates fixtures from the unnamed package by class name.
+ */
+public final class Fixtures {
+    private Fixtures() {
+    }
+
+    /**
+     * Creates a fixture whose constructor takes a chart file name and whether notes should be packed.
+     * @param className The simple name of the fixture class.
+     * @param chartFile The chart the fixture should load.
+     * @param packedNotes Whether the fixture's levels store notes in primitive arrays.
+     * @return The new fixture, already reset.
+     */
+    public static Fixture create(String className, String chartFile, boolean packedNotes) {
+        try {
+            Fixture fixture = (Fixture) Class.forName(className)
+                    .getConstructor(String.class, boolean.class)
+                    .newInstance(chartFile, packedNotes);
+            fixture.reset();
+            return fixture;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create fixture " + className, e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package shadowdance.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a chart through Level.readCSV.
+ */
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class ReadCsvBenchmark extends ChartBenchmark {
+    @Override
+    protected String fixtureName() {
+        return "ReadCsvFixture";
+    }
+
+    @Benchmark
+    public int load() {
+        return fixture.step();
+    }
+}
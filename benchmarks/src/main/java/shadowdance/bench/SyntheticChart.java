@@ -0,0 +1,90 @@
+package shadowdance.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes synthetic charts in the level csv format with an even note density, so frame cost can be compared across
+ * chart sizes.
+ */
+public final class SyntheticChart {
+    private final static String[] ARROW_LANES = {"Left", "Right", "Up", "Down"};
+    private final static String SPECIAL_LANE = "Special";
+    private final static String[] SPECIAL_TYPES = {"SpeedUp", "SlowDown", "DoubleScore", "Bomb"};
+    private final static int MIN_X = 100;
+    private final static int MAX_X = 924;
+    private final static int NOTE_SPACING = 24;
+    private final static int MIN_DURATION = 3000;
+    private final static int HOLD_EVERY = 10;
+    private final static int SPECIAL_EVERY = 50;
+
+    private SyntheticChart() {
+    }
+
+    /**
+     * Gets the name of a lane in a synthetic chart. The first lanes are the arrow keys and the special lane, the rest
+     * are named after letter, number and function keys so every lane has its own key.
+     * @param index The index of the lane.
+     * @return The lane's type name.
+     */
+    public static String laneType(int index) {
+        if (index < ARROW_LANES.length) {
+            return ARROW_LANES[index];
+        }
+        index -= ARROW_LANES.length;
+        if (index == 0) {
+            return SPECIAL_LANE;
+        }
+        index--;
+        if (index < 26) {
+            return String.valueOf((char) ('A' + index));
+        }
+        index -= 26;
+        if (index < 10) {
+            return "Num_" + index;
+        }
+        index -= 10;
+        return "F" + (index + 1);
+    }
+
+    /**
+     * Writes a chart to a temporary file.
+     * @param laneCount The number of lanes, including the special lane once there are more than four.
+     * @param noteCount The total number of notes.
+     * @return The path of the chart.
+     * @throws IOException If the chart could not be written.
+     */
+    public static Path write(int laneCount, int noteCount) throws IOException {
+        Path file = Files.createTempFile("chart-" + laneCount + "x" + noteCount + "-", ".csv");
+        file.toFile().deleteOnExit();
+
+        int rows = (noteCount + laneCount - 1) / laneCount;
+        int spacing = Math.max(NOTE_SPACING, MIN_DURATION / Math.max(rows, 1));
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int lane = 0; lane < laneCount; lane++) {
+                int x = laneCount == 1 ? MIN_X : MIN_X + lane * (MAX_X - MIN_X) / (laneCount - 1);
+                writer.write("Lane," + laneType(lane) + "," + x);
+                writer.newLine();
+            }
+
+            for (int i = 0; i < noteCount; i++) {
+                int lane = i % laneCount;
+                String type = laneType(lane);
+                int frame = 1 + (i / laneCount) * spacing;
+                String noteType;
+                if (type.equals(SPECIAL_LANE)) {
+                    noteType = i % SPECIAL_EVERY < laneCount ? SPECIAL_TYPES[(i / SPECIAL_EVERY) % 4] : "Normal";
+                } else {
+                    noteType = i % HOLD_EVERY == 0 ? "Hold" : "Normal";
+                }
+                writer.write(type + "," + noteType + "," + frame);
+                writer.newLine();
+            }
+        }
+
+        return file;
+    }
+}
@@ -1,10 +1,10 @@
 import bagel.Font;
-import bagel.Window;
 
 /**
- * A utility class for calculating and displaying a score.
+ * Calculates scores and keeps track of the score message shown on screen. Every level has its own, so that several
+ * levels can be played at once.
  */
-public final class Accuracy {
+public class Accuracy {
     private final static String PERFECT_TEXT = "PERFECT";
     private final static int PERFECT_DISTANCE = 15;
     private final static int PERFECT_SCORE = 10;
@@ -26,23 +26,34 @@ public final class Accuracy {
     public final static int NOT_SCORED = 0;
     private final static int MESSAGE_RENDER_FRAMES = 30;
     private final static int ACCURACY_FONT_SIZE = 40;
-    private final static Font ACCURACY_FONT = new Font("res/FSO8BITR.TTF", ACCURACY_FONT_SIZE);
-    private static int framesRemaining = 0;
-    private static String scoreMessage = null;
+    private final static String ACCURACY_FONT_FILE = "res/FSO8BITR.TTF";
+    private TextElement messageText = null;
+    private int framesRemaining = 0;
+    private String scoreMessage = null;
+    private String visibleMessage = null;
 
     /**
-     * Resets the score notification. Mostly used when a level ends and a new one might start.
+     * Creates the font score messages are drawn in. The game creates it once and shares it between every level.
+     * @return The score message font.
      */
-    public static void reset() {
+    public static Font createFont() {
+        return new Font(ACCURACY_FONT_FILE, ACCURACY_FONT_SIZE);
+    }
+
+    /**
+     * Resets the score notification.
+     */
+    public void reset() {
         framesRemaining = 0;
         scoreMessage = null;
+        visibleMessage = null;
     }
 
     /**
      * Sets the message to be rendered on screen.
      * @param message The text of the message.
      */
-    public static void setMessage(String message) {
+    public void setMessage(String message) {
         framesRemaining = MESSAGE_RENDER_FRAMES;
         scoreMessage = message;
     }
@@ -54,7 +65,45 @@ public final class Accuracy {
      * @param triggered Whether the note's corresponding key was pressed.
      * @return The score given for the note.
      */
-    public static int evaluateScore(int height, int targetHeight, boolean triggered) {
+    public int evaluateScore(int height, int targetHeight, boolean triggered) {
+        return evaluateScore(height, targetHeight, triggered, 0);
+    }
+
+    /**
+     * Calculate and display a score, judging a key press against where the note was at the moment of the press
+     * rather than where it is at the end of the frame.
+     * @param height The height of the note.
+     * @param targetHeight The height of the target note.
+     * @param triggered Whether the note's corresponding key was pressed.
+     * @param pressOffset How far the note has fallen since the key was pressed.
+     * @return The score given for the note.
+     */
+    public int evaluateScore(int height, int targetHeight, boolean triggered, double pressOffset) {
+        return evaluateScore(height, targetHeight, triggered, pressOffset, null);
+    }
+
+    /**
+     * Calculate and display a score like {@link #evaluateScore(int, int, boolean, double)}, naming the lane the note
+     * is in so that the judgment can be recorded by the flight recorder.
+     * @param height The height of the note.
+     * @param targetHeight The height of the target note.
+     * @param triggered Whether the note's corresponding key was pressed.
+     * @param pressOffset How far the note has fallen since the key was pressed.
+     * @param lane The type of the note's lane.
+     * @return The score given for the note.
+     */
+    public int evaluateScore(int height, int targetHeight, boolean triggered, double pressOffset, String lane) {
+        int score = judge(height, targetHeight, triggered, pressOffset);
+
+        if (score != NOT_SCORED && JudgmentEvent.isRecorded()) {
+            JudgmentEvent.record(lane, Math.abs(targetHeight - (triggered ? height - pressOffset : height)), score);
+        }
+
+        return score;
+    }
+
+    // Works out the score for a note and sets the matching message.
+    private int judge(int height, int targetHeight, boolean triggered, double pressOffset) {
         int distance = Math.abs(targetHeight - height);
 
         if (height >= targetHeight && distance > BAD_DISTANCE) {
@@ -63,16 +112,17 @@ public final class Accuracy {
         }
 
         if (triggered) {
-            if (distance <= PERFECT_DISTANCE) {
+            double pressDistance = Math.abs(targetHeight - (height - pressOffset));
+            if (pressDistance <= PERFECT_DISTANCE) {
                 setMessage(PERFECT_TEXT);
                 return PERFECT_SCORE;
-            } else if (distance <= GOOD_DISTANCE) {
+            } else if (pressDistance <= GOOD_DISTANCE) {
                 setMessage(GOOD_TEXT);
                 return GOOD_SCORE;
-            } else if (distance <= BAD_DISTANCE) {
+            } else if (pressDistance <= BAD_DISTANCE) {
                 setMessage(BAD_TEXT);
                 return BAD_SCORE;
-            } else if (distance <= MISS_DISTANCE) {
+            } else if (pressDistance <= MISS_DISTANCE) {
                 setMessage(MISS_TEXT);
                 return MISS_SCORE;
             }
@@ -82,14 +132,32 @@ public final class Accuracy {
     }
 
     /**
-     * Draw the score message every frame if there is one to display.
+     * Counts down how long the score message stays on screen. Called once at the end of every frame.
      */
-    public static void update() {
+    public void update() {
         if (scoreMessage != null && framesRemaining > 0) {
             framesRemaining--;
-            ACCURACY_FONT.drawString(scoreMessage,
-                    0.5 * (Window.getWidth() - ACCURACY_FONT.getWidth(scoreMessage)),
-                    0.5 * (Window.getHeight() + ACCURACY_FONT_SIZE));
+            visibleMessage = scoreMessage;
+        } else {
+            visibleMessage = null;
         }
     }
+
+    /**
+     * Draw the score message if one is visible this frame.
+     * @param font The font from {@link #createFont()} to draw the message in.
+     */
+    public void draw(Font font) {
+        if (visibleMessage == null) {
+            return;
+        }
+
+        if (messageText == null) {
+            messageText = new TextElement(font,
+                    0.5 * ShadowDance.WINDOW_WIDTH, 0.5 * (ShadowDance.WINDOW_HEIGHT + ACCURACY_FONT_SIZE), true);
+        }
+
+        messageText.setText(visibleMessage);
+        messageText.draw();
+    }
 }
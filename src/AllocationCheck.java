@@ -0,0 +1,149 @@
+import bagel.Keys;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Checks that playing a level does not allocate once it has warmed up, using the JVM's per-thread allocation counter.
+ * Each level is played through a few times so that the code is compiled, then played a few more times while the bytes
+ * allocated by every frame after a lead-in are counted. Frames run the game's own step loop: timestamped key events
+ * are queued as the key callbacks queue them, a fake clock decides how many steps each frame covers, and every step is
+ * recorded for a replay. Exits with a non-zero status if every measured run of a level had a frame which allocated, so
+ * it can be run as part of a build.
+ */
+public final class AllocationCheck {
+    private final static int LEVEL_COUNT = 3;
+    private final static int WARM_UP_RUNS = 5;
+    private final static int MEASURED_RUNS = 3;
+    private final static int LEAD_IN_STEPS = 1000;
+    private final static int MAX_FRAMES = 20_000;
+    private final static int MAX_STEPS_PER_FRAME = 2;
+    private final static int QUEUE_CAPACITY = 256;
+    private final static int PRESS_CHANCE = 32;
+    private final static int FIRE_CHANCE = 4;
+    private final static int MAX_HOLD_STEPS = 60;
+    private final static Keys[] SCRIPT_KEYS = {Keys.LEFT, Keys.RIGHT, Keys.UP, Keys.DOWN, Keys.SPACE, Keys.LEFT_SHIFT};
+
+    private final static com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long readOverhead = 0;
+
+    // Reads how many bytes the current thread has allocated so far.
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // Plays a level through, returning the bytes allocated by frames after the lead-in and printing the worst frame.
+    private static long play(LevelInfo info, boolean packedNotes, boolean report) throws IOException {
+        int levelNumber = info.getLevelNumber();
+        Level level = LevelCatalog.load(info, packedNotes);
+        level.setRandomSeed(levelNumber);
+
+        SimulationClock clock = new SimulationClock();
+        KeyEventQueue events = new KeyEventQueue(QUEUE_CAPACITY);
+        LatchedControls controls = new LatchedControls();
+        controls.useTimestamps(events);
+        ReplayRecorder recorder = new ReplayRecorder(info, level.getKeys(), levelNumber);
+
+        // The same seed gives the same key script on every run of a level
+        Random random = new Random(levelNumber);
+        long[] releaseTimes = new long[SCRIPT_KEYS.length];
+        boolean[] held = new boolean[SCRIPT_KEYS.length];
+        long now = 0;
+
+        long total = 0;
+        long worst = 0;
+        int worstFrame = 0;
+        int allocatingFrames = 0;
+        int frames = 0;
+        int steps = 0;
+
+        while (!level.isFinished() && frames < MAX_FRAMES) {
+            long before = allocatedBytes();
+            long frameNanos = clock.getStepNanos() * (1 + random.nextInt(MAX_STEPS_PER_FRAME));
+            long frameStart = now;
+            now += frameNanos;
+
+            // Each key changes at most once a frame, at its own point in the frame, so the events stay in time order.
+            for (int i = 0; i < SCRIPT_KEYS.length; i++) {
+                long time = frameStart + frameNanos * (i + 1) / (SCRIPT_KEYS.length + 1);
+                boolean fire = SCRIPT_KEYS[i] == Keys.LEFT_SHIFT;
+                if (held[i] && releaseTimes[i] <= now) {
+                    events.offer(SCRIPT_KEYS[i], false, time);
+                    held[i] = false;
+                } else if (!held[i] && random.nextInt(fire ? FIRE_CHANCE : PRESS_CHANCE) == 0) {
+                    events.offer(SCRIPT_KEYS[i], true, time);
+                    releaseTimes[i] = time + (fire ? 1 : 1 + random.nextInt(MAX_HOLD_STEPS)) * clock.getStepNanos();
+                    held[i] = true;
+                }
+            }
+
+            steps += StepLoop.run(clock, clock.advance(now), controls, level, recorder);
+            long allocated = allocatedBytes() - before - readOverhead;
+            frames++;
+
+            if (steps > LEAD_IN_STEPS && allocated > 0) {
+                total += allocated;
+                allocatingFrames++;
+                if (allocated > worst) {
+                    worst = allocated;
+                    worstFrame = frames;
+                }
+            }
+        }
+
+        if (report) {
+            System.out.printf("level %d (%s notes): %d frames, %d bytes allocated in %d frames, worst %d bytes on "
+                    + "frame %d%n", levelNumber, packedNotes ? "packed" : "object", frames, total,
+                    allocatingFrames, worst, worstFrame);
+        }
+
+        return total;
+    }
+
+    /**
+     * Runs the check on every level with both kinds of note storage.
+     * @param args Command line arguments (not used).
+     * @throws IOException If the levels could not be found or read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (!THREADS.isThreadAllocatedMemorySupported()) {
+            System.err.println("thread allocation counters are not supported by this JVM");
+            System.exit(1);
+        }
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        // The counter is read around every frame, and on some JVMs reading it allocates, so leave that out.
+        long probe = allocatedBytes();
+        readOverhead = allocatedBytes() - probe;
+
+        LevelCatalog catalog = LevelCatalog.open(Paths.get(LevelCatalog.DEFAULT_DIRECTORY),
+                Paths.get(LevelCatalog.DEFAULT_INDEX_FILE), false);
+
+        long total = 0;
+        for (int levelNumber = 1; levelNumber <= LEVEL_COUNT; levelNumber++) {
+            LevelInfo info = catalog.get(levelNumber);
+            for (boolean packedNotes : new boolean[] {false, true}) {
+                for (int i = 0; i < WARM_UP_RUNS; i++) {
+                    play(info, packedNotes, false);
+                }
+                // A deoptimisation by the JIT can allocate on one run, but an allocation in the game repeats on
+                // every run, so only the cleanest run counts.
+                long least = Long.MAX_VALUE;
+                for (int i = 0; i < MEASURED_RUNS; i++) {
+                    least = Math.min(least, play(info, packedNotes, true));
+                }
+                total += least;
+            }
+        }
+
+        if (total > 0) {
+            System.out.printf("FAILED: steady-state frames allocated %d bytes%n", total);
+            System.exit(1);
+        }
+        System.out.println("OK: steady-state frames allocate nothing");
+    }
+}
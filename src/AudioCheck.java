@@ -0,0 +1,192 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * Checks audio streaming and the chart clock without a sound device. A generated WAV file, or a track given on the
+ * command line such as res/track1.wav, is streamed to a silent sink running on a fake clock while frames are paced at
+ * 60 per second with jitter, regular dropped frames and one stall long enough to starve the sink. Every byte of the
+ * file must reach the sink in order, the chart must never be further from the music than the clock allows and must be
+ * back in step shortly after each dropped frame, the steps run must match the length of the track, and once the track
+ * has ended the chart must carry on with real time, since a chart can outlast its track. Exits with a non-zero status
+ * if any of that fails, so it can be run as part of a build.
+ */
+public final class AudioCheck {
+    private final static int SAMPLE_RATE = 44_100;
+    private final static int CHANNELS = 2;
+    private final static int BITS_PER_SAMPLE = 16;
+    private final static int SECONDS = 20;
+    private final static long FRAME_NANOS = 1_000_000_000L / 60;
+    private final static long JITTER_NANOS = 1_000_000;
+    private final static int DROP_INTERVAL = 120;
+    private final static long DROP_NANOS = 150_000_000;
+    private final static int STALL_FRAME = 600;
+    private final static long STALL_NANOS = 700_000_000;
+    private final static long MAX_DRIFT_NANOS = 70_000_000;
+    private final static long SETTLED_DRIFT_NANOS = 2 * FRAME_NANOS;
+    private final static int SETTLE_FRAMES = 30;
+    private final static int OVERRUN_FRAMES = 120;
+    private final static int READ_BUFFER_SIZE = 1 << 16;
+
+    // Writes a WAV file whose samples are a pattern which shows up if any chunk is lost, repeated or reordered.
+    private static byte[] writeTrack(Path file) throws IOException {
+        int frameSize = CHANNELS * BITS_PER_SAMPLE / 8;
+        byte[] samples = new byte[SECONDS * SAMPLE_RATE * frameSize];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (byte) (i * 31 + (i >> 12));
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes()).putInt(36 + samples.length).put("WAVE".getBytes());
+        header.put("fmt ".getBytes()).putInt(16).putShort((short) 1).putShort((short) CHANNELS).putInt(SAMPLE_RATE)
+                .putInt(SAMPLE_RATE * frameSize).putShort((short) frameSize).putShort((short) BITS_PER_SAMPLE);
+        header.put("data".getBytes()).putInt(samples.length);
+
+        byte[] contents = new byte[header.capacity() + samples.length];
+        System.arraycopy(header.array(), 0, contents, 0, header.capacity());
+        System.arraycopy(samples, 0, contents, header.capacity(), samples.length);
+        Files.write(file, contents);
+        return samples;
+    }
+
+    // Reads all the samples of a WAV file.
+    private static byte[] readTrack(Path file) throws IOException {
+        try (WavReader reader = new WavReader(file)) {
+            ByteArrayOutputStream samples = new ByteArrayOutputStream();
+            byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int length;
+            while ((length = reader.read(buffer, 0, buffer.length)) > 0) {
+                samples.write(buffer, 0, length);
+            }
+            return samples.toByteArray();
+        }
+    }
+
+    // Streams the track through paced frames, checking the chart against the music, and returns the number of
+    // failures.
+    private static int check(Path file, byte[] samples) throws IOException, InterruptedException {
+        CRC32 expected = new CRC32();
+        expected.update(samples);
+
+        long[] time = {0};
+        long[] streamedBytes = {0};
+        CRC32 streamed = new CRC32();
+        NullAudioSink sink = new NullAudioSink(() -> time[0]) {
+            @Override
+            public void queue(ByteBuffer chunk) {
+                streamedBytes[0] += chunk.remaining();
+                streamed.update(chunk.duplicate());
+                super.queue(chunk);
+            }
+        };
+
+        Random random = new Random(SECONDS);
+        int failures = 0;
+        int frames = 0;
+        int lastDrop = 0;
+        long steps = 0;
+        long maxDrift = 0;
+        long maxSettledDrift = 0;
+
+        try (AudioStream music = new AudioStream(file, sink)) {
+            ChartClock clock = new ChartClock(music);
+            music.start();
+
+            while (!music.isFinished()) {
+                music.update();
+                steps += clock.advance(time[0]);
+
+                long drift = Math.abs(clock.getChartNanos() - music.getPositionNanos());
+                boolean settled = frames - lastDrop >= SETTLE_FRAMES;
+                maxDrift = Math.max(maxDrift, drift);
+                if (settled) {
+                    maxSettledDrift = Math.max(maxSettledDrift, drift);
+                }
+                if (drift > MAX_DRIFT_NANOS || (settled && drift > SETTLED_DRIFT_NANOS)) {
+                    if (failures++ == 0) {
+                        System.out.printf("frame %d: chart at %.1f ms, music at %.1f ms%n", frames,
+                                clock.getChartNanos() / 1e6, music.getPositionNanos() / 1e6);
+                    }
+                }
+
+                frames++;
+                long frameNanos = FRAME_NANOS + (long) ((random.nextDouble() * 2 - 1) * JITTER_NANOS);
+                if (frames % DROP_INTERVAL == 0) {
+                    frameNanos += DROP_NANOS;
+                    lastDrop = frames;
+                }
+                if (frames == STALL_FRAME) {
+                    frameNanos += STALL_NANOS;
+                    lastDrop = frames;
+                }
+                time[0] += frameNanos;
+
+                // The fake clock runs far faster than real time, so the decoder thread is given time to keep up.
+                Thread.sleep(1);
+            }
+
+            long stepsExpected = music.getDurationNanos() / clock.getStepNanos() + 1;
+            System.out.printf("%d frames, %d steps for a %d step track, drift at most %.1f ms and %.1f ms once "
+                    + "settled%n", frames, steps, stepsExpected, maxDrift / 1e6, maxSettledDrift / 1e6);
+            if (Math.abs(steps - stepsExpected) > 2) {
+                System.out.printf("%d steps were run for a %d step track%n", steps, stepsExpected);
+                failures++;
+            }
+
+            // Level 1's chart runs for about 31 s against a 17 s track, so the chart must go on once the music ends.
+            long endTime = time[0];
+            long endChartNanos = clock.getChartNanos();
+            for (int i = 0; i < OVERRUN_FRAMES; i++) {
+                time[0] += FRAME_NANOS;
+                clock.advance(time[0]);
+            }
+            long overrun = clock.getChartNanos() - endChartNanos;
+            if (Math.abs(overrun - (time[0] - endTime)) > clock.getStepNanos()) {
+                System.out.printf("the chart moved %.1f ms in the %.1f ms after the track ended%n", overrun / 1e6,
+                        (time[0] - endTime) / 1e6);
+                failures++;
+            }
+        }
+
+        if (streamedBytes[0] != samples.length || streamed.getValue() != expected.getValue()) {
+            System.out.printf("%d of %d bytes streamed, %s%n", streamedBytes[0], samples.length,
+                    streamed.getValue() == expected.getValue() ? "matching" : "not matching the file");
+            failures++;
+        }
+
+        return failures;
+    }
+
+    /**
+     * Runs the check on a track, or on a temporary generated track if none is given.
+     * @param args Optionally the WAV file to check.
+     * @throws IOException If the track could not be read or the temporary track could not be written.
+     * @throws InterruptedException If the check was interrupted.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int failures;
+        if (args.length > 0) {
+            Path file = Paths.get(args[0]);
+            failures = check(file, readTrack(file));
+        } else {
+            Path file = Files.createTempFile("track", ".wav");
+            try {
+                failures = check(file, writeTrack(file));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        if (failures > 0) {
+            System.out.printf("FAILED: %d problems with the streamed track%n", failures);
+            System.exit(1);
+        }
+        System.out.println("OK: the track streamed intact and the chart stayed locked to it");
+    }
+}
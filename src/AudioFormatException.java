@@ -0,0 +1,16 @@
+import java.io.IOException;
+
+/**
+ * Thrown when an audio file cannot be played because its contents are malformed or in a format which is not supported.
+ */
+public class AudioFormatException extends IOException {
+    /**
+     * Creates a new exception for a problem in an audio file.
+     * @param fileName The name of the audio file.
+     * @param offset The byte offset of the problem.
+     * @param message A description of the problem.
+     */
+    public AudioFormatException(String fileName, long offset, String message) {
+        super(fileName + " (byte " + offset + "): " + message);
+    }
+}
@@ -0,0 +1,90 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size, lock-free ring of bytes passing decoded audio from the thread which decodes it to the thread which
+ * feeds it to the sound device. It supports one thread writing and one thread reading, and never allocates after it is
+ * created.
+ */
+public class AudioRingBuffer {
+    private final byte[] data;
+    private final int mask;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong read = new AtomicLong();
+
+    /**
+     * Creates a new, empty ring.
+     * @param capacity The most bytes the ring can hold, which must be a power of two.
+     */
+    public AudioRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+
+        data = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Gets the most bytes the ring can hold.
+     * @return The capacity in bytes.
+     */
+    public int getCapacity() {
+        return data.length;
+    }
+
+    /**
+     * Gets the number of bytes waiting to be read.
+     * @return The number of bytes which can be read.
+     */
+    public int getAvailable() {
+        return (int) (written.get() - read.get());
+    }
+
+    /**
+     * Gets the number of bytes which can be written without overwriting bytes which have not been read.
+     * @return The free space in bytes.
+     */
+    public int getFreeSpace() {
+        return data.length - getAvailable();
+    }
+
+    /**
+     * Adds bytes to the ring, as many as there is room for. Must only be called from the writing thread.
+     * @param source The array holding the bytes.
+     * @param start The index of the first byte in the array.
+     * @param length The number of bytes to write.
+     * @return The number of bytes written.
+     */
+    public int write(byte[] source, int start, int length) {
+        long position = written.get();
+        int count = Math.min(length, data.length - (int) (position - read.get()));
+        int slot = (int) position & mask;
+        int first = Math.min(count, data.length - slot);
+        System.arraycopy(source, start, data, slot, first);
+        System.arraycopy(source, start + first, data, 0, count - first);
+
+        // Publish the bytes only after they have been copied.
+        written.lazySet(position + count);
+        return count;
+    }
+
+    /**
+     * Takes bytes from the ring, as many as are available. Must only be called from the reading thread.
+     * @param target The buffer to put the bytes in, from its position.
+     * @param length The most bytes to read.
+     * @return The number of bytes read.
+     */
+    public int read(ByteBuffer target, int length) {
+        long position = read.get();
+        int count = Math.min(length, (int) (written.get() - position));
+        int slot = (int) position & mask;
+        int first = Math.min(count, data.length - slot);
+        target.put(data, slot, first);
+        target.put(data, 0, count - first);
+
+        // Free the space only after the bytes have been copied out.
+        read.lazySet(position + count);
+        return count;
+    }
+}
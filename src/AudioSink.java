@@ -0,0 +1,50 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Somewhere to play a stream of audio, fed a chunk at a time. A sink holds a small number of chunks at once, and
+ * reports how far through the stream it has played so that the game can be timed from the music.
+ */
+public interface AudioSink {
+    /**
+     * Prepares the sink to play a new stream, discarding anything from the previous one.
+     * @param sampleRate The number of sample frames per second.
+     * @param channels The number of channels, 1 or 2.
+     * @param bitsPerSample The size of a sample of one channel, 8 or 16.
+     */
+    void open(int sampleRate, int channels, int bitsPerSample);
+
+    /**
+     * Determines whether the sink has room for another chunk.
+     * @return Whether {@link #queue(ByteBuffer)} can be called.
+     */
+    boolean canQueue();
+
+    /**
+     * Adds a chunk to the end of the stream. The sink keeps playing the stream as long as it is fed, and pauses when
+     * it runs out until it is fed again.
+     * @param samples The samples from the buffer's position to its limit, a whole number of frames. The buffer can be
+     *                reused once this returns.
+     */
+    void queue(ByteBuffer samples);
+
+    /**
+     * Starts playing the stream.
+     */
+    void play();
+
+    /**
+     * Stops playing and discards the stream.
+     */
+    void stop();
+
+    /**
+     * Gets how far through the stream the sink has played.
+     * @return The number of sample frames played since the stream was opened.
+     */
+    long getPlayedFrames();
+
+    /**
+     * Releases the sink, which cannot be used afterwards.
+     */
+    void close();
+}
@@ -0,0 +1,157 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams a WAV file to an audio sink. A background thread decodes the file a chunk at a time into a ring buffer
+ * holding about a second of audio, and the game thread moves whole chunks from the ring to the sink every frame, so
+ * neither reading the file nor the sound device can hold up a frame. How far the sink has played is the time the
+ * music is at, which {@link ChartClock} times the chart from.
+ */
+public class AudioStream implements AutoCloseable {
+    private final static int RING_CAPACITY = 1 << 18;
+    private final static int CHUNK_FRAMES = 4096;
+    private final static long DECODE_WAIT_NANOS = 2_000_000;
+    private final static long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final String fileName;
+    private final WavReader reader;
+    private final AudioSink sink;
+    private final AudioRingBuffer ring = new AudioRingBuffer(RING_CAPACITY);
+    private final byte[] decodeBuffer;
+    private final ByteBuffer chunk;
+    private final int frameSize;
+    private final int sampleRate;
+    private final Thread decoder;
+    private volatile boolean decoded = false;
+    private volatile boolean closed = false;
+    private long queuedFrames = 0;
+
+    /**
+     * Opens a WAV file to stream to a sink. Nothing plays until the stream is started.
+     * @param file The WAV file to play.
+     * @param sink The sink to play the file on, which is prepared for the file's format.
+     * @throws IOException If the file could not be read or is not a supported WAV file.
+     */
+    public AudioStream(Path file, AudioSink sink) throws IOException {
+        fileName = file.toString();
+        reader = new WavReader(file);
+        this.sink = sink;
+        frameSize = reader.getFrameSize();
+        sampleRate = reader.getSampleRate();
+        decodeBuffer = new byte[CHUNK_FRAMES * frameSize];
+        // OpenAL reads the samples from native memory.
+        chunk = ByteBuffer.allocateDirect(CHUNK_FRAMES * frameSize);
+
+        sink.open(sampleRate, reader.getChannels(), reader.getBitsPerSample());
+        decoder = new Thread(this::decode, "Audio decoder");
+        decoder.setDaemon(true);
+    }
+
+    /**
+     * Starts playing, after decoding the first chunks so that the music starts straight away.
+     * @throws IOException If the file could not be read.
+     */
+    public void start() throws IOException {
+        // The decoder thread has not started yet, so this thread can fill the ring first.
+        while (!decoded && ring.getFreeSpace() >= decodeBuffer.length && sink.canQueue()) {
+            decodeChunk();
+            update();
+        }
+
+        sink.play();
+        decoder.start();
+    }
+
+    // Decodes chunks on the decoder thread until the file ends or the stream is closed.
+    private void decode() {
+        try {
+            while (!closed && !decoded) {
+                if (ring.getFreeSpace() < decodeBuffer.length) {
+                    LockSupport.parkNanos(DECODE_WAIT_NANOS);
+                } else {
+                    decodeChunk();
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Could not decode " + fileName + ": " + e.getMessage());
+            decoded = true;
+        }
+    }
+
+    // Decodes the next chunk of the file into the ring, which must have room for it.
+    private void decodeChunk() throws IOException {
+        int length = reader.read(decodeBuffer, 0, decodeBuffer.length);
+        if (length < 0) {
+            decoded = true;
+        } else {
+            ring.write(decodeBuffer, 0, length);
+        }
+    }
+
+    /**
+     * Moves decoded chunks to the sink while it has room for them. Called once every frame.
+     */
+    public void update() {
+        while (sink.canQueue()) {
+            // Once the whole file is decoded the last, shorter chunk can be queued too.
+            boolean ending = decoded;
+            int length = Math.min(ring.getAvailable(), chunk.capacity());
+            length -= length % frameSize;
+            if (length == 0 || (length < chunk.capacity() && !ending)) {
+                return;
+            }
+
+            chunk.clear();
+            ring.read(chunk, length);
+            chunk.flip();
+            sink.queue(chunk);
+            queuedFrames += length / frameSize;
+        }
+    }
+
+    /**
+     * Gets how far the music has played.
+     * @return The time from the start of the track in nanoseconds.
+     */
+    public long getPositionNanos() {
+        return sink.getPlayedFrames() * NANOS_PER_SECOND / sampleRate;
+    }
+
+    /**
+     * Gets the length of the track, according to the file's header.
+     * @return The length in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return reader.getFrameCount() * NANOS_PER_SECOND / sampleRate;
+    }
+
+    /**
+     * Determines whether the whole track has been played.
+     * @return Whether the track is over.
+     */
+    public boolean isFinished() {
+        return decoded && ring.getAvailable() < frameSize && sink.getPlayedFrames() >= queuedFrames;
+    }
+
+    /**
+     * Stops the music and closes the file.
+     * @throws IOException If the file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (decoder.isAlive()) {
+            LockSupport.unpark(decoder);
+            try {
+                decoder.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        sink.stop();
+        reader.close();
+    }
+}
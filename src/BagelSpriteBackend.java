@@ -0,0 +1,43 @@
+import bagel.DrawOptions;
+import bagel.Image;
+
+/**
+ * Draws sprites with bagel, looking each batch's image up in a texture cache once rather than once per sprite.
+ */
+public class BagelSpriteBackend implements SpriteBackend {
+    private final TextureCache textures;
+    private final DrawOptions rotated = new DrawOptions();
+    private Image image = null;
+
+    /**
+     * Creates a backend which draws the images held by a texture cache.
+     * @param textures The cache holding the images.
+     */
+    public BagelSpriteBackend(TextureCache textures) {
+        this.textures = textures;
+    }
+
+    @Override
+    public double getWidth(String texture) {
+        return textures.get(texture).getWidth();
+    }
+
+    @Override
+    public double getHeight(String texture) {
+        return textures.get(texture).getHeight();
+    }
+
+    @Override
+    public void beginBatch(String texture, int count) {
+        image = textures.get(texture);
+    }
+
+    @Override
+    public void draw(double x, double y, double rotation) {
+        if (rotation == 0) {
+            image.draw(x, y);
+        } else {
+            image.draw(x, y, rotated.setRotation(rotation));
+        }
+    }
+}
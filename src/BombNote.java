@@ -9,9 +9,14 @@ public class BombNote extends SpecialNote {
         super(appearanceFrame, IMAGE_FILE);
     }
 
+    @Override
+    public NoteType getType() {
+        return NoteType.BOMB;
+    }
+
     @Override
     protected void activateEffect(Lane lane) {
-        Accuracy.setMessage(ACTIVATE_MESSAGE);
+        lane.getLevel().getAccuracy().setMessage(ACTIVATE_MESSAGE);
         lane.bombLane();
     }
 }
@@ -0,0 +1,74 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering the opening of the level catalog, showing how much of it came from the index.
+ */
+@Name("shadowdance.CatalogOpen")
+@Label("Catalog Open")
+@Category({"ShadowDance", "Loading"})
+@Description("Finding the levels and bringing their metadata index up to date")
+@StackTrace(false)
+public class CatalogOpenEvent extends Event {
+    private final static EventType TYPE = EventType.getEventType(CatalogOpenEvent.class);
+
+    @Label("Directory")
+    private String directory;
+
+    @Label("Levels")
+    private int levelCount;
+
+    @Label("From Index")
+    @Description("Charts whose size and modification time matched the index")
+    private int cachedCount;
+
+    @Label("Hashed")
+    @Description("Charts which were hashed and found unchanged")
+    private int hashedCount;
+
+    @Label("Parsed")
+    @Description("Charts which were new or changed and were read again")
+    private int parsedCount;
+
+    /**
+     * Starts timing the opening of a catalog if the event is being recorded.
+     * @return The started event, or null if no recording wants it.
+     */
+    public static CatalogOpenEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+
+        CatalogOpenEvent event = new CatalogOpenEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finishes and commits an event started by {@link #start()}.
+     * @param event The started event, or null if none was started.
+     * @param directory The directory the charts were found in.
+     * @param levelCount The number of levels found.
+     * @param cachedCount The number of levels taken from the index.
+     * @param hashedCount The number of levels hashed and found unchanged.
+     * @param parsedCount The number of levels read again.
+     */
+    public static void finish(CatalogOpenEvent event, String directory, int levelCount, int cachedCount,
+                              int hashedCount, int parsedCount) {
+        if (event == null) {
+            return;
+        }
+
+        event.directory = directory;
+        event.levelCount = levelCount;
+        event.cachedCount = cachedCount;
+        event.hashedCount = hashedCount;
+        event.parsedCount = parsedCount;
+        event.commit();
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * The lanes and notes of a chart, independent of the file format it was loaded from. Each lane's notes are sorted by
+ * the frame they appear on.
+ */
+public class Chart {
+    private final static NoteType[] NOTE_TYPES = NoteType.values();
+
+    private final String[] laneTypes;
+    private final int[] lanePositions;
+    private final int[][] noteFrames;
+    private final byte[][] noteTypes;
+
+    /**
+     * Creates a chart from its lane table and per-lane note arrays.
+     * @param laneTypes The type of each lane.
+     * @param lanePositions The x position of each lane.
+     * @param noteFrames The appearance frame of each note, per lane, sorted in increasing order.
+     * @param noteTypes The {@link NoteType} ordinal of each note, per lane.
+     */
+    public Chart(String[] laneTypes, int[] lanePositions, int[][] noteFrames, byte[][] noteTypes) {
+        this.laneTypes = laneTypes;
+        this.lanePositions = lanePositions;
+        this.noteFrames = noteFrames;
+        this.noteTypes = noteTypes;
+    }
+
+    /**
+     * Gets the number of lanes in the chart.
+     * @return The number of lanes.
+     */
+    public int getLaneCount() {
+        return laneTypes.length;
+    }
+
+    /**
+     * Gets the type of a lane.
+     * @param lane The index of the lane.
+     * @return The type of the lane.
+     */
+    public String getLaneType(int lane) {
+        return laneTypes[lane];
+    }
+
+    /**
+     * Gets the x position of a lane.
+     * @param lane The index of the lane.
+     * @return The x position of the lane.
+     */
+    public int getLanePosition(int lane) {
+        return lanePositions[lane];
+    }
+
+    /**
+     * Gets the number of notes in a lane.
+     * @param lane The index of the lane.
+     * @return The number of notes in the lane.
+     */
+    public int getNoteCount(int lane) {
+        return noteFrames[lane].length;
+    }
+
+    /**
+     * Gets the total number of notes in the chart.
+     * @return The number of notes in every lane.
+     */
+    public int getTotalNoteCount() {
+        int total = 0;
+        for (int[] frames : noteFrames) {
+            total += frames.length;
+        }
+
+        return total;
+    }
+
+    /**
+     * Gets the frame which a note appears on.
+     * @param lane The index of the lane.
+     * @param note The index of the note within the lane.
+     * @return The note's appearance frame.
+     */
+    public int getNoteFrame(int lane, int note) {
+        return noteFrames[lane][note];
+    }
+
+    /**
+     * Gets the type of a note.
+     * @param lane The index of the lane.
+     * @param note The index of the note within the lane.
+     * @return The note's type.
+     */
+    public NoteType getNoteType(int lane, int note) {
+        return NOTE_TYPES[noteTypes[lane][note]];
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Times the chart from the music, so notes stay locked to the track however the frames are paced. Each frame the chart
+ * time moves on by the time since the last frame, snapped to whole steps like {@link SimulationClock}, and is then
+ * pulled towards where the music is: gently for small drift, and straight to it after a long stall or if the music
+ * stops because it ran out of decoded audio. Sound devices only report their position every few milliseconds, so the
+ * music's time is taken as the last position reported plus the time since it was reported.
+ * <p>
+ * Unlike the simulation clock, steps which could not be run in one frame are not dropped but caught up on over the
+ * next frames, since dropping them would leave the chart behind the music for the rest of the level. Once the track
+ * has finished the chart carries on with real time.
+ */
+public class ChartClock implements StepClock {
+    private final static long NANOS_PER_SECOND = 1_000_000_000L;
+    private final static long SNAP_TOLERANCE_NANOS = 500_000;
+    private final static int MAX_STEPS_PER_FRAME = 8;
+    // The music is assumed to have stalled when it has not moved for this long.
+    private final static long MAX_EXTRAPOLATION_NANOS = 50_000_000;
+    private final static long RESYNC_NANOS = 50_000_000;
+    // The share of the drift corrected each frame when the chart is close to the music.
+    private final static int CORRECTION_DIVISOR = 16;
+
+    private final AudioStream audio;
+    private final long stepNanos;
+    private boolean started = false;
+    private long lastTime = 0;
+    private long chartTime = 0;
+    private long audioPosition = 0;
+    private long audioPositionTime = 0;
+    private long stepsRun = 0;
+
+    /**
+     * Creates a clock which times the chart from a track at the default simulation rate.
+     * @param audio The track the chart is played to.
+     */
+    public ChartClock(AudioStream audio) {
+        this(audio, SimulationClock.DEFAULT_STEPS_PER_SECOND);
+    }
+
+    /**
+     * Creates a clock which times the chart from a track.
+     * @param audio The track the chart is played to.
+     * @param stepsPerSecond The number of simulation steps per second.
+     */
+    public ChartClock(AudioStream audio, int stepsPerSecond) {
+        this.audio = audio;
+        stepNanos = NANOS_PER_SECOND / stepsPerSecond;
+    }
+
+    @Override
+    public void reset() {
+        started = false;
+        chartTime = 0;
+        audioPosition = 0;
+        stepsRun = 0;
+    }
+
+    @Override
+    public int advance(long now) {
+        if (!started) {
+            started = true;
+            lastTime = now;
+            audioPositionTime = now;
+        }
+
+        long delta = now - lastTime;
+        lastTime = now;
+        long wholeSteps = Math.round((double) delta / stepNanos);
+        if (wholeSteps > 0 && Math.abs(delta - wholeSteps * stepNanos) <= SNAP_TOLERANCE_NANOS) {
+            delta = wholeSteps * stepNanos;
+        }
+        chartTime += delta;
+
+        if (!audio.isFinished()) {
+            long position = audio.getPositionNanos();
+            if (position != audioPosition) {
+                audioPosition = position;
+                audioPositionTime = now;
+            }
+
+            long musicTime = audioPosition + Math.min(now - audioPositionTime, MAX_EXTRAPOLATION_NANOS);
+            long drift = musicTime - chartTime;
+            if (Math.abs(drift) > RESYNC_NANOS) {
+                // The chart never goes back, so notes already judged stay judged; it waits for the music instead.
+                chartTime = Math.max(musicTime, chartTime - delta);
+            } else {
+                chartTime += drift / CORRECTION_DIVISOR;
+            }
+        }
+
+        // The first step simulates time 0, and the simulation always runs up to the first step at or after now.
+        long target = Math.floorDiv(chartTime + stepNanos - 1, stepNanos) + 1;
+        int steps = (int) Math.max(0, Math.min(MAX_STEPS_PER_FRAME, target - stepsRun));
+        stepsRun += steps;
+        return steps;
+    }
+
+    @Override
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    @Override
+    public long getStepTime(int step, int steps) {
+        long stepChartTime = (stepsRun - steps + step) * stepNanos;
+        return lastTime + stepChartTime - chartTime;
+    }
+
+    @Override
+    public double getAlpha() {
+        double alpha = 1 + (double) (chartTime - (stepsRun - 1) * stepNanos) / stepNanos;
+        return Math.max(Double.MIN_VALUE, Math.min(1, alpha));
+    }
+
+    /**
+     * Gets how far into the chart the clock is.
+     * @return The chart time in nanoseconds from the start of the track.
+     */
+    public long getChartNanos() {
+        return chartTime;
+    }
+}
@@ -0,0 +1,189 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Compiles level csv files into the binary format read by {@link ChartFile}. Unlike the lenient loader used by the
+ * game, the compiler rejects anything it does not understand and reports the line it was found on.
+ */
+public final class ChartCompiler {
+    private final static String LANE_PREFIX = "Lane";
+    private final static int FIELD_COUNT = 3;
+
+    private ChartCompiler() {
+    }
+
+    // Collects the notes of a single lane while the csv is read.
+    private static class LaneBuilder {
+        private int[] frames = new int[16];
+        private byte[] types = new byte[16];
+        private int size = 0;
+        private boolean sorted = true;
+
+        private void add(int frame, NoteType type) {
+            if (size == frames.length) {
+                frames = Arrays.copyOf(frames, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+            }
+
+            if (size > 0 && frame < frames[size - 1]) {
+                sorted = false;
+            }
+
+            frames[size] = frame;
+            types[size] = (byte) type.ordinal();
+            size++;
+        }
+
+        // Sorts the notes by frame, keeping notes on the same frame in the order they were read.
+        private void sort() {
+            if (sorted) {
+                frames = Arrays.copyOf(frames, size);
+                types = Arrays.copyOf(types, size);
+                return;
+            }
+
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) frames[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            int[] sortedFrames = new int[size];
+            byte[] sortedTypes = new byte[size];
+            for (int i = 0; i < size; i++) {
+                int original = (int) keys[i];
+                sortedFrames[i] = frames[original];
+                sortedTypes[i] = types[original];
+            }
+
+            frames = sortedFrames;
+            types = sortedTypes;
+        }
+    }
+
+    /**
+     * Reads a level csv file into a chart.
+     * @param file The csv file to read.
+     * @return The chart, with each lane's notes sorted by frame.
+     * @throws ChartFormatException If a line of the file is malformed.
+     * @throws IOException If the file could not be read.
+     */
+    public static Chart parseCsv(Path file) throws IOException {
+        ArrayList<String> laneTypes = new ArrayList<>();
+        ArrayList<Integer> lanePositions = new ArrayList<>();
+        ArrayList<LaneBuilder> lanes = new ArrayList<>();
+        HashMap<String, LaneBuilder> lanesByType = new HashMap<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String text;
+            int lineNumber = 0;
+
+            while ((text = reader.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank()) {
+                    continue;
+                }
+
+                String[] arguments = text.split(",", -1);
+                if (arguments.length != FIELD_COUNT) {
+                    throw error(file, lineNumber, "expected " + FIELD_COUNT + " fields but found " + arguments.length);
+                }
+
+                if (arguments[0].equals(LANE_PREFIX)) {
+                    String type = arguments[1];
+                    if (lanesByType.containsKey(type)) {
+                        throw error(file, lineNumber, "lane " + type + " is declared twice");
+                    }
+                    if (Lane.getKey(type) == null) {
+                        throw error(file, lineNumber, "lane " + type + " does not match any key");
+                    }
+
+                    LaneBuilder lane = new LaneBuilder();
+                    laneTypes.add(type);
+                    lanePositions.add(parseInt(file, lineNumber, arguments[2], "lane position"));
+                    lanes.add(lane);
+                    lanesByType.put(type, lane);
+                } else {
+                    LaneBuilder lane = lanesByType.get(arguments[0]);
+                    if (lane == null) {
+                        throw error(file, lineNumber, "note is in lane " + arguments[0]
+                                + " which has not been declared");
+                    }
+
+                    NoteType type = NoteType.fromName(arguments[1]);
+                    if (type == null) {
+                        throw error(file, lineNumber, "unknown note type " + arguments[1]);
+                    }
+
+                    lane.add(parseInt(file, lineNumber, arguments[2], "appearance frame"), type);
+                }
+            }
+        }
+
+        int laneCount = lanes.size();
+        int[] positions = new int[laneCount];
+        int[][] frames = new int[laneCount][];
+        byte[][] types = new byte[laneCount][];
+
+        for (int i = 0; i < laneCount; i++) {
+            LaneBuilder lane = lanes.get(i);
+            lane.sort();
+            positions[i] = lanePositions.get(i);
+            frames[i] = lane.frames;
+            types[i] = lane.types;
+        }
+
+        return new Chart(laneTypes.toArray(new String[0]), positions, frames, types);
+    }
+
+    private static int parseInt(Path file, int lineNumber, String text, String field) throws ChartFormatException {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw error(file, lineNumber, field + " '" + text + "' is not a whole number");
+        }
+    }
+
+    private static ChartFormatException error(Path file, int lineNumber, String message) {
+        return new ChartFormatException(file.toString(), "line " + lineNumber, message);
+    }
+
+    /**
+     * Compiles csv charts, writing each one next to its source with the compiled chart extension.
+     * @param args The csv files to compile.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("usage: ChartCompiler <chart.csv>...");
+            System.exit(1);
+        }
+
+        boolean failed = false;
+
+        for (String arg : args) {
+            Path source = Paths.get(arg);
+            String name = source.getFileName().toString();
+            Path target = source.resolveSibling(name.replaceFirst("\\.csv$", "") + ChartFile.EXTENSION);
+
+            try {
+                Chart chart = parseCsv(source);
+                ChartFile.write(chart, target);
+                System.out.printf("%s -> %s: %d lanes, %d notes%n", source, target, chart.getLaneCount(),
+                        chart.getTotalNoteCount());
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+                failed = true;
+            }
+        }
+
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
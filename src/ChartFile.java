@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes compiled charts. A compiled chart is a little-endian binary file laid out as follows:
+ * <pre>
+ * header   magic "SDCH", u16 version, u16 reserved, u32 lane count, u32 note count, u32 CRC32 of the body
+ * lanes    per lane: u16 type length, UTF-8 type, i32 x position, u32 note count
+ * notes    per lane: i32 appearance frame per note in increasing order, then u8 note type per note
+ * </pre>
+ * Files are memory-mapped when read, and every field is checked so malformed files fail with the offset of the
+ * problem. Charts can also be streamed, in which case notes stay in the mapped file until a lane reaches them.
+ */
+public final class ChartFile {
+    /**
+     * The file extension of compiled charts.
+     */
+    public final static String EXTENSION = ".chart";
+    /**
+     * The version of the format written by {@link #write(Chart, Path)}.
+     */
+    public final static int VERSION = 1;
+
+    private final static int MAGIC = 0x48434453; // "SDCH" in little-endian order
+    private final static int HEADER_SIZE = 20;
+
+    private ChartFile() {
+    }
+
+    /**
+     * Writes a chart in the compiled format.
+     * @param chart The chart to write.
+     * @param file The file to write to.
+     * @throws IOException If the file could not be written.
+     */
+    public static void write(Chart chart, Path file) throws IOException {
+        int laneCount = chart.getLaneCount();
+        byte[][] laneTypes = new byte[laneCount][];
+        int bodySize = 0;
+
+        for (int lane = 0; lane < laneCount; lane++) {
+            laneTypes[lane] = chart.getLaneType(lane).getBytes(StandardCharsets.UTF_8);
+            bodySize += 2 + laneTypes[lane].length + 4 + 4 + 5 * chart.getNoteCount(lane);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bodySize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(HEADER_SIZE);
+
+        for (int lane = 0; lane < laneCount; lane++) {
+            buffer.putShort((short) laneTypes[lane].length);
+            buffer.put(laneTypes[lane]);
+            buffer.putInt(chart.getLanePosition(lane));
+            buffer.putInt(chart.getNoteCount(lane));
+        }
+
+        for (int lane = 0; lane < laneCount; lane++) {
+            int noteCount = chart.getNoteCount(lane);
+            for (int note = 0; note < noteCount; note++) {
+                buffer.putInt(chart.getNoteFrame(lane, note));
+            }
+            for (int note = 0; note < noteCount; note++) {
+                buffer.put((byte) chart.getNoteType(lane, note).ordinal());
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, bodySize);
+
+        buffer.putInt(0, MAGIC);
+        buffer.putShort(4, (short) VERSION);
+        buffer.putShort(6, (short) 0);
+        buffer.putInt(8, laneCount);
+        buffer.putInt(12, chart.getTotalNoteCount());
+        buffer.putInt(16, (int) crc.getValue());
+
+        Files.write(file, buffer.array());
+    }
+
+    /**
+     * Reads a compiled chart by memory-mapping it.
+     * @param file The file to read.
+     * @return The chart.
+     * @throws ChartFormatException If the file is not a valid compiled chart.
+     * @throws IOException If the file could not be read.
+     */
+    public static Chart read(Path file) throws IOException {
+        return read(file, map(file));
+    }
+
+    /**
+     * Opens a compiled chart for streaming. Only the header and lane table are read; notes are read from the mapped
+     * file as the level reaches them. The checksum is not verified, since that would mean reading the whole file.
+     * @param file The file to open.
+     * @return A stream over the chart's lanes.
+     * @throws ChartFormatException If the header or lane table is malformed.
+     * @throws IOException If the file could not be read.
+     */
+    public static ChartStream stream(Path file) throws IOException {
+        ByteBuffer buffer = map(file);
+        checkHeader(file, buffer);
+        return new ChartStream(file, buffer, HEADER_SIZE, buffer.getInt(8), buffer.getInt(12));
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw error(file, 0, "file is " + size + " bytes, shorter than the " + HEADER_SIZE + " byte header");
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw error(file, 0, "file is too large to map");
+            }
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return mapped.order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private static void checkHeader(Path file, ByteBuffer buffer) throws ChartFormatException {
+        if (buffer.getInt(0) != MAGIC) {
+            throw error(file, 0, "not a compiled chart (bad magic number)");
+        }
+
+        int version = Short.toUnsignedInt(buffer.getShort(4));
+        if (version != VERSION) {
+            throw error(file, 4, "unsupported version " + version + ", expected " + VERSION);
+        }
+
+        if (buffer.getInt(8) < 0 || buffer.getInt(12) < 0) {
+            throw error(file, 8, "negative lane or note count");
+        }
+    }
+
+    private static Chart read(Path file, ByteBuffer buffer) throws ChartFormatException {
+        checkHeader(file, buffer);
+        int laneCount = buffer.getInt(8);
+        int totalNotes = buffer.getInt(12);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(HEADER_SIZE));
+        if ((int) crc.getValue() != buffer.getInt(16)) {
+            throw error(file, 16, "checksum mismatch, the file is corrupt");
+        }
+
+        ChartStream stream = new ChartStream(file, buffer, HEADER_SIZE, laneCount, totalNotes);
+        String[] laneTypes = new String[laneCount];
+        int[] lanePositions = new int[laneCount];
+        int[][] noteFrames = new int[laneCount][];
+        byte[][] noteTypes = new byte[laneCount][];
+
+        for (int lane = 0; lane < laneCount; lane++) {
+            laneTypes[lane] = stream.getLaneType(lane);
+            lanePositions[lane] = stream.getLanePosition(lane);
+            noteFrames[lane] = new int[stream.getNoteCount(lane)];
+            noteTypes[lane] = new byte[stream.getNoteCount(lane)];
+            stream.readLane(lane, noteFrames[lane], noteTypes[lane]);
+        }
+
+        return new Chart(laneTypes, lanePositions, noteFrames, noteTypes);
+    }
+
+    private static ChartFormatException error(Path file, long offset, String message) {
+        return new ChartFormatException(file.toString(), "byte " + offset, message);
+    }
+}
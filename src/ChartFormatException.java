@@ -0,0 +1,16 @@
+import java.io.IOException;
+
+/**
+ * Thrown when a chart file cannot be read because its contents are malformed.
+ */
+public class ChartFormatException extends IOException {
+    /**
+     * Creates a new exception for a problem in a chart file.
+     * @param fileName The name of the chart file.
+     * @param location Where in the file the problem is, such as a line number or byte offset.
+     * @param message A description of the problem.
+     */
+    public ChartFormatException(String fileName, String location, String message) {
+        super(fileName + " (" + location + "): " + message);
+    }
+}
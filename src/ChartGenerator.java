@@ -0,0 +1,300 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates random charts of any size for load and stress testing, written either as level csv files or as compiled
+ * charts. The number of lanes and notes, the mix of note types, how the density of notes changes over the chart and
+ * the random seed are all chosen, so the same arguments always give the same chart.
+ * <p>
+ * Charts are laid out like the shipped levels: the first four lanes are the arrow keys, the fifth is the special lane
+ * and later lanes are named after letter, number and function keys. Speed up, slow down and double score notes go in
+ * the special lane when there is one, and every other note goes in one of the other lanes.
+ */
+public final class ChartGenerator {
+    private final static String[] ARROW_LANES = {"Left", "Right", "Up", "Down"};
+    private final static String SPECIAL_LANE = "Special";
+    private final static int SPECIAL_LANE_INDEX = ARROW_LANES.length;
+    private final static int LETTER_COUNT = 26;
+    private final static int DIGIT_COUNT = 10;
+    private final static int MIN_X = 100;
+    private final static int MAX_X = 924;
+    private final static int FRAMES_PER_LANE_NOTE = 24;
+    private final static int MIN_FRAMES = 3000;
+    private final static long DEFAULT_SEED = 1;
+    private final static String DEFAULT_MIX = "Normal=85,Hold=10,Bomb=1,DoubleScore=2,SpeedUp=1,SlowDown=1";
+    private final static String DEFAULT_DENSITY = "1";
+
+    private ChartGenerator() {
+    }
+
+    /**
+     * Gets the name of a lane in a generated chart. The first lanes are the arrow keys and the special lane, the rest
+     * are named after letter, number and function keys so every lane has its own key.
+     * @param index The index of the lane.
+     * @return The lane's type name.
+     */
+    public static String getLaneType(int index) {
+        if (index < ARROW_LANES.length) {
+            return ARROW_LANES[index];
+        }
+        index -= ARROW_LANES.length;
+        if (index == 0) {
+            return SPECIAL_LANE;
+        }
+        index--;
+        if (index < LETTER_COUNT) {
+            return String.valueOf((char) ('A' + index));
+        }
+        index -= LETTER_COUNT;
+        if (index < DIGIT_COUNT) {
+            return "Num_" + index;
+        }
+        index -= DIGIT_COUNT;
+        return "F" + (index + 1);
+    }
+
+    // Determines whether a type of note belongs in the special lane.
+    private static boolean isSpecial(NoteType type) {
+        return type == NoteType.SPEED_UP || type == NoteType.SLOW_DOWN || type == NoteType.DOUBLE_SCORE;
+    }
+
+    /**
+     * Gets the default length of a generated chart, which gives each lane a note about every 24 frames.
+     * @param laneCount The number of lanes.
+     * @param noteCount The total number of notes.
+     * @return The length of the chart in frames.
+     */
+    public static int getDefaultFrames(int laneCount, int noteCount) {
+        long notesPerLane = ((long) noteCount + laneCount - 1) / laneCount;
+        return (int) Math.min(Integer.MAX_VALUE - 1, Math.max(MIN_FRAMES, notesPerLane * FRAMES_PER_LANE_NOTE));
+    }
+
+    /**
+     * Generates a random chart. The chart is split into equal periods, each given a share of the notes in proportion
+     * to its density, and the notes of a period are spread evenly over it with random jitter.
+     * @param laneCount The number of lanes, at least 1.
+     * @param noteCount The total number of notes.
+     * @param frames The length of the chart in frames.
+     * @param mix The relative weight of every type of note, indexed by {@link NoteType#ordinal()}.
+     * @param density The relative density of notes in each period of the chart, from the start.
+     * @param seed The random seed.
+     * @return The chart.
+     */
+    public static Chart generate(int laneCount, int noteCount, int frames, double[] mix, double[] density,
+                                 long seed) {
+        if (laneCount < 1 || noteCount < 0 || frames < 1) {
+            throw new IllegalArgumentException(String.format("%d lanes, %d notes and %d frames cannot make a chart",
+                    laneCount, noteCount, frames));
+        }
+
+        Random random = new Random(seed);
+        double[] mixTotals = cumulativeTotals(mix, "note mix");
+        double[] densityTotals = cumulativeTotals(density, "density");
+        boolean hasSpecialLane = laneCount > SPECIAL_LANE_INDEX;
+
+        // Notes are generated in frame order, so each lane's notes come out sorted.
+        int[] noteLanes = new int[noteCount];
+        int[] noteFrames = new int[noteCount];
+        byte[] noteTypes = new byte[noteCount];
+        int[] laneSizes = new int[laneCount];
+        int note = 0;
+
+        for (int period = 0; period < density.length; period++) {
+            int periodStart = (int) ((long) frames * period / density.length);
+            int periodEnd = (int) ((long) frames * (period + 1) / density.length);
+            int periodNotes = (int) Math.round(noteCount * densityTotals[period + 1] / densityTotals[density.length])
+                    - note;
+
+            for (int i = 0; i < periodNotes; i++, note++) {
+                NoteType type = NoteType.values()[pick(mixTotals, random.nextDouble())];
+                int lane;
+                if (!hasSpecialLane) {
+                    lane = random.nextInt(laneCount);
+                } else if (isSpecial(type)) {
+                    lane = SPECIAL_LANE_INDEX;
+                } else {
+                    // Pick any lane but the special one.
+                    lane = random.nextInt(laneCount - 1);
+                    if (lane >= SPECIAL_LANE_INDEX) {
+                        lane++;
+                    }
+                }
+
+                noteLanes[note] = lane;
+                noteFrames[note] = 1 + periodStart
+                        + (int) ((i + random.nextDouble()) * (periodEnd - periodStart) / periodNotes);
+                noteTypes[note] = (byte) type.ordinal();
+                laneSizes[lane]++;
+            }
+        }
+
+        String[] laneTypes = new String[laneCount];
+        int[] lanePositions = new int[laneCount];
+        int[][] frameArrays = new int[laneCount][];
+        byte[][] typeArrays = new byte[laneCount][];
+        for (int lane = 0; lane < laneCount; lane++) {
+            laneTypes[lane] = getLaneType(lane);
+            lanePositions[lane] = laneCount == 1 ? MIN_X : MIN_X + lane * (MAX_X - MIN_X) / (laneCount - 1);
+            frameArrays[lane] = new int[laneSizes[lane]];
+            typeArrays[lane] = new byte[laneSizes[lane]];
+        }
+
+        Arrays.fill(laneSizes, 0);
+        for (int i = 0; i < noteCount; i++) {
+            int lane = noteLanes[i];
+            frameArrays[lane][laneSizes[lane]] = noteFrames[i];
+            typeArrays[lane][laneSizes[lane]] = noteTypes[i];
+            laneSizes[lane]++;
+        }
+
+        return new Chart(laneTypes, lanePositions, frameArrays, typeArrays);
+    }
+
+    // Adds up weights so that totals[i] is the sum of the weights before i, checking there is something to pick.
+    private static double[] cumulativeTotals(double[] weights, String name) {
+        double[] totals = new double[weights.length + 1];
+        for (int i = 0; i < weights.length; i++) {
+            if (!(weights[i] >= 0)) {
+                throw new IllegalArgumentException(name + " weights cannot be negative");
+            }
+            totals[i + 1] = totals[i] + weights[i];
+        }
+
+        if (!(totals[weights.length] > 0)) {
+            throw new IllegalArgumentException(name + " weights must add up to more than zero");
+        }
+        return totals;
+    }
+
+    // Picks an index with a chance in proportion to its weight, given a random value from 0 to 1.
+    private static int pick(double[] totals, double value) {
+        double target = value * totals[totals.length - 1];
+        int index = 0;
+        while (index < totals.length - 2 && totals[index + 1] <= target) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Reads a note mix such as "Normal=85,Hold=10,Bomb=5". Types which are not listed never appear.
+     * @param text The note types and their relative weights, separated by commas.
+     * @return The weight of every type of note, indexed by {@link NoteType#ordinal()}.
+     * @throws IllegalArgumentException If a note type or weight is not understood.
+     */
+    public static double[] parseMix(String text) {
+        double[] mix = new double[NoteType.values().length];
+        for (String entry : text.split(",")) {
+            String[] parts = entry.split("=", -1);
+            NoteType type = parts.length == 2 ? NoteType.fromName(parts[0].trim()) : null;
+            if (type == null) {
+                throw new IllegalArgumentException("note mix entry '" + entry + "' is not a note type and weight");
+            }
+            mix[type.ordinal()] = Double.parseDouble(parts[1].trim());
+        }
+
+        return mix;
+    }
+
+    /**
+     * Reads a density profile such as "1,1,4,1", which splits the chart into equal periods with those relative
+     * densities.
+     * @param text The relative densities, separated by commas.
+     * @return The densities.
+     * @throws IllegalArgumentException If a density is not a number.
+     */
+    public static double[] parseDensity(String text) {
+        String[] parts = text.split(",");
+        double[] density = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            density[i] = Double.parseDouble(parts[i].trim());
+        }
+
+        return density;
+    }
+
+    /**
+     * Writes a chart as a level csv file, with the lanes first and then every note in order of appearance.
+     * @param chart The chart to write.
+     * @param file The file to write.
+     * @throws IOException If the file could not be written.
+     */
+    public static void writeCsv(Chart chart, Path file) throws IOException {
+        int laneCount = chart.getLaneCount();
+        int[] next = new int[laneCount];
+        StringBuilder line = new StringBuilder();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int lane = 0; lane < laneCount; lane++) {
+                line.setLength(0);
+                line.append("Lane,").append(chart.getLaneType(lane)).append(',').append(chart.getLanePosition(lane));
+                writer.append(line).append('\n');
+            }
+
+            // Merge the lanes so the notes are written in the order they appear.
+            while (true) {
+                int earliest = -1;
+                for (int lane = 0; lane < laneCount; lane++) {
+                    if (next[lane] < chart.getNoteCount(lane) && (earliest == -1
+                            || chart.getNoteFrame(lane, next[lane]) < chart.getNoteFrame(earliest, next[earliest]))) {
+                        earliest = lane;
+                    }
+                }
+                if (earliest == -1) {
+                    break;
+                }
+
+                int index = next[earliest]++;
+                line.setLength(0);
+                line.append(chart.getLaneType(earliest)).append(',')
+                        .append(chart.getNoteType(earliest, index).getName()).append(',')
+                        .append(chart.getNoteFrame(earliest, index));
+                writer.append(line).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Generates a chart and writes it as a level csv file, or as a compiled chart if the file name ends with the
+     * compiled chart extension.
+     * @param args The file to write, the number of lanes and the number of notes, optionally followed by the random
+     *             seed, the length in frames, the note mix and the density profile.
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("usage: ChartGenerator <chart csv or compiled chart> <lanes> <notes> [seed] [frames] "
+                    + "[mix, e.g. " + DEFAULT_MIX + "] [density, e.g. 1,1,4,1]");
+            System.exit(1);
+        }
+
+        Path file = Paths.get(args[0]);
+        int laneCount = Integer.parseInt(args[1]);
+        int noteCount = Integer.parseInt(args[2]);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_SEED;
+        int frames = args.length > 4 ? Integer.parseInt(args[4]) : getDefaultFrames(laneCount, noteCount);
+        double[] mix = parseMix(args.length > 5 ? args[5] : DEFAULT_MIX);
+        double[] density = parseDensity(args.length > 6 ? args[6] : DEFAULT_DENSITY);
+
+        long start = System.nanoTime();
+        Chart chart = generate(laneCount, noteCount, frames, mix, density, seed);
+
+        try {
+            if (file.getFileName().toString().endsWith(ChartFile.EXTENSION)) {
+                ChartFile.write(chart, file);
+            } else {
+                writeCsv(chart, file);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write " + file + ": " + e.getMessage());
+            System.exit(1);
+        }
+
+        System.out.printf("%s: %d lanes, %d notes over %d frames, generated in %.1f ms%n", file,
+                chart.getLaneCount(), chart.getTotalNoteCount(), frames, (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,60 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering the reading of a level's csv file.
+ */
+@Name("shadowdance.ChartParse")
+@Label("Chart Parse")
+@Category({"ShadowDance", "Loading"})
+@Description("Reading a level's lanes and notes from a csv file")
+@StackTrace(false)
+public class ChartParseEvent extends Event {
+    private final static EventType TYPE = EventType.getEventType(ChartParseEvent.class);
+
+    @Label("File")
+    private String file;
+
+    @Label("Lanes")
+    private int laneCount;
+
+    @Label("Notes")
+    private int noteCount;
+
+    /**
+     * Starts timing a chart parse if the event is being recorded.
+     * @return The started event, or null if no recording wants it.
+     */
+    public static ChartParseEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+
+        ChartParseEvent event = new ChartParseEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finishes and commits an event started by {@link #start()}.
+     * @param event The started event, or null if none was started.
+     * @param file The csv file which was read.
+     * @param laneCount The number of lanes read.
+     * @param noteCount The number of notes read.
+     */
+    public static void finish(ChartParseEvent event, String file, int laneCount, int noteCount) {
+        if (event == null) {
+            return;
+        }
+
+        event.file = file;
+        event.laneCount = laneCount;
+        event.noteCount = noteCount;
+        event.commit();
+    }
+}
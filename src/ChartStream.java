@@ -0,0 +1,221 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashSet;
+
+/**
+ * A compiled chart whose lane table has been read but whose notes are left in the mapped file until they are needed.
+ * Opening a stream only touches the header and lane table, so it takes the same time for any chart length. Each
+ * lane's notes are checked for sort order and valid types as they are read.
+ */
+public class ChartStream {
+    private final static int MAX_LANE_TYPE_LENGTH = 64;
+    private final static NoteType[] NOTE_TYPES = NoteType.values();
+    private final static int NOTE_TYPE_COUNT = NOTE_TYPES.length;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final String[] laneTypes;
+    private final int[] lanePositions;
+    private final int[] noteCounts;
+    private final int[] frameOffsets;
+
+    /**
+     * Reads the lane table of a mapped compiled chart whose header has already been checked.
+     * @param file The chart file, used in error messages.
+     * @param buffer The mapped file, in little-endian order.
+     * @param headerSize The size of the header which the lane table follows.
+     * @param laneCount The number of lanes declared in the header.
+     * @param totalNotes The number of notes declared in the header.
+     * @throws ChartFormatException If the lane table is malformed or does not match the size of the file.
+     */
+    public ChartStream(Path file, ByteBuffer buffer, int headerSize, int laneCount, int totalNotes)
+            throws ChartFormatException {
+        this.file = file;
+        this.buffer = buffer;
+        laneTypes = new String[laneCount];
+        lanePositions = new int[laneCount];
+        noteCounts = new int[laneCount];
+        frameOffsets = new int[laneCount];
+
+        HashSet<String> seenTypes = new HashSet<>();
+        long notesInLanes = 0;
+        ByteBuffer table = buffer.duplicate().order(buffer.order());
+        table.position(headerSize);
+
+        for (int lane = 0; lane < laneCount; lane++) {
+            int offset = table.position();
+            require(table, 2, "lane " + lane + " type length");
+            int typeLength = Short.toUnsignedInt(table.getShort());
+            if (typeLength == 0 || typeLength > MAX_LANE_TYPE_LENGTH) {
+                throw error(offset, "lane " + lane + " has an invalid type length " + typeLength);
+            }
+
+            require(table, typeLength + 8, "lane " + lane);
+            byte[] type = new byte[typeLength];
+            table.get(type);
+            laneTypes[lane] = new String(type, StandardCharsets.UTF_8);
+            if (!seenTypes.add(laneTypes[lane])) {
+                throw error(offset, "lane type " + laneTypes[lane] + " appears more than once");
+            }
+
+            lanePositions[lane] = table.getInt();
+            noteCounts[lane] = table.getInt();
+            if (noteCounts[lane] < 0) {
+                throw error(table.position() - 4, "lane " + lane + " has a negative note count");
+            }
+            notesInLanes += noteCounts[lane];
+        }
+
+        if (notesInLanes != totalNotes) {
+            throw error(12, "header declares " + totalNotes + " notes but lanes hold " + notesInLanes);
+        }
+
+        long expectedSize = table.position() + 5 * notesInLanes;
+        if (expectedSize != buffer.limit()) {
+            throw error(table.position(), "lanes need " + expectedSize + " bytes but the file is " + buffer.limit());
+        }
+
+        int offset = table.position();
+        for (int lane = 0; lane < laneCount; lane++) {
+            frameOffsets[lane] = offset;
+            offset += 5 * noteCounts[lane];
+        }
+    }
+
+    /**
+     * Gets the number of lanes in the chart.
+     * @return The number of lanes.
+     */
+    public int getLaneCount() {
+        return laneTypes.length;
+    }
+
+    /**
+     * Gets the type of a lane.
+     * @param lane The index of the lane.
+     * @return The type of the lane.
+     */
+    public String getLaneType(int lane) {
+        return laneTypes[lane];
+    }
+
+    /**
+     * Gets the x position of a lane.
+     * @param lane The index of the lane.
+     * @return The x position of the lane.
+     */
+    public int getLanePosition(int lane) {
+        return lanePositions[lane];
+    }
+
+    /**
+     * Gets the number of notes in a lane.
+     * @param lane The index of the lane.
+     * @return The number of notes in the lane.
+     */
+    public int getNoteCount(int lane) {
+        return noteCounts[lane];
+    }
+
+    /**
+     * Opens a source which reads a lane's notes one at a time, straight from the mapped file.
+     * @param lane The index of the lane.
+     * @return A source for the lane's notes.
+     */
+    public NoteSource openLane(int lane) {
+        return new LaneSource(lane);
+    }
+
+    /**
+     * Reads all of a lane's notes at once.
+     * @param lane The index of the lane.
+     * @param frames The array to read the appearance frames into, at least as long as the lane's note count.
+     * @param types The array to read the note type ordinals into, at least as long as the lane's note count.
+     * @throws ChartFormatException If the notes are not sorted by frame or have an unknown type.
+     */
+    public void readLane(int lane, int[] frames, byte[] types) throws ChartFormatException {
+        int noteCount = noteCounts[lane];
+        ByteBuffer notes = buffer.duplicate().order(buffer.order());
+        notes.position(frameOffsets[lane]);
+        notes.asIntBuffer().get(frames, 0, noteCount);
+        notes.position(frameOffsets[lane] + 4 * noteCount);
+        notes.get(types, 0, noteCount);
+
+        for (int note = 0; note < noteCount; note++) {
+            checkNote(lane, note, frames[note], note > 0 ? frames[note - 1] : Integer.MIN_VALUE, types[note]);
+        }
+    }
+
+    private void checkNote(int lane, int note, int frame, int previousFrame, byte type) throws ChartFormatException {
+        int frameOffset = frameOffsets[lane] + 4 * note;
+        if (frame < previousFrame) {
+            throw error(frameOffset, "notes of lane " + laneTypes[lane] + " are not sorted by frame at note " + note);
+        }
+        if (type < 0 || type >= NOTE_TYPE_COUNT) {
+            throw error(frameOffsets[lane] + 4 * noteCounts[lane] + note, "unknown note type " + type
+                    + " in lane " + laneTypes[lane]);
+        }
+    }
+
+    private void require(ByteBuffer table, int bytes, String field) throws ChartFormatException {
+        if (table.remaining() < bytes) {
+            throw error(table.position(), "file ends in the middle of " + field);
+        }
+    }
+
+    private ChartFormatException error(long offset, String message) {
+        return new ChartFormatException(file.toString(), "byte " + offset, message);
+    }
+
+    // Reads one lane's notes in order, checking each one as it goes.
+    private class LaneSource implements NoteSource {
+        private final int lane;
+        private int next = 0;
+        private int previousFrame = Integer.MIN_VALUE;
+
+        private LaneSource(int lane) {
+            this.lane = lane;
+            check();
+        }
+
+        // Checks the next note before it is handed out. A malformed note found mid-game cannot be recovered from.
+        private void check() {
+            if (next == noteCounts[lane]) {
+                return;
+            }
+
+            try {
+                checkNote(lane, next, peekFrame(), previousFrame, buffer.get(typeOffset()));
+            } catch (ChartFormatException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+
+        private int typeOffset() {
+            return frameOffsets[lane] + 4 * noteCounts[lane] + next;
+        }
+
+        @Override
+        public int remaining() {
+            return noteCounts[lane] - next;
+        }
+
+        @Override
+        public int peekFrame() {
+            return buffer.getInt(frameOffsets[lane] + 4 * next);
+        }
+
+        @Override
+        public NoteType peekType() {
+            return NOTE_TYPES[buffer.get(typeOffset())];
+        }
+
+        @Override
+        public void advance() {
+            previousFrame = peekFrame();
+            next++;
+            check();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+import bagel.Keys;
+
+/**
+ * The keyboard state a level reads during a single frame. Implemented both by the live bagel input and by scripted
+ * input so that levels can be simulated without a window.
+ */
+public interface Controls {
+    /**
+     * Determines whether a key was pressed down during this frame.
+     * @param key The key to check.
+     * @return Whether the key was pressed this frame.
+     */
+    boolean wasPressed(Keys key);
+
+    /**
+     * Determines whether a key was released during this frame.
+     * @param key The key to check.
+     * @return Whether the key was released this frame.
+     */
+    boolean wasReleased(Keys key);
+
+    /**
+     * Gets how long before the end of this frame a key was pressed, so that it can be judged at the moment it was
+     * pressed. Controls which do not know when keys were pressed treat every press as happening at the end of the
+     * frame.
+     * @param key The key to check.
+     * @return The time between the press and the end of the frame as a fraction of a frame, from 0 up to 1.
+     */
+    default double getPressLag(Keys key) {
+        return 0;
+    }
+
+    /**
+     * Gets how long before the end of this frame a key was released, as a fraction of a frame.
+     * @param key The key to check.
+     * @return The time between the release and the end of the frame as a fraction of a frame, from 0 up to 1.
+     */
+    default double getReleaseLag(Keys key) {
+        return 0;
+    }
+}
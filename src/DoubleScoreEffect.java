@@ -0,0 +1,14 @@
+/**
+ * Doubles the score of every note while it is active. Stacked double scores multiply together.
+ */
+public class DoubleScoreEffect implements TimedEffect {
+    @Override
+    public void start(Level level) {
+        level.addScoreDoublings(1);
+    }
+
+    @Override
+    public void end(Level level) {
+        level.addScoreDoublings(-1);
+    }
+}
@@ -5,14 +5,20 @@ public class DoubleScoreNote extends SpecialNote {
     private final static String ACTIVATE_MESSAGE = "DOUBLE SCORE";
     private final static int DOUBLE_SCORE_DURATION = 480;
     private final static String IMAGE_FILE = "res/note2x.png";
+    private final static TimedEffect DOUBLE_SCORE = new DoubleScoreEffect();
 
     public DoubleScoreNote(int appearanceFrame) {
         super(appearanceFrame, IMAGE_FILE);
     }
 
+    @Override
+    public NoteType getType() {
+        return NoteType.DOUBLE_SCORE;
+    }
+
     @Override
     protected void activateEffect(Lane lane) {
-        Accuracy.setMessage(ACTIVATE_MESSAGE);
-        ShadowDance.getCurrentLevel().activateDoubleScore(DOUBLE_SCORE_DURATION);
+        lane.getLevel().getAccuracy().setMessage(ACTIVATE_MESSAGE);
+        lane.getLevel().startEffect(DOUBLE_SCORE, DOUBLE_SCORE_DURATION);
     }
 }
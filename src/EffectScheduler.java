@@ -0,0 +1,121 @@
+import java.util.Arrays;
+
+/**
+ * Keeps track of the timed effects active in a level and ends each one when its time is up. Effects are kept in a
+ * priority queue ordered by the frame they end on, so a frame where nothing ends only looks at the front of the queue
+ * however many effects are stacked. The queue is stored in arrays which are reused, so scheduling effects does not
+ * allocate once the queue has grown.
+ */
+public class EffectScheduler {
+    private final static int INITIAL_CAPACITY = 8;
+
+    private final Level level;
+    private int[] endFrames = new int[INITIAL_CAPACITY];
+    private long[] order = new long[INITIAL_CAPACITY];
+    private TimedEffect[] effects = new TimedEffect[INITIAL_CAPACITY];
+    private int size = 0;
+    private long nextOrder = 0;
+
+    /**
+     * Creates a new scheduler with no active effects.
+     * @param level The level the effects apply to.
+     */
+    public EffectScheduler(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Starts an effect. The effect stays active for the rest of the current frame and for the given number of frames
+     * after it, and ends at the start of the frame after that.
+     * @param effect The effect to start.
+     * @param currentFrame The current frame of the level.
+     * @param duration The number of frames after the current one which the effect lasts for.
+     */
+    public void schedule(TimedEffect effect, int currentFrame, int duration) {
+        if (size == effects.length) {
+            endFrames = Arrays.copyOf(endFrames, size * 2);
+            order = Arrays.copyOf(order, size * 2);
+            effects = Arrays.copyOf(effects, size * 2);
+        }
+
+        effect.start(level);
+
+        // Sift the new effect up from the end of the heap.
+        int index = size++;
+        int endFrame = currentFrame + duration + 1;
+        long effectOrder = nextOrder++;
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!endsBefore(endFrame, effectOrder, parent)) {
+                break;
+            }
+            move(parent, index);
+            index = parent;
+        }
+        set(index, endFrame, effectOrder, effect);
+    }
+
+    /**
+     * Ends every effect whose time is up. Effects which end on the same frame end in the order they were started.
+     * Called at the start of every frame.
+     * @param currentFrame The current frame of the level.
+     */
+    public void update(int currentFrame) {
+        while (size > 0 && endFrames[0] <= currentFrame) {
+            TimedEffect effect = effects[0];
+            removeFirst();
+            effect.end(level);
+        }
+    }
+
+    /**
+     * Gets the number of effects which are currently active.
+     * @return The number of active effects.
+     */
+    public int size() {
+        return size;
+    }
+
+    // Removes the effect at the front of the heap by sifting the last effect down from the top.
+    private void removeFirst() {
+        size--;
+        int endFrame = endFrames[size];
+        long effectOrder = order[size];
+        TimedEffect effect = effects[size];
+        effects[size] = null;
+
+        int index = 0;
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && endsBefore(endFrames[child + 1], order[child + 1], child)) {
+                child++;
+            }
+            if (endsBefore(endFrame, effectOrder, child)) {
+                break;
+            }
+            move(child, index);
+            index = child;
+        }
+
+        if (size > 0) {
+            set(index, endFrame, effectOrder, effect);
+        }
+    }
+
+    // Determines whether an effect ends before the effect at a position in the heap.
+    private boolean endsBefore(int endFrame, long effectOrder, int index) {
+        return endFrame < endFrames[index] || (endFrame == endFrames[index] && effectOrder < order[index]);
+    }
+
+    // Copies the effect at one position in the heap to another.
+    private void move(int from, int to) {
+        set(to, endFrames[from], order[from], effects[from]);
+    }
+
+    // Stores an effect at a position in the heap.
+    private void set(int index, int endFrame, long effectOrder, TimedEffect effect) {
+        endFrames[index] = endFrame;
+        order[index] = effectOrder;
+        effects[index] = effect;
+    }
+}
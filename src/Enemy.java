@@ -1,53 +1,63 @@
-import bagel.Image;
-import bagel.util.Point;
-
 import java.util.Random;
 
 /**
  * An entity which moves around and steals notes.
  */
 public class Enemy {
-    private final static int COLLISION_RANGE = 104;
+    /**
+     * The distance within which the enemy steals notes.
+     */
+    public final static int COLLISION_RANGE = 104;
     private final static int MIN_X = 100;
     private final static int MAX_X = 900;
     private final static int MIN_Y = 100;
     private final static int MAX_Y = 500;
     private final static int SPEED = 1;
-    private final static String IMAGE_FILE = "res/enemy.png";
+    /**
+     * The file name of the image used to draw the enemy.
+     */
+    public final static String IMAGE_FILE = "res/enemy.png";
 
-    private final Image image;
     private int positionX;
-    private final int positionY;
+    private int previousX;
+    private int positionY;
     private int direction;
-    private boolean inactive = false;
+    private boolean inactive = true;
 
     /**
-     * Create a new enemy in a random position.
+     * Places the enemy in a random position and activates it, so that enemies can be recycled rather than created.
+     * @param random The source of random numbers shared by the level.
      */
-    public Enemy() {
-        Random random = new Random();
+    public void spawn(Random random) {
         positionX = random.nextInt(MAX_X - MIN_X + 1) + MIN_X;
+        previousX = positionX;
         positionY = random.nextInt(MAX_Y - MIN_Y + 1) + MIN_Y;
         direction = random.nextBoolean() ? 1 : -1;
-        image = new Image(IMAGE_FILE);
+        inactive = false;
+    }
+
+    /**
+     * Steals every visible note in a grid which the enemy is colliding with.
+     * @param notes The grid of notes which the enemy can collide with.
+     */
+    public void stealNotes(NoteGrid notes) {
+        notes.deactivateWithin(positionX, positionY, COLLISION_RANGE);
     }
 
     /**
-     * Determines whether the enemy is within collision range of a point.
-     * @param x The x position of the point.
-     * @param y The y position of the point.
-     * @return Whether the enemy is colliding with the point or not.
+     * Gets the x position of the enemy without creating a point.
+     * @return The x position of the enemy.
      */
-    public boolean isCollidingWith(double x, double y) {
-        return Math.sqrt(Math.pow(x - positionX, 2) + Math.pow(y - positionY, 2)) <= COLLISION_RANGE;
+    public int getPositionX() {
+        return positionX;
     }
 
     /**
-     * Gets the current position of the enemy on the screen.
-     * @return The current position of the enemy as a point.
+     * Gets the y position of the enemy without creating a point.
+     * @return The y position of the enemy.
      */
-    public Point getPosition() {
-        return new Point(positionX, positionY);
+    public int getPositionY() {
+        return positionY;
     }
 
     /**
@@ -66,15 +76,23 @@ public class Enemy {
     }
 
     /**
-     * Render the enemy and update its position every frame.
+     * Update the enemy's position every frame.
      */
     public void update() {
         if (positionX <= 100 || positionX >= 900) {
             direction = -direction;
         }
 
+        previousX = positionX;
         positionX += direction * SPEED;
+    }
 
-        image.draw(positionX, positionY);
+    /**
+     * Render the enemy between its previous and current position.
+     * @param sprites The batch to add the enemy's sprite to.
+     * @param alpha How far between its previous position (0) and its current position (1) to draw the enemy.
+     */
+    public void draw(SpriteBatch sprites, double alpha) {
+        sprites.add(Level.ENEMY_LAYER, IMAGE_FILE, previousX + (positionX - previousX) * alpha, positionY);
     }
 }
@@ -0,0 +1,174 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform grid over the enemies on screen, rebuilt every frame, which answers nearest enemy and swept collision
+ * queries by only looking at the cells around the query instead of at every enemy. Like {@link NoteGrid}, its arrays
+ * are kept between frames so rebuilding it does not allocate once they are large enough.
+ */
+public class EnemyGrid {
+    private final static int INITIAL_CAPACITY = 16;
+
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStarts;
+    private int[] cells = new int[INITIAL_CAPACITY];
+    private Enemy[] sortedEnemies = new Enemy[INITIAL_CAPACITY];
+    private int[] sortedOrder = new int[INITIAL_CAPACITY];
+    private int[] sortedX = new int[INITIAL_CAPACITY];
+    private int[] sortedY = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Creates a new grid covering an area of the screen. Enemies outside of the area are kept in the cells along its
+     * edge, so they are still found, just less efficiently.
+     * @param cellSize The width and height of each cell.
+     * @param width The width of the area to cover.
+     * @param height The height of the area to cover.
+     */
+    public EnemyGrid(int cellSize, int width, int height) {
+        this.cellSize = cellSize;
+        columns = width / cellSize + 1;
+        rows = height / cellSize + 1;
+        cellStarts = new int[columns * rows + 1];
+    }
+
+    // Finds the cell a point belongs to along one axis, keeping points outside the grid in its edge cells.
+    private int cellIndex(double position, int count) {
+        return (int) Math.max(0, Math.min(count - 1, Math.floor(position / cellSize)));
+    }
+
+    // Makes sure the grid can hold a number of enemies.
+    private void ensureCapacity(int capacity) {
+        if (capacity <= cells.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, cells.length * 2);
+        cells = new int[newCapacity];
+        sortedEnemies = new Enemy[newCapacity];
+        sortedOrder = new int[newCapacity];
+        sortedX = new int[newCapacity];
+        sortedY = new int[newCapacity];
+    }
+
+    /**
+     * Rebuilds the grid from the current positions of a list of enemies.
+     * @param enemies The enemies to include.
+     */
+    public void build(List<Enemy> enemies) {
+        size = enemies.size();
+        ensureCapacity(size);
+
+        Arrays.fill(cellStarts, 0);
+        for (int i = 0; i < size; i++) {
+            Enemy enemy = enemies.get(i);
+            int cell = cellIndex(enemy.getPositionY(), rows) * columns + cellIndex(enemy.getPositionX(), columns);
+            cells[i] = cell;
+            cellStarts[cell]++;
+        }
+
+        // Turn the counts into the end of each cell, then fill each cell backwards so its entry becomes its start.
+        int cellCount = columns * rows;
+        for (int cell = 1; cell < cellCount; cell++) {
+            cellStarts[cell] += cellStarts[cell - 1];
+        }
+        cellStarts[cellCount] = size;
+
+        for (int i = size - 1; i >= 0; i--) {
+            Enemy enemy = enemies.get(i);
+            int slot = --cellStarts[cells[i]];
+            sortedEnemies[slot] = enemy;
+            sortedOrder[slot] = i;
+            sortedX[slot] = enemy.getPositionX();
+            sortedY[slot] = enemy.getPositionY();
+        }
+    }
+
+    /**
+     * Finds the enemy closest to a point, searching outwards one ring of cells at a time and stopping once no
+     * further cell could hold anything closer. When enemies are equally close, the one earliest in the list the grid
+     * was built from is chosen.
+     * @param x The x position of the point, which should be within the area covered by the grid.
+     * @param y The y position of the point, which should be within the area covered by the grid.
+     * @return The closest enemy, or null if there are no enemies.
+     */
+    public Enemy findNearest(int x, int y) {
+        int column = cellIndex(x, columns);
+        int row = cellIndex(y, rows);
+        int maxRing = Math.max(Math.max(column, columns - 1 - column), Math.max(row, rows - 1 - row));
+        int closest = -1;
+        long closestDistance = Long.MAX_VALUE;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int r = Math.max(0, row - ring); r <= Math.min(rows - 1, row + ring); r++) {
+                // Rows at the edge of the ring are scanned whole, rows in between only at its two ends.
+                boolean edgeRow = r == row - ring || r == row + ring;
+                int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+                for (int c = column - ring; c <= column + ring; c += step) {
+                    if (c < 0 || c >= columns) {
+                        continue;
+                    }
+
+                    int cell = r * columns + c;
+                    for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+                        long dx = sortedX[i] - x;
+                        long dy = sortedY[i] - y;
+                        long distance = dx * dx + dy * dy;
+                        if (distance < closestDistance
+                                || (distance == closestDistance && sortedOrder[i] < sortedOrder[closest])) {
+                            closest = i;
+                            closestDistance = distance;
+                        }
+                    }
+                }
+            }
+
+            // Every cell in the next ring is at least this far away, so nothing there can be as close.
+            long nextRingDistance = (long) ring * cellSize;
+            if (closest != -1 && closestDistance < nextRingDistance * nextRingDistance) {
+                break;
+            }
+        }
+
+        return closest == -1 ? null : sortedEnemies[closest];
+    }
+
+    /**
+     * Deactivates every enemy which comes within a distance of a line segment, such as the path a projectile moved
+     * along this frame, so nothing is missed however far the projectile moved.
+     * @param startX The x position of the start of the segment.
+     * @param startY The y position of the start of the segment.
+     * @param endX The x position of the end of the segment.
+     * @param endY The y position of the end of the segment.
+     * @param range The largest distance from the segment at which an enemy is hit.
+     */
+    public void deactivateAlong(double startX, double startY, double endX, double endY, double range) {
+        int firstColumn = cellIndex(Math.min(startX, endX) - range, columns);
+        int lastColumn = cellIndex(Math.max(startX, endX) + range, columns);
+        int firstRow = cellIndex(Math.min(startY, endY) - range, rows);
+        int lastRow = cellIndex(Math.max(startY, endY) + range, rows);
+
+        double segmentX = endX - startX;
+        double segmentY = endY - startY;
+        double lengthSquared = segmentX * segmentX + segmentY * segmentY;
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int i = cellStarts[r * columns + firstColumn]; i < cellStarts[r * columns + lastColumn + 1]; i++) {
+                // Find the closest point on the segment to the enemy.
+                double t = 0;
+                if (lengthSquared > 0) {
+                    t = ((sortedX[i] - startX) * segmentX + (sortedY[i] - startY) * segmentY) / lengthSquared;
+                    t = Math.max(0, Math.min(1, t));
+                }
+
+                double dx = sortedX[i] - (startX + t * segmentX);
+                double dy = sortedY[i] - (startY + t * segmentY);
+                if (dx * dx + dy * dy <= range * range) {
+                    sortedEnemies[i].deactivate();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering one phase of a level's frame, so that recordings show where frame time goes.
+ * Nothing is allocated unless a recording has the event enabled.
+ */
+@Name("shadowdance.FramePhase")
+@Label("Frame Phase")
+@Category({"ShadowDance", "Frame"})
+@Description("Time spent in one phase of updating or drawing a level")
+@StackTrace(false)
+public class FramePhaseEvent extends Event {
+    /**
+     * Moving the enemies and releasing the ones which were shot.
+     */
+    public final static String ENEMY_UPDATE = "Enemy update";
+    /**
+     * Checking which notes the enemies touch.
+     */
+    public final static String ENEMY_COLLISION = "Enemy-note collision";
+    /**
+     * Firing and moving the guardian's projectiles.
+     */
+    public final static String GUARDIAN_UPDATE = "Guardian update";
+    /**
+     * Ending timed effects whose time is up.
+     */
+    public final static String EFFECTS = "Effects";
+    /**
+     * Moving and scoring the notes of one lane.
+     */
+    public final static String LANE_UPDATE = "Lane update";
+    /**
+     * Drawing the score and score message.
+     */
+    public final static String HUD_DRAW = "HUD draw";
+
+    private final static EventType TYPE = EventType.getEventType(FramePhaseEvent.class);
+
+    @Label("Frame")
+    private int frame;
+
+    @Label("Phase")
+    private String phase;
+
+    @Label("Lane")
+    @Description("The lane being updated, if the phase belongs to a single lane")
+    private String lane;
+
+    /**
+     * Starts timing a phase if the event is being recorded.
+     * @return The started event, or null if no recording wants it.
+     */
+    public static FramePhaseEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+
+        FramePhaseEvent event = new FramePhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finishes and commits an event started by {@link #start()}.
+     * @param event The started event, or null if none was started.
+     * @param frame The frame of the level.
+     * @param phase Which phase was timed, one of the constants of this class.
+     * @param lane The type of the lane the phase belongs to, or null.
+     */
+    public static void finish(FramePhaseEvent event, int frame, String phase, String lane) {
+        if (event == null) {
+            return;
+        }
+
+        event.frame = frame;
+        event.phase = phase;
+        event.lane = lane;
+        event.commit();
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Measures how much CPU time frames take, such as to compare the cost of a screen before and after a change.
+ */
+public class FrameTimer {
+    private long start = 0;
+    private long frames = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    /**
+     * Starts timing a frame.
+     */
+    public void begin() {
+        start = System.nanoTime();
+    }
+
+    /**
+     * Stops timing the frame started by {@link #begin()}.
+     */
+    public void end() {
+        long nanos = System.nanoTime() - start;
+        frames++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * Gets the number of frames timed.
+     * @return The number of frames.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Gets the average time a frame took.
+     * @return The average frame time in nanoseconds, or 0 if no frames were timed.
+     */
+    public long getAverageNanos() {
+        return frames == 0 ? 0 : totalNanos / frames;
+    }
+
+    /**
+     * Gets the longest time a frame took.
+     * @return The longest frame time in nanoseconds.
+     */
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * Forgets every frame timed so far.
+     */
+    public void reset() {
+        frames = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.3f ms on average, %.3f ms at most over %d frames", getAverageNanos() / 1e6,
+                maxNanos / 1e6, frames);
+    }
+}
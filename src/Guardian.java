@@ -1,9 +1,6 @@
-import bagel.Image;
-import bagel.Input;
 import bagel.Keys;
-import bagel.util.Point;
 
-import java.util.ArrayList;
+import java.util.List;
 
 /**
  * An entity which fires projectiles at enemies.
@@ -11,79 +8,78 @@ import java.util.ArrayList;
 public class Guardian {
     private final static int POSITION_X = 800;
     private final static int POSITION_Y = 600;
-    private final static String IMAGE_FILE = "res/guardian.png";
-
-    private final Image image;
-    private final ArrayList<Projectile> projectiles = new ArrayList<>();
-
     /**
-     * Creates a new guardian at (800, 600).
+     * The file name of the image used to draw the guardian.
      */
-    public Guardian() {
-        image = new Image(IMAGE_FILE);
-    }
+    public final static String IMAGE_FILE = "res/guardian.png";
+    /**
+     * The key which fires a projectile.
+     */
+    public final static Keys FIRE_KEY = Keys.LEFT_SHIFT;
 
-    private Enemy getClosestEnemy(ArrayList<Enemy> enemies) {
-        Enemy closestEnemy = null;
-        double closestDistance = -1;
+    // Enemies are indexed in cells the size of a projectile's collision range.
+    private final static int ENEMY_CELL_SIZE = 64;
 
-        for (Enemy enemy : enemies) {
-            Point enemyPosition = enemy.getPosition();
-            double distance = Math.sqrt(Math.pow(POSITION_X - enemyPosition.x, 2)
-                    + Math.pow(POSITION_Y - enemyPosition.y, 2));
-
-            if (closestDistance == -1 || distance < closestDistance) {
-                closestEnemy = enemy;
-                closestDistance = distance;
-            }
-        }
-
-        return closestEnemy;
-    }
+    private final Pool<Projectile> projectiles = new Pool<>(Projectile::new);
+    private final EnemyGrid enemyGrid = new EnemyGrid(ENEMY_CELL_SIZE, ShadowDance.WINDOW_WIDTH,
+            ShadowDance.WINDOW_HEIGHT);
 
     private void fireProjectile(Enemy enemy) {
-        Point enemyPosition = enemy.getPosition();
-        projectiles.add(new Projectile(POSITION_X, POSITION_Y, enemyPosition.x, enemyPosition.y));
+        projectiles.obtain().fire(POSITION_X, POSITION_Y, enemy.getPositionX(), enemy.getPositionY());
     }
 
     /**
-     * Renders the guardian and creates new projectiles when needed.
-     * @param input The bagel input object.
+     * Creates new projectiles when needed and moves existing ones. Each projectile moves once per frame and hits any
+     * enemy along the path it moved.
+     * @param input The controls for this frame.
      * @param enemies The enemies currently on the screen.
      */
-    public void update(Input input, ArrayList<Enemy> enemies) {
-        image.draw(POSITION_X, POSITION_Y);
+    public void update(Controls input, List<Enemy> enemies) {
+        boolean firing = input.wasPressed(FIRE_KEY);
+        if (!firing && projectiles.isEmpty()) {
+            return;
+        }
+
+        enemyGrid.build(enemies);
 
-        // Fire projectiles when shift key is pressed.
-        if (input.wasPressed(Keys.LEFT_SHIFT)) {
-            Enemy closestEnemy = getClosestEnemy(enemies);
+        // Fire projectiles at the closest enemy when shift key is pressed.
+        if (firing) {
+            Enemy closestEnemy = enemyGrid.findNearest(POSITION_X, POSITION_Y);
             if (closestEnemy != null) {
                 fireProjectile(closestEnemy);
             }
         }
 
-        for (Projectile projectile : projectiles) {
-            projectile.update();
-        }
-
         for (int i = projectiles.size() - 1; i >= 0; i--) {
             Projectile projectile = projectiles.get(i);
+            projectile.update();
+            projectile.hitEnemies(enemyGrid);
 
             if (projectile.isInactive()) {
                 // Projectile went off-screen.
-                projectiles.remove(i);
-                continue;
+                projectiles.release(i);
             }
+        }
+    }
 
-            projectile.update();
+    /**
+     * Gets the number of projectiles in flight.
+     * @return The number of projectiles.
+     */
+    public int getProjectileCount() {
+        return projectiles.size();
+    }
 
-            // Check for projectile collisions with enemies
-            for (Enemy enemy : enemies) {
-                Point enemyPosition = enemy.getPosition();
-                if (projectile.isCollidingWith(enemyPosition.x, enemyPosition.y)) {
-                    enemy.deactivate();
-                }
-            }
+    /**
+     * Renders the guardian and its projectiles.
+     * @param sprites The batch to add the guardian and projectile sprites to.
+     * @param alpha How far between the previous update (0) and the latest update (1) to draw projectiles.
+     */
+    public void draw(SpriteBatch sprites, double alpha) {
+        sprites.add(Level.GUARDIAN_LAYER, IMAGE_FILE, POSITION_X, POSITION_Y);
+
+        for (int i = 0; i < projectiles.size(); i++) {
+            projectiles.get(i).draw(sprites, alpha);
         }
     }
 }
@@ -0,0 +1,70 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Runs levels without a window by stepping the simulation directly. Nothing is rendered, so charts can be played
+ * through far faster than real time.
+ */
+public final class HeadlessRunner {
+    private final static int DEFAULT_MAX_FRAMES = 1_000_000;
+
+    /**
+     * Steps a level with scripted input until it finishes or a frame limit is reached.
+     * @param level The level to simulate.
+     * @param controls The scripted input to feed the level.
+     * @param maxFrames The maximum number of frames to simulate.
+     * @return The number of frames that were simulated.
+     */
+    public static int run(Level level, ScriptedControls controls, int maxFrames) {
+        int frames = 0;
+
+        while (!level.isFinished() && frames < maxFrames) {
+            controls.advance();
+            level.update(controls);
+            frames++;
+        }
+
+        return frames;
+    }
+
+    /**
+     * Simulates a level with no input and prints the result.
+     * @param args The level number, optionally followed by a chart file (csv or compiled), a frame limit and
+     *             "stream" to stream a compiled chart instead of loading it up front.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: HeadlessRunner <level number> [chart csv or compiled chart] [max frames] "
+                    + "[stream]");
+            System.exit(1);
+        }
+
+        int levelNumber = Integer.parseInt(args[0]);
+        String fileName = args.length > 1 ? args[1] : "res/level" + levelNumber + ".csv";
+        int maxFrames = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_MAX_FRAMES;
+        boolean stream = args.length > 3 && args[3].equals("stream");
+
+        long loadStart = System.nanoTime();
+        Level level;
+        if (fileName.endsWith(ChartFile.EXTENSION)) {
+            try {
+                level = stream ? new Level(levelNumber, ChartFile.stream(Paths.get(fileName)))
+                        : new Level(levelNumber, ChartFile.read(Paths.get(fileName)), false);
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+                System.exit(1);
+                return;
+            }
+        } else {
+            level = new Level(levelNumber, fileName);
+        }
+        System.out.printf("loaded %s in %.1f ms%n", fileName, (System.nanoTime() - loadStart) / 1e6);
+
+        long start = System.nanoTime();
+        int frames = run(level, new ScriptedControls(), maxFrames);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("level %d: %d frames, score %d, %s, %.0f frames/s%n", levelNumber, frames,
+                level.getTotalScore(), level.didWin() ? "won" : "lost", frames / seconds);
+    }
+}
@@ -1,4 +1,3 @@
-import bagel.Input;
 import bagel.Keys;
 
 /**
@@ -6,7 +5,10 @@ import bagel.Keys;
  */
 public class HoldNote extends Note {
     private final static int START_HEIGHT = 24;
-    private final static int HEIGHT_OFFSET = 82;
+    /**
+     * The distance from the centre of a hold note to either of its ends.
+     */
+    public final static int HEIGHT_OFFSET = 82;
 
     private boolean pressed = false;
 
@@ -29,9 +31,14 @@ public class HoldNote extends Note {
         return getHeight() + HEIGHT_OFFSET;
     }
 
+    @Override
+    public NoteType getType() {
+        return NoteType.HOLD;
+    }
+
     // Modified so that two scores are calculated. One when the note is triggered, and another when the note is released.
     @Override
-    public int checkScore(Input input, Lane lane, int targetHeight, Keys key) {
+    public int checkScore(Controls input, Lane lane, int targetHeight, Keys key) {
         if (!isActive()) {
             return Accuracy.NOT_SCORED;
         }
@@ -39,12 +46,14 @@ public class HoldNote extends Note {
         int score;
 
         if (pressed) {
-            score = Accuracy.evaluateScore(getTopHeight(), targetHeight, input.wasReleased(key));
+            score = lane.getLevel().getAccuracy().evaluateScore(getTopHeight(), targetHeight,
+                    input.wasReleased(key), input.getReleaseLag(key) * lane.getLastFallSpeed(), lane.getType());
             if (score != Accuracy.NOT_SCORED) {
                 deactivate();
             }
         } else {
-            score = Accuracy.evaluateScore(getBottomHeight(), targetHeight, input.wasPressed(key));
+            score = lane.getLevel().getAccuracy().evaluateScore(getBottomHeight(), targetHeight,
+                    input.wasPressed(key), input.getPressLag(key) * lane.getLastFallSpeed(), lane.getType());
             if (score == Accuracy.MISS_SCORE) {
                 deactivate();
             } else if (score != Accuracy.NOT_SCORED) {
@@ -0,0 +1,51 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for every note the player is scored on.
+ */
+@Name("shadowdance.Judgment")
+@Label("Judgment")
+@Category({"ShadowDance", "Scoring"})
+@Description("A note being scored")
+@StackTrace(false)
+public class JudgmentEvent extends Event {
+    private final static EventType TYPE = EventType.getEventType(JudgmentEvent.class);
+
+    @Label("Lane")
+    private String lane;
+
+    @Label("Distance")
+    @Description("How far the note was from the target, in pixels, when it was judged")
+    private double distance;
+
+    @Label("Score")
+    private int score;
+
+    /**
+     * Determines whether any recording wants judgment events, so that nothing is allocated when none does.
+     * @return Whether the event is enabled.
+     */
+    public static boolean isRecorded() {
+        return TYPE.isEnabled();
+    }
+
+    /**
+     * Commits a judgment.
+     * @param lane The type of the note's lane, or null if it is not known.
+     * @param distance How far the note was from the target when it was judged.
+     * @param score The score the note was given.
+     */
+    public static void record(String lane, double distance, int score) {
+        JudgmentEvent event = new JudgmentEvent();
+        event.lane = lane;
+        event.distance = distance;
+        event.score = score;
+        event.commit();
+    }
+}
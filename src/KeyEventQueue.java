@@ -0,0 +1,103 @@
+import bagel.Keys;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-size, lock-free queue of timestamped key events, passed from the thread which receives them to the thread
+ * running the simulation. It supports one thread adding events and one thread taking them, and never allocates after
+ * it is created. When the queue is full new events are dropped and counted.
+ */
+public class KeyEventQueue {
+    private final int mask;
+    private final int[] keys;
+    private final boolean[] presses;
+    private final long[] times;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong read = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Creates a new, empty queue.
+     * @param capacity The most events the queue can hold, which must be a power of two.
+     */
+    public KeyEventQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Queue capacity must be a power of two: " + capacity);
+        }
+
+        mask = capacity - 1;
+        keys = new int[capacity];
+        presses = new boolean[capacity];
+        times = new long[capacity];
+    }
+
+    /**
+     * Adds an event to the end of the queue. Must only be called from the producing thread.
+     * @param key The key which changed.
+     * @param pressed Whether the key was pressed rather than released.
+     * @param time When the event happened, in nanoseconds from {@link System#nanoTime()}.
+     * @return Whether the event was added, which fails if the queue is full.
+     */
+    public boolean offer(Keys key, boolean pressed, long time) {
+        long position = written.get();
+        if (position - read.get() > mask) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        int slot = (int) position & mask;
+        keys[slot] = key.ordinal();
+        presses[slot] = pressed;
+        times[slot] = time;
+        // Publish the event only after it has been written.
+        written.lazySet(position + 1);
+        return true;
+    }
+
+    /**
+     * Determines whether there are events waiting. Must only be called from the consuming thread.
+     * @return Whether the queue is empty.
+     */
+    public boolean isEmpty() {
+        return read.get() == written.get();
+    }
+
+    /**
+     * Gets when the event at the front of the queue happened. The queue must not be empty.
+     * @return The time of the next event in nanoseconds.
+     */
+    public long peekTime() {
+        return times[(int) read.get() & mask];
+    }
+
+    /**
+     * Gets the ordinal of the key of the event at the front of the queue. The queue must not be empty.
+     * @return The ordinal of the next event's key.
+     */
+    public int peekKey() {
+        return keys[(int) read.get() & mask];
+    }
+
+    /**
+     * Determines whether the event at the front of the queue is a press. The queue must not be empty.
+     * @return Whether the next event is a key press rather than a release.
+     */
+    public boolean peekPressed() {
+        return presses[(int) read.get() & mask];
+    }
+
+    /**
+     * Removes the event at the front of the queue. The queue must not be empty.
+     */
+    public void remove() {
+        read.lazySet(read.get() + 1);
+    }
+
+    /**
+     * Gets the number of events which were dropped because the queue was full.
+     * @return The number of dropped events.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,62 @@
+import bagel.Keys;
+
+import java.util.Arrays;
+
+/**
+ * An ordered set of keys, such as the keys a level responds to. Finding where a key is in the set is a single array
+ * lookup, so controls can keep per-key state in arrays without searching.
+ */
+public class KeySet {
+    /**
+     * The position given for a key which is not in the set.
+     */
+    public final static int NOT_FOUND = -1;
+
+    private final Keys[] keys;
+    private final int[] indices = new int[Keys.values().length];
+
+    /**
+     * Creates a set of keys in the order given. Null keys and repeats of a key are left out.
+     * @param keys The keys.
+     */
+    public KeySet(Keys... keys) {
+        Arrays.fill(indices, NOT_FOUND);
+
+        Keys[] distinct = new Keys[keys.length];
+        int count = 0;
+        for (Keys key : keys) {
+            if (key != null && indices[key.ordinal()] == NOT_FOUND) {
+                indices[key.ordinal()] = count;
+                distinct[count++] = key;
+            }
+        }
+
+        this.keys = Arrays.copyOf(distinct, count);
+    }
+
+    /**
+     * Gets the number of keys in the set.
+     * @return The number of keys.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Gets a key by its position in the set.
+     * @param index The position of the key.
+     * @return The key.
+     */
+    public Keys get(int index) {
+        return keys[index];
+    }
+
+    /**
+     * Finds the position of a key in the set.
+     * @param key The key to find.
+     * @return The position of the key, or {@link #NOT_FOUND} if the key is not in the set.
+     */
+    public int indexOf(Keys key) {
+        return indices[key.ordinal()];
+    }
+}
@@ -0,0 +1,99 @@
+import bagel.Keys;
+import org.lwjgl.glfw.GLFW;
+import org.lwjgl.glfw.GLFWKeyCallback;
+
+/**
+ * Timestamps key events as GLFW delivers them and queues them for the simulation, so that a key press can be judged
+ * at the moment it happened rather than at the next simulation step. The callback bagel installed is still called
+ * afterwards, so bagel's own input keeps working.
+ * <p>
+ * Only the keys the game judges are timestamped: the arrow keys, space, left shift and the letters. Other keys are
+ * still read from bagel once per frame.
+ */
+public class KeyTimestamper {
+    private final static int QUEUE_CAPACITY = 256;
+    private final static Keys[] KEYS_BY_GLFW_KEY = new Keys[GLFW.GLFW_KEY_LEFT_SHIFT + 1];
+
+    static {
+        for (Keys key : Keys.values()) {
+            int glfwKey = toGlfwKey(key);
+            if (glfwKey != -1) {
+                KEYS_BY_GLFW_KEY[glfwKey] = key;
+            }
+        }
+    }
+
+    private final KeyEventQueue queue = new KeyEventQueue(QUEUE_CAPACITY);
+    private GLFWKeyCallback previousCallback = null;
+    private boolean installed = false;
+
+    /**
+     * Installs the key callback on the window whose context is current. Must be called from the thread which owns
+     * the window, after the window has been created.
+     */
+    public void install() {
+        if (installed) {
+            return;
+        }
+
+        long window = GLFW.glfwGetCurrentContext();
+        previousCallback = GLFW.glfwSetKeyCallback(window, this::onKey);
+        installed = true;
+    }
+
+    /**
+     * Gets the queue which timestamped key events are added to.
+     * @return The queue of key events.
+     */
+    public KeyEventQueue getQueue() {
+        return queue;
+    }
+
+    /**
+     * Determines whether a key is timestamped, so its events come from the queue rather than from bagel.
+     * @param key The key to check.
+     * @return Whether the key's events are timestamped.
+     */
+    public static boolean isTimestamped(Keys key) {
+        return toGlfwKey(key) != -1;
+    }
+
+    // Receives a key event from GLFW, queues it with the current time and passes it on to bagel.
+    private void onKey(long window, int glfwKey, int scancode, int action, int mods) {
+        long time = System.nanoTime();
+        if (action != GLFW.GLFW_REPEAT) {
+            Keys key = glfwKey >= 0 && glfwKey < KEYS_BY_GLFW_KEY.length ? KEYS_BY_GLFW_KEY[glfwKey] : null;
+            if (key != null) {
+                queue.offer(key, action == GLFW.GLFW_PRESS, time);
+            }
+        }
+
+        if (previousCallback != null) {
+            previousCallback.invoke(window, glfwKey, scancode, action, mods);
+        }
+    }
+
+    // Finds the GLFW key code for a bagel key, or -1 if the key is not timestamped.
+    private static int toGlfwKey(Keys key) {
+        switch (key) {
+            case LEFT:
+                return GLFW.GLFW_KEY_LEFT;
+            case RIGHT:
+                return GLFW.GLFW_KEY_RIGHT;
+            case UP:
+                return GLFW.GLFW_KEY_UP;
+            case DOWN:
+                return GLFW.GLFW_KEY_DOWN;
+            case SPACE:
+                return GLFW.GLFW_KEY_SPACE;
+            case LEFT_SHIFT:
+                return GLFW.GLFW_KEY_LEFT_SHIFT;
+            default:
+                String name = key.name();
+                if (name.length() == 1 && name.charAt(0) >= 'A' && name.charAt(0) <= 'Z') {
+                    return name.charAt(0);
+                }
+                return -1;
+        }
+    }
+}
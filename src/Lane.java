@@ -1,35 +1,71 @@
-import bagel.Image;
-import bagel.Input;
 import bagel.Keys;
 
-import java.util.ArrayList;
+import java.util.Set;
 
 /**
- * Represents a lane inside a level.
+ * Represents a lane inside a level. Notes are kept in the order they appear, and only the notes between the note
+ * currently being scored and the last note to have appeared are touched each frame, so the cost of a frame depends on
+ * the notes on screen rather than the length of the chart.
  */
 public class Lane {
     private final static int HEIGHT = 384;
-    private final static int TARGET_HEIGHT = 657;
+    /**
+     * The y position notes are judged against.
+     */
+    public final static int TARGET_HEIGHT = 657;
 
+    private final Level level;
     private final String type;
     private final int positionX;
-    private final ArrayList<Note> notes;
-    private final Image image;
+    private final NoteStore notes;
+    private final String imageFileName;
     private final Keys key;
     private int currentNote = 0;
+    private int spawnedNotes = 0;
+    private int previouslySpawnedNotes = 0;
+    private int lastFallSpeed = 0;
+    private int liveNotes = 0;
     private boolean shouldClearNotes = false;
 
     /**
      * Create a new lane based on its type.
+     * @param level The level which the lane belongs to.
      * @param type The type of the lane which will determine what key must be pressed.
      * @param positionX The x position of the lane.
+     * @param notes The store to keep the lane's notes in.
      */
-    public Lane(String type, int positionX) {
+    public Lane(Level level, String type, int positionX, NoteStore notes) {
+        this.level = level;
         this.type = type;
         this.positionX = positionX;
-        notes = new ArrayList<>();
-        image = new Image("res/lane" + type + ".png");
-        key = type.equals("Special") ? Keys.SPACE : Keys.valueOf(type.toUpperCase());
+        this.notes = notes;
+        imageFileName = "res/lane" + type + ".png";
+        key = getKey(type);
+    }
+
+    /**
+     * Gets the key which triggers the notes in a type of lane.
+     * @param type The type of the lane.
+     * @return The lane's key, or null if no key matches the lane type.
+     */
+    public static Keys getKey(String type) {
+        if (type.equals("Special")) {
+            return Keys.SPACE;
+        }
+
+        try {
+            return Keys.valueOf(type.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the level which the lane belongs to.
+     * @return The level of the lane.
+     */
+    public Level getLevel() {
+        return level;
     }
 
     /**
@@ -49,35 +85,84 @@ public class Lane {
     }
 
     /**
-     * Adds a note to the lane.
-     * @param note The note to add.
+     * Adds a note to the lane, keeping the notes ordered by the frame they appear on. Notes which appear on the same
+     * frame keep the order they were added in.
+     * @param noteType The type of the note to add.
+     * @param appearanceFrame The frame which the note appears on.
+     */
+    public void addNote(NoteType noteType, int appearanceFrame) {
+        int index = notes.size();
+        while (index > 0 && notes.getAppearanceFrame(index - 1) > appearanceFrame) {
+            index--;
+        }
+
+        notes.insert(index, noteType, appearanceFrame);
+    }
+
+    /**
+     * Gets the number of notes in the lane, including notes a streamed lane has not read yet.
+     * @return The number of notes.
+     */
+    public int getNoteCount() {
+        return notes.size();
+    }
+
+    /**
+     * Gets the number of notes which have appeared in the lane but are not completed yet.
+     * @return The number of live notes.
+     */
+    public int getLiveNoteCount() {
+        return liveNotes;
+    }
+
+    /**
+     * Gets the distance the lane's notes fell during the latest update, which is used to work out where a note was
+     * part of the way through a frame.
+     * @return The latest fall speed of the lane's notes.
+     */
+    public int getLastFallSpeed() {
+        return lastFallSpeed;
+    }
+
+    /**
+     * Makes room for a number of notes ahead of time.
+     * @param capacity The number of notes the lane should be able to hold.
      */
-    public void addNote(Note note) {
-        notes.add(note);
+    public void ensureCapacity(int capacity) {
+        notes.ensureCapacity(capacity);
     }
 
     /**
-     * Determines whether a lane is finished, which is when all of its notes are completed.
+     * Determines whether a lane is finished, which is when all of its notes are completed. This is kept up to date at
+     * the end of every lane update.
      * @return Whether the lane is finished.
      */
     public boolean isFinished() {
-        for (Note note : notes) {
-            if (!note.isCompleted()) {
-                return false;
-            }
-        }
+        return spawnedNotes == notes.size() && liveNotes == 0;
+    }
 
-        return true;
+    /**
+     * Adds the file names of every image needed to draw the lane and its notes to a set.
+     * @param fileNames The set to add the file names to.
+     */
+    public void addTextures(Set<String> fileNames) {
+        fileNames.add(imageFileName);
+        notes.addTextures(fileNames);
     }
 
     /**
-     * Render the lane and all of its notes.
+     * Render the lane and all of its notes, with the notes part of the way between their previous and current
+     * positions.
+     * @param sprites The batch to add the lane and note sprites to.
+     * @param alpha How far between the previous update (0) and the latest update (1) to draw the notes.
      */
-    public void draw() {
-        image.draw(positionX, HEIGHT);
+    public void draw(SpriteBatch sprites, double alpha) {
+        sprites.add(Level.LANE_LAYER, imageFileName, positionX, HEIGHT);
 
-        for (Note note : notes) {
-            note.draw(positionX);
+        // Notes which were already falling before the latest update are drawn part of the way back along their move.
+        double offset = (alpha - 1) * lastFallSpeed;
+        for (int i = currentNote; i < spawnedNotes; i++) {
+            notes.draw(i, positionX, i < previouslySpawnedNotes ? offset : 0, sprites);
         }
     }
 
@@ -89,57 +174,110 @@ public class Lane {
     }
 
     /**
-     * Gets the notes which are currently visible in the lane.
-     * @return A list of notes which are currently visible.
+     * Gets the index of the first note which may be visible. Together with {@link #getVisibleNotesEnd()} this bounds
+     * the notes which can be visible, though notes in between may already be completed.
+     * @return The index of the first note which may be visible.
      */
-    public ArrayList<Note> getVisibleNotes() {
-        ArrayList<Note> visibleNotes = new ArrayList<>();
+    public int getFirstVisibleNote() {
+        return currentNote;
+    }
 
-        for (int i = currentNote; i < notes.size(); i++) {
-            Note note = notes.get(i);
-            if (note.isActive()) {
-                visibleNotes.add(note);
-            }
-        }
+    /**
+     * Gets the index after the last note which may be visible.
+     * @return The number of notes which have appeared so far.
+     */
+    public int getVisibleNotesEnd() {
+        return spawnedNotes;
+    }
+
+    /**
+     * Determines whether a note is currently visible in the lane.
+     * @param index The index of the note.
+     * @return Whether the note is visible.
+     */
+    public boolean isNoteVisible(int index) {
+        return notes.isActive(index);
+    }
 
-        return visibleNotes;
+    /**
+     * Gets the type of a note in the lane.
+     * @param index The index of the note.
+     * @return The type of the note.
+     */
+    public NoteType getNoteType(int index) {
+        return notes.getType(index);
     }
 
     /**
-     * Draw the lane and its notes as well as calculate and return the score every frame.
-     * @param input The bagel input object.
+     * Gets the y position of a note in the lane.
+     * @param index The index of the note.
+     * @return The y position of the note.
+     */
+    public int getNoteHeight(int index) {
+        return notes.getHeight(index);
+    }
+
+    /**
+     * Deactivates a note in the lane without scoring it.
+     * @param index The index of the note.
+     */
+    public void deactivateNote(int index) {
+        notes.deactivate(index);
+    }
+
+    /**
+     * Move the lane's notes as well as calculate and return the score every frame.
+     * @param input The controls for this frame.
      * @param currentFrame The current frame of the level.
      * @return The total score given for this frame.
      */
-    public int update(Input input, int currentFrame) {
-        draw();
+    public int update(Controls input, int currentFrame) {
+        notes.advanceTo(currentFrame);
 
-        for (Note note : notes) {
-            note.update(currentFrame, ShadowDance.getCurrentLevel().getFallSpeed());
+        int fallSpeed = level.getFallSpeed();
+        lastFallSpeed = fallSpeed;
+        previouslySpawnedNotes = spawnedNotes;
+        for (int i = currentNote; i < spawnedNotes; i++) {
+            notes.update(i, currentFrame, fallSpeed);
         }
 
+        // Spawn the notes which are due to appear this frame.
+        while (spawnedNotes < notes.size() && notes.getAppearanceFrame(spawnedNotes) <= currentFrame) {
+            notes.update(spawnedNotes, currentFrame, fallSpeed);
+            spawnedNotes++;
+        }
+
+        int score = Accuracy.NOT_SCORED;
+
         if (currentNote < notes.size()) {
-            Note note = notes.get(currentNote);
-            int score = note.checkScore(input, this, TARGET_HEIGHT, key);
-            if (note.isCompleted()) {
+            score = notes.checkScore(currentNote, input, this, TARGET_HEIGHT, key);
+            if (notes.isCompleted(currentNote)) {
                 if (shouldClearNotes) {
-                    for (int i = currentNote; i < notes.size(); i++) {
-                        Note nextNote = notes.get(i);
-                        if (nextNote.isActive()) {
-                            nextNote.deactivate();
+                    for (int i = currentNote; i < spawnedNotes; i++) {
+                        if (notes.isActive(i)) {
+                            notes.deactivate(i);
                             currentNote++;
                         }
                     }
                     shouldClearNotes = false;
                 } else {
-                    while (currentNote < notes.size() && notes.get(currentNote).isCompleted()) {
+                    while (currentNote < notes.size() && notes.isCompleted(currentNote)) {
                         currentNote++;
                     }
                 }
             }
-            return score;
         }
 
-        return Accuracy.NOT_SCORED;
+        notes.release(currentNote);
+
+        // Count the notes which have appeared but are not completed yet, so the lane knows when it is finished.
+        liveNotes = 0;
+        for (int i = currentNote; i < spawnedNotes; i++) {
+            if (!notes.isCompleted(i)) {
+                liveNotes++;
+            }
+        }
+
+        return score;
     }
 }
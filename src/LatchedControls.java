@@ -0,0 +1,177 @@
+import bagel.Input;
+import bagel.Keys;
+
+import java.util.EnumSet;
+
+/**
+ * Controls which collect key presses and releases from every rendered frame until a simulation step reads them. When
+ * the display is faster than the simulation no key press is lost on frames which run no step, and when several steps
+ * run in one frame only the first of them sees the frame's key presses.
+ * <p>
+ * Keys can also be fed from a queue of timestamped events. Each event then goes to the step it happened in, and the
+ * step is told how long before its end the key changed so the press can be judged at that moment. The time from each
+ * timestamped press to the end of the step which judged it is measured.
+ */
+public class LatchedControls implements Controls {
+    private final static Keys[] KEYS = Keys.values();
+
+    private final EnumSet<Keys> pressed = EnumSet.noneOf(Keys.class);
+    private final EnumSet<Keys> released = EnumSet.noneOf(Keys.class);
+    private final long[] pressTimes = new long[KEYS.length];
+    private final long[] releaseTimes = new long[KEYS.length];
+    private final boolean[] timedPresses = new boolean[KEYS.length];
+    private final boolean[] timedReleases = new boolean[KEYS.length];
+    private KeyEventQueue events = null;
+    private long stepTime = 0;
+    private long stepNanos = 1;
+    private long latencyCount = 0;
+    private long latencyTotalNanos = 0;
+    private long latencyMaxNanos = 0;
+
+    /**
+     * Takes the timestamped keys from a queue of key events rather than from bagel.
+     * @param events The queue of timestamped key events.
+     */
+    public void useTimestamps(KeyEventQueue events) {
+        this.events = events;
+    }
+
+    /**
+     * Records the key presses and releases of a rendered frame. Called once every frame.
+     * @param input The bagel input object.
+     */
+    public void capture(Input input) {
+        for (Keys key : KEYS) {
+            if (events != null && KeyTimestamper.isTimestamped(key)) {
+                continue;
+            }
+
+            if (input.wasPressed(key)) {
+                pressed.add(key);
+            }
+            if (input.wasReleased(key)) {
+                released.add(key);
+            }
+        }
+    }
+
+    /**
+     * Prepares the controls for a simulation step by taking every timestamped event which happened before the step
+     * ends. Events after the end of the step are left for later steps.
+     * @param stepTime The time the step simulates up to, in nanoseconds from {@link System#nanoTime()}.
+     * @param stepNanos The length of a simulation step in nanoseconds.
+     */
+    public void beginStep(long stepTime, long stepNanos) {
+        this.stepTime = stepTime;
+        this.stepNanos = stepNanos;
+
+        while (events != null && !events.isEmpty() && events.peekTime() <= stepTime) {
+            Keys key = KEYS[events.peekKey()];
+            int index = key.ordinal();
+
+            // Only the first press or release of a key in a step is judged, just like bagel's input.
+            if (events.peekPressed()) {
+                if (pressed.add(key)) {
+                    pressTimes[index] = events.peekTime();
+                    timedPresses[index] = true;
+                }
+            } else if (released.add(key)) {
+                releaseTimes[index] = events.peekTime();
+                timedReleases[index] = true;
+            }
+
+            events.remove();
+        }
+    }
+
+    /**
+     * Forgets the recorded key presses and releases once a simulation step has read them, measuring how long each
+     * timestamped press waited to be judged.
+     */
+    public void consume() {
+        if (events != null) {
+            long now = System.nanoTime();
+            for (int i = 0; i < KEYS.length; i++) {
+                if (timedPresses[i]) {
+                    long latency = now - pressTimes[i];
+                    latencyCount++;
+                    latencyTotalNanos += latency;
+                    latencyMaxNanos = Math.max(latencyMaxNanos, latency);
+                }
+                timedPresses[i] = false;
+                timedReleases[i] = false;
+            }
+        }
+
+        pressed.clear();
+        released.clear();
+    }
+
+    @Override
+    public boolean wasPressed(Keys key) {
+        return pressed.contains(key);
+    }
+
+    @Override
+    public boolean wasReleased(Keys key) {
+        return released.contains(key);
+    }
+
+    @Override
+    public double getPressLag(Keys key) {
+        return timedPresses[key.ordinal()] ? lag(pressTimes[key.ordinal()]) : 0;
+    }
+
+    @Override
+    public double getReleaseLag(Keys key) {
+        return timedReleases[key.ordinal()] ? lag(releaseTimes[key.ordinal()]) : 0;
+    }
+
+    // Works out how long before the end of the current step an event happened, as a fraction of a step.
+    private double lag(long time) {
+        return Math.max(0, Math.min(1, (double) (stepTime - time) / stepNanos));
+    }
+
+    /**
+     * Gets the number of timestamped key presses which have been judged.
+     * @return The number of measured key presses.
+     */
+    public long getLatencyCount() {
+        return latencyCount;
+    }
+
+    /**
+     * Gets the average time from a timestamped key press to the end of the step which judged it.
+     * @return The average input to judgment latency in nanoseconds, or 0 if nothing has been measured.
+     */
+    public long getAverageLatencyNanos() {
+        return latencyCount == 0 ? 0 : latencyTotalNanos / latencyCount;
+    }
+
+    /**
+     * Gets the longest time from a timestamped key press to the end of the step which judged it.
+     * @return The longest input to judgment latency in nanoseconds.
+     */
+    public long getMaxLatencyNanos() {
+        return latencyMaxNanos;
+    }
+
+    /**
+     * Forgets every recorded and queued key event and the latency measured so far, such as when a new level starts.
+     */
+    public void reset() {
+        while (events != null && !events.isEmpty()) {
+            events.remove();
+        }
+        for (int i = 0; i < KEYS.length; i++) {
+            timedPresses[i] = false;
+            timedReleases[i] = false;
+        }
+        pressed.clear();
+        released.clear();
+
+        latencyCount = 0;
+        latencyTotalNanos = 0;
+        latencyMaxNanos = 0;
+    }
+}
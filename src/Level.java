@@ -1,9 +1,13 @@
 import bagel.Font;
-import bagel.Input;
+import bagel.Keys;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
 
 /**
  * Represents a single level in the ShadowDance game.
@@ -17,27 +21,166 @@ public class Level {
     private final static int LEVEL_3_SCORE = 350;
     private final static int ENEMY_LEVEL = 3;
     private final static int ENEMY_FREQUENCY = 600;
+    private final static int STREAM_LOOK_AHEAD_FRAMES = 120;
+    // Beyond this many double scores the multiplier no longer fits in an int.
+    private final static int MAX_SCORE_DOUBLINGS = 31;
 
-    private final Font TOTAL_SCORE_FONT = new Font("res/FSO8BITR.TTF", 30);
+    private final static String TOTAL_SCORE_FONT_FILE = "res/FSO8BITR.TTF";
+    private final static int TOTAL_SCORE_FONT_SIZE = 30;
+    private final static String TOTAL_SCORE_PREFIX = "SCORE ";
+
+    /**
+     * The sprite layer enemies are drawn in. Layers are drawn from lowest to highest.
+     */
+    public final static int ENEMY_LAYER = 0;
+    /**
+     * The sprite layer the guardian is drawn in.
+     */
+    public final static int GUARDIAN_LAYER = 1;
+    /**
+     * The sprite layer projectiles are drawn in.
+     */
+    public final static int PROJECTILE_LAYER = 2;
+    /**
+     * The sprite layer lanes are drawn in.
+     */
+    public final static int LANE_LAYER = 3;
+    /**
+     * The sprite layer notes are drawn in, on top of everything else.
+     */
+    public final static int NOTE_LAYER = 4;
+
+    private TextElement totalScoreText = null;
     private final int levelNumber;
+    private final boolean packedNotes;
     private final ArrayList<Lane> lanes = new ArrayList<>();
-    private final ArrayList<Integer> activeDoubleScores = new ArrayList<>();
-    private final ArrayList<Enemy> enemies = new ArrayList<>();
+    private final EffectScheduler effects = new EffectScheduler(this);
+    private final Accuracy accuracy = new Accuracy();
+    private int scoreDoublings = 0;
+    private int scoreMultiplier = 1;
+    private final Pool<Enemy> enemies = new Pool<>(Enemy::new);
+    private final Random random = new Random();
     private final Guardian guardian = new Guardian();
+    private final NoteGrid noteGrid = new NoteGrid(Enemy.COLLISION_RANGE, ShadowDance.WINDOW_WIDTH,
+            ShadowDance.WINDOW_HEIGHT);
+    private final HashSet<String> textures = new HashSet<>();
     private int currentFrame = 0;
     private int totalScore = 0;
     private int fallSpeed = DEFAULT_NOTE_FALL_SPEED;
+    private boolean finished;
+    private KeySet keys;
+    private int winScore;
 
     /**
      * Creates and loads a new level based on the level number.
      * @param levelNumber The number of the level used to determine which level csv to load.
      */
     public Level(int levelNumber) {
+        this(levelNumber, "res/level" + levelNumber + ".csv");
+    }
+
+    /**
+     * Creates and loads a new level from a specific chart file. Loading a level does not need a window, so levels
+     * can also be created and simulated headless.
+     * @param levelNumber The number of the level used to determine the rules and winning score.
+     * @param fileName The csv file containing the level's lanes and notes.
+     */
+    public Level(int levelNumber, String fileName) {
+        this(levelNumber, fileName, false);
+    }
+
+    /**
+     * Creates and loads a new level from a specific chart file, choosing how notes are stored.
+     * @param levelNumber The number of the level used to determine the rules and winning score.
+     * @param fileName The csv file containing the level's lanes and notes.
+     * @param packedNotes Whether to store notes in primitive arrays rather than as objects, which uses far less
+     *                    memory for large charts. Scoring is the same either way.
+     */
+    public Level(int levelNumber, String fileName, boolean packedNotes) {
+        LevelLoadEvent load = LevelLoadEvent.start();
         this.levelNumber = levelNumber;
-        readCSV("res/level" + levelNumber + ".csv");
+        winScore = getDefaultWinScore(levelNumber);
+        this.packedNotes = packedNotes;
+        readCSV(fileName);
+        prepare();
+        LevelLoadEvent.finish(load, levelNumber, "csv", lanes.size(), countNotes());
+    }
+
+    /**
+     * Creates a new level from an already loaded chart, such as a compiled chart read by {@link ChartFile}.
+     * @param levelNumber The number of the level used to determine the rules and winning score.
+     * @param chart The chart containing the level's lanes and notes.
+     * @param packedNotes Whether to store notes in primitive arrays rather than as objects.
+     */
+    public Level(int levelNumber, Chart chart, boolean packedNotes) {
+        LevelLoadEvent load = LevelLoadEvent.start();
+        this.levelNumber = levelNumber;
+        winScore = getDefaultWinScore(levelNumber);
+        this.packedNotes = packedNotes;
+
+        for (int i = 0; i < chart.getLaneCount(); i++) {
+            String type = chart.getLaneType(i);
+            NoteStore notes = packedNotes ? new PackedNoteStore(type) : new ObjectNoteStore(type);
+            Lane lane = new Lane(this, type, chart.getLanePosition(i), notes);
+
+            int noteCount = chart.getNoteCount(i);
+            lane.ensureCapacity(noteCount);
+            for (int j = 0; j < noteCount; j++) {
+                lane.addNote(chart.getNoteType(i, j), chart.getNoteFrame(i, j));
+            }
+
+            lanes.add(lane);
+        }
+
+        prepare();
+        LevelLoadEvent.finish(load, levelNumber, "chart", lanes.size(), countNotes());
+    }
+
+    /**
+     * Creates a new level which streams its notes from a compiled chart. Notes are read shortly before they appear
+     * and dropped once they are completed, so the level starts immediately and uses the same memory however long the
+     * chart is.
+     * @param levelNumber The number of the level used to determine the rules and winning score.
+     * @param chart The opened chart to stream notes from.
+     */
+    public Level(int levelNumber, ChartStream chart) {
+        LevelLoadEvent load = LevelLoadEvent.start();
+        this.levelNumber = levelNumber;
+        winScore = getDefaultWinScore(levelNumber);
+        this.packedNotes = true;
+
+        for (int i = 0; i < chart.getLaneCount(); i++) {
+            String type = chart.getLaneType(i);
+            NoteStore notes = new PackedNoteStore(type, chart.openLane(i), STREAM_LOOK_AHEAD_FRAMES);
+            lanes.add(new Lane(this, type, chart.getLanePosition(i), notes));
+        }
+
+        prepare();
+        LevelLoadEvent.finish(load, levelNumber, "stream", lanes.size(), countNotes());
+    }
+
+    // Collects the images and keys the level needs and checks whether it has any notes to play.
+    private void prepare() {
+        Keys[] laneKeys = new Keys[lanes.size() + 1];
+        for (int i = 0; i < lanes.size(); i++) {
+            lanes.get(i).addTextures(textures);
+            laneKeys[i] = Lane.getKey(lanes.get(i).getType());
+        }
+
+        if (levelNumber == ENEMY_LEVEL) {
+            textures.add(Enemy.IMAGE_FILE);
+            textures.add(Guardian.IMAGE_FILE);
+            textures.add(Projectile.IMAGE_FILE);
+            laneKeys[lanes.size()] = Guardian.FIRE_KEY;
+        }
+        keys = new KeySet(laneKeys);
+
+        finished = areLanesFinished();
     }
 
     private void readCSV(String fileName) {
+        ChartParseEvent parse = ChartParseEvent.start();
+
         // Load a level from its csv file by creating relevant objects.
         try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
             String text;
@@ -46,7 +189,9 @@ public class Level {
                 String[] arguments = text.split(",");
 
                 if (arguments[0].equals("Lane")) {
-                    lanes.add(new Lane(arguments[1], Integer.parseInt(arguments[2])));
+                    String type = arguments[1];
+                    NoteStore notes = packedNotes ? new PackedNoteStore(type) : new ObjectNoteStore(type);
+                    lanes.add(new Lane(this, type, Integer.parseInt(arguments[2]), notes));
                 } else {
                     // Get the lane the note should be in.
                     Lane relevantLane = null;
@@ -59,28 +204,9 @@ public class Level {
 
                     // Create the note
                     if (relevantLane != null) {
-                        int appearanceFrame = Integer.parseInt(arguments[2]);
-                        switch (arguments[1]) {
-                            case "Normal":
-                                relevantLane.addNote(new Note(appearanceFrame,
-                                        "res/note" + relevantLane.getType() + ".png"));
-                                break;
-                            case "Hold":
-                                relevantLane.addNote(new HoldNote(appearanceFrame,
-                                        "res/holdNote" + relevantLane.getType() + ".png"));
-                                break;
-                            case "Bomb":
-                                relevantLane.addNote(new BombNote(appearanceFrame));
-                                break;
-                            case "DoubleScore":
-                                relevantLane.addNote(new DoubleScoreNote(appearanceFrame));
-                                break;
-                            case "SpeedUp":
-                                relevantLane.addNote(new SpeedUpNote(appearanceFrame));
-                                break;
-                            case "SlowDown":
-                                relevantLane.addNote(new SlowDownNote(appearanceFrame));
-                                break;
+                        NoteType noteType = NoteType.fromName(arguments[1]);
+                        if (noteType != null) {
+                            relevantLane.addNote(noteType, Integer.parseInt(arguments[2]));
                         }
                     }
                 }
@@ -88,16 +214,48 @@ public class Level {
         } catch (Exception e) {
             e.printStackTrace();
         }
+
+        ChartParseEvent.finish(parse, fileName, lanes.size(), countNotes());
+    }
+
+    // Counts the notes in every lane.
+    private int countNotes() {
+        int count = 0;
+        for (Lane lane : lanes) {
+            count += lane.getNoteCount();
+        }
+
+        return count;
     }
 
     /**
-     * Determines if the level is over by checking if all lanes are finished.
-     * @return Whether the level is over or not.
+     * Gets the file names of every image the level needs.
+     * @return The level's image file names, which cannot be modified.
      */
-    public boolean isFinished() {
-        // Check if all notes in every lane have fallen and the game should end
-        for (Lane lane : lanes) {
-            if (!lane.isFinished()) {
+    public Set<String> getTextureFileNames() {
+        return Collections.unmodifiableSet(textures);
+    }
+
+    /**
+     * Loads every image the level needs into a texture cache, so nothing is decoded while the level is played.
+     * @param textureCache The cache to load the images into.
+     */
+    public void preloadTextures(TextureCache textureCache) {
+        textureCache.acquire(textures);
+    }
+
+    /**
+     * Releases the level's images from a texture cache once the level is discarded.
+     * @param textureCache The cache the images were loaded into.
+     */
+    public void releaseTextures(TextureCache textureCache) {
+        textureCache.release(textures);
+    }
+
+    // Check if all notes in every lane have fallen and the game should end
+    private boolean areLanesFinished() {
+        for (int i = 0; i < lanes.size(); i++) {
+            if (!lanes.get(i).isFinished()) {
                 return false;
             }
         }
@@ -106,20 +264,103 @@ public class Level {
     }
 
     /**
-     * Determines whether the level was won depending on the score and level number.
+     * Determines if the level is over, which is when all lanes are finished. Checked once at the end of every frame.
+     * @return Whether the level is over or not.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Determines whether the level was won depending on the score.
      * @return Whether the level was won or not.
      */
     public boolean didWin() {
+        return totalScore >= winScore;
+    }
+
+    /**
+     * Gets the score needed to win one of the game's own levels, which is what a level needs to win unless it is
+     * given another score.
+     * @param levelNumber The number of the level.
+     * @return The winning score, or {@link Integer#MAX_VALUE} if the game has no level with that number.
+     */
+    public static int getDefaultWinScore(int levelNumber) {
         switch (levelNumber) {
             case (1):
-                return totalScore >= LEVEL_1_SCORE;
+                return LEVEL_1_SCORE;
             case (2):
-                return totalScore >= LEVEL_2_SCORE;
+                return LEVEL_2_SCORE;
             case (3):
-                return totalScore >= LEVEL_3_SCORE;
+                return LEVEL_3_SCORE;
         }
 
-        return false;
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Gets the score needed to win the level.
+     * @return The winning score.
+     */
+    public int getWinScore() {
+        return winScore;
+    }
+
+    /**
+     * Sets the score needed to win the level, such as the score recorded for its chart in the level catalog.
+     * @param winScore The winning score.
+     */
+    public void setWinScore(int winScore) {
+        this.winScore = winScore;
+    }
+
+    /**
+     * Gets the number of the level, which determines its rules and winning score.
+     * @return The level number.
+     */
+    public int getLevelNumber() {
+        return levelNumber;
+    }
+
+    /**
+     * Gets the keys the level responds to: the key of each lane in order, followed by the guardian's fire key on the
+     * level with enemies.
+     * @return The level's keys.
+     */
+    public KeySet getKeys() {
+        return keys;
+    }
+
+    /**
+     * Gets the lanes of the level.
+     * @return The lanes of the level.
+     */
+    public ArrayList<Lane> getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Gets the level's scoring, which also keeps track of the score message shown on screen.
+     * @return The level's accuracy.
+     */
+    public Accuracy getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * Gets the score the player has reached so far.
+     * @return The total score.
+     */
+    public int getTotalScore() {
+        return totalScore;
+    }
+
+    /**
+     * Gets the number of frames which have been simulated so far.
+     * @return The current frame number.
+     */
+    public int getCurrentFrame() {
+        return currentFrame;
     }
 
     /**
@@ -139,18 +380,61 @@ public class Level {
     }
 
     /**
-     * Activates the double score effect.
-     * @param duration The amount of frames the double score effect should be active for.
+     * Starts a timed effect, which lasts for the rest of this frame and the given number of frames after it.
+     * @param effect The effect to start.
+     * @param duration The number of frames after this one which the effect lasts for.
+     */
+    public void startEffect(TimedEffect effect, int duration) {
+        effects.schedule(effect, currentFrame, duration);
+    }
+
+    /**
+     * Changes how many times scores are doubled, which is how double score effects are applied.
+     * @param count The number of doublings to add, or a negative number to remove doublings.
+     */
+    public void addScoreDoublings(int count) {
+        scoreDoublings += count;
+        scoreMultiplier = scoreDoublings >= MAX_SCORE_DOUBLINGS ? Integer.MAX_VALUE : 1 << scoreDoublings;
+    }
+
+    /**
+     * Gets the number of enemies on screen.
+     * @return The number of enemies.
+     */
+    public int getEnemyCount() {
+        return enemies.size();
+    }
+
+    /**
+     * Gets the number of the guardian's projectiles in flight.
+     * @return The number of projectiles.
+     */
+    public int getProjectileCount() {
+        return guardian.getProjectileCount();
+    }
+
+    /**
+     * Adds an enemy in a random position, on top of the enemies which appear on their own. Enemies only move and
+     * steal notes on the enemy level.
+     */
+    public void spawnEnemy() {
+        enemies.obtain().spawn(random);
+    }
+
+    /**
+     * Seeds the random numbers used by the level, such as where enemies appear, so that a run can be repeated.
+     * @param seed The seed to use.
      */
-    public void activateDoubleScore(int duration) {
-        activeDoubleScores.add(duration);
+    public void setRandomSeed(long seed) {
+        random.setSeed(seed);
     }
 
     /**
-     * Processes one frame of the level, potentially reading from input.
-     * @param input The bagel input object.
+     * Processes one frame of the level, potentially reading from input. Nothing is drawn here, see
+     * {@link #draw(SpriteBatch, double)}.
+     * @param input The controls for this frame.
      */
-    public void update(Input input) {
+    public void update(Controls input) {
         if (isFinished()) {
             return;
         }
@@ -160,55 +444,106 @@ public class Level {
         if (levelNumber == ENEMY_LEVEL) {
             // Create a new enemy every ENEMY_FREQUENCY frames if on ENEMY_LEVEL.
             if (currentFrame % ENEMY_FREQUENCY == 0) {
-                enemies.add(new Enemy());
+                spawnEnemy();
             }
 
-            // Update all enemies and check collisions with notes.
+            // Update all enemies, then check collisions with notes. An enemy can only collide with normal notes, and
+            // notes do not move until the lanes update, so every enemy can share one grid of them.
+            FramePhaseEvent phase = FramePhaseEvent.start();
             for (int i = enemies.size() - 1; i >= 0; i--) {
                 Enemy enemy = enemies.get(i);
 
                 if (enemy.isInactive()) {
                     // Enemy was hit by a projectile.
-                    enemies.remove(i);
+                    enemies.release(i);
                     continue;
                 }
 
                 enemy.update();
+            }
+            FramePhaseEvent.finish(phase, currentFrame, FramePhaseEvent.ENEMY_UPDATE, null);
 
-                for (Lane lane : lanes) {
-                    for (Note note : lane.getVisibleNotes()) {
-                        // An enemy can only collide with normal notes.
-                        // I don't like this, but I can't think of a nicer way to implement it.
-                        if (!note.getClass().equals(Note.class)) {
-                            continue;
-                        }
-
-                        if (enemy.isCollidingWith(lane.getPositionX(), note.getHeight())) {
-                            note.deactivate();
-                        }
-                    }
+            phase = FramePhaseEvent.start();
+            if (!enemies.isEmpty()) {
+                noteGrid.build(lanes, NoteType.NORMAL);
+                for (int i = enemies.size() - 1; i >= 0; i--) {
+                    enemies.get(i).stealNotes(noteGrid);
                 }
             }
+            FramePhaseEvent.finish(phase, currentFrame, FramePhaseEvent.ENEMY_COLLISION, null);
 
-            guardian.update(input, enemies);
+            phase = FramePhaseEvent.start();
+            guardian.update(input, enemies.getLive());
+            FramePhaseEvent.finish(phase, currentFrame, FramePhaseEvent.GUARDIAN_UPDATE, null);
         }
 
-        // Update all active double scores and remove any which have ended
-        for (int i = activeDoubleScores.size() - 1; i >= 0; i--) {
-            int duration = activeDoubleScores.get(i);
-            if (duration == 0) {
-                activeDoubleScores.remove(i);
-            } else {
-                activeDoubleScores.set(i, duration - 1);
-            }
+        // End any timed effects whose time is up
+        FramePhaseEvent phase = FramePhaseEvent.start();
+        effects.update(currentFrame);
+        FramePhaseEvent.finish(phase, currentFrame, FramePhaseEvent.EFFECTS, null);
+
+        for (int i = 0; i < lanes.size(); i++) {
+            Lane lane = lanes.get(i);
+            phase = FramePhaseEvent.start();
+            totalScore += lane.update(input, currentFrame) * scoreMultiplier;
+            FramePhaseEvent.finish(phase, currentFrame, FramePhaseEvent.LANE_UPDATE, lane.getType());
         }
 
-        for (Lane lane : lanes) {
-            totalScore += lane.update(input, currentFrame) * ((int) Math.pow(2, activeDoubleScores.size()));
+        finished = areLanesFinished();
+
+        accuracy.update();
+    }
+
+    /**
+     * Creates the font the total score is drawn in. The game creates it once and shares it between every level.
+     * @return The total score font.
+     */
+    public static Font createScoreFont() {
+        return new Font(TOTAL_SCORE_FONT_FILE, TOTAL_SCORE_FONT_SIZE);
+    }
+
+    /**
+     * Renders the level, called once per rendered frame after any updates. Moving objects are drawn part of the way
+     * between their previous and current positions, so that movement stays smooth when the display refreshes at a
+     * different rate to the simulation.
+     * @param sprites The batch to draw the level's sprites with, which is flushed before the text is drawn.
+     * @param alpha How far between the previous update (0) and the latest update (1) to draw moving objects.
+     * @param scoreFont The font from {@link #createScoreFont()} to draw the total score in.
+     * @param messageFont The font from {@link Accuracy#createFont()} to draw score messages in.
+     */
+    public void draw(SpriteBatch sprites, double alpha, Font scoreFont, Font messageFont) {
+        addSprites(sprites, alpha);
+        sprites.flush();
+
+        FramePhaseEvent phase = FramePhaseEvent.start();
+        if (totalScoreText == null) {
+            totalScoreText = new TextElement(scoreFont, TOTAL_SCORE_POSITION_X, TOTAL_SCORE_POSITION_Y, false);
         }
 
-        TOTAL_SCORE_FONT.drawString("SCORE " + totalScore, TOTAL_SCORE_POSITION_X, TOTAL_SCORE_POSITION_Y);
+        totalScoreText.setText(TOTAL_SCORE_PREFIX, totalScore);
+        totalScoreText.draw();
 
-        Accuracy.update();
+        accuracy.draw(messageFont);
+        FramePhaseEvent.finish(phase, currentFrame, FramePhaseEvent.HUD_DRAW, null);
+    }
+
+    /**
+     * Adds the sprites of every lane, note, enemy and projectile to a batch without drawing anything, so what the
+     * level would draw can also be inspected without a window.
+     * @param sprites The batch to add the sprites to.
+     * @param alpha How far between the previous update (0) and the latest update (1) to draw moving objects.
+     */
+    public void addSprites(SpriteBatch sprites, double alpha) {
+        if (levelNumber == ENEMY_LEVEL) {
+            for (int i = 0; i < enemies.size(); i++) {
+                enemies.get(i).draw(sprites, alpha);
+            }
+
+            guardian.draw(sprites, alpha);
+        }
+
+        for (int i = 0; i < lanes.size(); i++) {
+            lanes.get(i).draw(sprites, alpha);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,449 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * The charts the game can play, found by searching a directory for level csv files and compiled charts. What is known
+ * about each chart is kept in an index file, so the catalog opens without reading any chart which has not changed.
+ * A chart whose size and modification time match the index is trusted; otherwise its contents are hashed, and it is
+ * only read again if the hash has changed too.
+ * <p>
+ * Charts are numbered from 1 in name order, with numbers in names compared by value, so the game's own levels come
+ * first. A chart named like the game's levels and their test charts, such as level3 or test3, plays by that level's
+ * rules and needs the same score to win. Other charts have no enemies and are won with a share of the best score
+ * their notes can give.
+ */
+public class LevelCatalog {
+    /**
+     * The directory the game finds its charts in.
+     */
+    public final static String DEFAULT_DIRECTORY = "res";
+    /**
+     * The index file used by the game.
+     */
+    public final static String DEFAULT_INDEX_FILE = "levels.index";
+
+    private final static int MAGIC = 0x43444c53; // "SLDC"
+    private final static int VERSION = 1;
+    private final static String CSV_EXTENSION = ".csv";
+    private final static int HASH_BUFFER_SIZE = 1 << 16;
+    private final static int MAX_NUMBER_DIGITS = 9;
+    private final static String LEVEL_PREFIX = "level";
+    private final static String[] LEVEL_PREFIXES = {LEVEL_PREFIX, "test"};
+    private final static String TRACK_PREFIX = "track";
+    private final static String TRACK_EXTENSION = ".wav";
+    // Scores of perfectly hit notes, used to work out the winning score of charts which are not one of the levels.
+    private final static int NORMAL_SCORE = 10;
+    private final static int HOLD_SCORE = 20;
+    private final static int SPEED_CHANGE_SCORE = 15;
+    private final static double WIN_SHARE = 0.7;
+
+    private final ArrayList<LevelInfo> levels;
+    private final int cachedCount;
+    private final int hashedCount;
+    private final int parsedCount;
+
+    private LevelCatalog(ArrayList<LevelInfo> levels, int cachedCount, int hashedCount, int parsedCount) {
+        this.levels = levels;
+        this.cachedCount = cachedCount;
+        this.hashedCount = hashedCount;
+        this.parsedCount = parsedCount;
+    }
+
+    /**
+     * Finds every chart in a directory and its subdirectories, using the index for charts which have not changed and
+     * updating the index if anything has. Charts which cannot be read are reported and left out.
+     * @param directory The directory to search.
+     * @param indexFile The index file, which is created if it does not exist.
+     * @param verify Whether to hash every chart, even those whose size and modification time match the index.
+     * @return The catalog.
+     * @throws IOException If the directory could not be searched.
+     */
+    public static LevelCatalog open(Path directory, Path indexFile, boolean verify) throws IOException {
+        CatalogOpenEvent event = CatalogOpenEvent.start();
+        HashMap<String, LevelInfo> indexed = new HashMap<>();
+        for (LevelInfo info : readIndex(indexFile)) {
+            indexed.put(info.getFileName(), info);
+        }
+
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            files = paths.filter(LevelCatalog::isChart).sorted(Comparator.comparing(LevelCatalog::getSortKey))
+                    .collect(Collectors.toList());
+        }
+
+        ArrayList<LevelInfo> levels = new ArrayList<>();
+        int cached = 0;
+        int hashed = 0;
+        int parsed = 0;
+
+        for (Path file : files) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                long size = attributes.size();
+                long modified = attributes.lastModifiedTime().toMillis();
+                LevelInfo info = indexed.get(file.toString());
+
+                if (info != null && !verify && info.getFileSize() == size && info.getLastModified() == modified) {
+                    cached++;
+                } else {
+                    long hash = hash(file);
+                    if (info != null && info.getFileSize() == size && info.getContentHash() == hash) {
+                        info = info.getLastModified() == modified ? info : info.withLastModified(modified);
+                        hashed++;
+                    } else {
+                        info = describe(file, size, modified, hash);
+                        parsed++;
+                    }
+                }
+
+                levels.add(info);
+            } catch (IOException e) {
+                System.err.println("Could not catalogue " + file + ": " + e.getMessage());
+            }
+        }
+
+        if (cached != levels.size() || indexed.size() != levels.size()) {
+            try {
+                writeIndex(indexFile, levels);
+            } catch (IOException e) {
+                System.err.println("Could not save the level index: " + e.getMessage());
+            }
+        }
+
+        CatalogOpenEvent.finish(event, directory.toString(), levels.size(), cached, hashed, parsed);
+        return new LevelCatalog(levels, cached, hashed, parsed);
+    }
+
+    // Determines whether a file is a chart the catalog can play.
+    private static boolean isChart(Path file) {
+        String name = file.getFileName().toString();
+        return Files.isRegularFile(file) && (name.endsWith(CSV_EXTENSION) || name.endsWith(ChartFile.EXTENSION));
+    }
+
+    // Gets a file's name without its extension.
+    private static String getStem(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    // Finds where the number at the end of a chart's name starts, or the end of the name if there is no number.
+    private static int getNumberStart(String stem) {
+        int start = stem.length();
+        while (start > 0 && stem.length() - start < MAX_NUMBER_DIGITS && Character.isDigit(stem.charAt(start - 1))) {
+            start--;
+        }
+        return start;
+    }
+
+    // Gets the number at the end of a chart's name, or 0 if there is none.
+    private static int getTrailingNumber(String stem) {
+        int start = getNumberStart(stem);
+        return start == stem.length() ? 0 : Integer.parseInt(stem.substring(start));
+    }
+
+    // Gets the number of the level whose rules a chart plays by, or 0 if it is not named after a level.
+    private static int getLevelNumber(String stem) {
+        String prefix = stem.substring(0, getNumberStart(stem));
+        for (String levelPrefix : LEVEL_PREFIXES) {
+            if (prefix.equals(levelPrefix)) {
+                return getTrailingNumber(stem);
+            }
+        }
+
+        return 0;
+    }
+
+    // Orders charts by name with the number at the end compared by value, so level2 comes before level10.
+    private static String getSortKey(Path file) {
+        String stem = getStem(file);
+        Path parent = file.getParent();
+        return String.format("%s/%s%010d/%s", parent == null ? "" : parent, stem.substring(0, getNumberStart(stem)),
+                getTrailingNumber(stem), file.getFileName());
+    }
+
+    // Works out a file's CRC32 without holding all of it in memory.
+    private static long hash(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+
+        return crc.getValue();
+    }
+
+    /**
+     * Reads a chart, either a level csv or a compiled chart.
+     * @param file The chart file.
+     * @return The chart.
+     * @throws IOException If the file could not be read or is not a valid chart.
+     */
+    public static Chart readChart(Path file) throws IOException {
+        return file.getFileName().toString().endsWith(ChartFile.EXTENSION) ? ChartFile.read(file)
+                : ChartCompiler.parseCsv(file);
+    }
+
+    /**
+     * Finds the track played with a chart: the wav file beside it with the same name, except for the game's own
+     * levels, whose tracks are numbered like them.
+     * @param info The chart.
+     * @return The path of the track, which may not exist.
+     */
+    public static Path getTrackFile(LevelInfo info) {
+        String name = info.getName().equals(LEVEL_PREFIX + info.getLevelNumber())
+                ? TRACK_PREFIX + info.getLevelNumber() : info.getName();
+        return Paths.get(info.getFileName()).resolveSibling(name + TRACK_EXTENSION);
+    }
+
+    /**
+     * Describes a chart which may not be in any catalog, the same way the catalog would describe it.
+     * @param file The chart file (csv or compiled).
+     * @return The chart's description.
+     * @throws IOException If the file could not be read or is not a valid chart.
+     */
+    public static LevelInfo describe(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return describe(file, attributes.size(), attributes.lastModifiedTime().toMillis(), hash(file));
+    }
+
+    // Reads a chart and describes it.
+    private static LevelInfo describe(Path file, long size, long modified, long hash) throws IOException {
+        Chart chart = readChart(file);
+
+        int laneCount = chart.getLaneCount();
+        String[] laneTypes = new String[laneCount];
+        int[] lanePositions = new int[laneCount];
+        int[] noteCounts = new int[NoteType.values().length];
+        int duration = 0;
+
+        for (int lane = 0; lane < laneCount; lane++) {
+            laneTypes[lane] = chart.getLaneType(lane);
+            lanePositions[lane] = chart.getLanePosition(lane);
+            for (int note = 0; note < chart.getNoteCount(lane); note++) {
+                noteCounts[chart.getNoteType(lane, note).ordinal()]++;
+                duration = Math.max(duration, chart.getNoteFrame(lane, note));
+            }
+        }
+
+        String stem = getStem(file);
+        int levelNumber = getLevelNumber(stem);
+        int winScore = Level.getDefaultWinScore(levelNumber);
+        if (winScore == Integer.MAX_VALUE) {
+            int bestScore = noteCounts[NoteType.NORMAL.ordinal()] * NORMAL_SCORE
+                    + noteCounts[NoteType.HOLD.ordinal()] * HOLD_SCORE
+                    + (noteCounts[NoteType.SPEED_UP.ordinal()] + noteCounts[NoteType.SLOW_DOWN.ordinal()])
+                    * SPEED_CHANGE_SCORE;
+            winScore = (int) Math.ceil(bestScore * WIN_SHARE);
+        }
+
+        return new LevelInfo(file.toString(), stem, levelNumber, size, modified, hash, laneTypes, lanePositions,
+                noteCounts, duration, winScore);
+    }
+
+    // Reads the index, or returns nothing if there is no index or it cannot be used, so every chart is read again.
+    private static ArrayList<LevelInfo> readIndex(Path indexFile) {
+        ArrayList<LevelInfo> levels = new ArrayList<>();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                System.err.println("Rebuilding the level index, since " + indexFile + " is not a current index");
+                return levels;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String fileName = in.readUTF();
+                String name = in.readUTF();
+                int levelNumber = in.readInt();
+                long fileSize = in.readLong();
+                long lastModified = in.readLong();
+                long contentHash = in.readLong();
+
+                int laneCount = in.readInt();
+                String[] laneTypes = new String[laneCount];
+                int[] lanePositions = new int[laneCount];
+                for (int lane = 0; lane < laneCount; lane++) {
+                    laneTypes[lane] = in.readUTF();
+                    lanePositions[lane] = in.readInt();
+                }
+
+                int[] noteCounts = new int[NoteType.values().length];
+                for (int type = 0; type < noteCounts.length; type++) {
+                    noteCounts[type] = in.readInt();
+                }
+
+                levels.add(new LevelInfo(fileName, name, levelNumber, fileSize, lastModified, contentHash, laneTypes,
+                        lanePositions, noteCounts, in.readInt(), in.readInt()));
+            }
+        } catch (NoSuchFileException e) {
+            levels.clear();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Rebuilding the level index, since " + indexFile + " could not be read: " + e);
+            levels.clear();
+        }
+
+        return levels;
+    }
+
+    // Writes the index to a temporary file first so that a partly written index is never read.
+    private static void writeIndex(Path indexFile, List<LevelInfo> levels) throws IOException {
+        Path parent = indexFile.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(levels.size());
+
+            for (LevelInfo info : levels) {
+                out.writeUTF(info.getFileName());
+                out.writeUTF(info.getName());
+                out.writeInt(info.getLevelNumber());
+                out.writeLong(info.getFileSize());
+                out.writeLong(info.getLastModified());
+                out.writeLong(info.getContentHash());
+
+                out.writeInt(info.getLaneCount());
+                for (int lane = 0; lane < info.getLaneCount(); lane++) {
+                    out.writeUTF(info.getLaneType(lane));
+                    out.writeInt(info.getLanePosition(lane));
+                }
+
+                for (NoteType type : NoteType.values()) {
+                    out.writeInt(info.getNoteCount(type));
+                }
+
+                out.writeInt(info.getDurationFrames());
+                out.writeInt(info.getWinScore());
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads a catalogued chart into a level which needs the chart's winning score to win.
+     * @param info The chart to read.
+     * @param packedNotes Whether to store notes in primitive arrays rather than as objects.
+     * @return The level.
+     * @throws IOException If a compiled chart could not be read.
+     */
+    public static Level load(LevelInfo info, boolean packedNotes) throws IOException {
+        String fileName = info.getFileName();
+        Level level = fileName.endsWith(ChartFile.EXTENSION)
+                ? new Level(info.getLevelNumber(), ChartFile.read(Paths.get(fileName)), packedNotes)
+                : new Level(info.getLevelNumber(), fileName, packedNotes);
+        level.setWinScore(info.getWinScore());
+        return level;
+    }
+
+    /**
+     * Gets the number of charts in the catalog.
+     * @return The number of charts.
+     */
+    public int size() {
+        return levels.size();
+    }
+
+    /**
+     * Gets a chart by its number.
+     * @param number The number of the chart, from 1.
+     * @return The chart's description.
+     */
+    public LevelInfo get(int number) {
+        return levels.get(number - 1);
+    }
+
+    /**
+     * Finds a chart by its path.
+     * @param fileName The path of the chart file, as given by {@link LevelInfo#getFileName()}.
+     * @return The chart's description, or null if the catalog has no chart at that path.
+     */
+    public LevelInfo find(String fileName) {
+        for (LevelInfo info : levels) {
+            if (info.getFileName().equals(fileName)) {
+                return info;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the number of charts whose size and modification time matched the index, so they were not read at all.
+     * @return The number of charts taken from the index.
+     */
+    public int getCachedCount() {
+        return cachedCount;
+    }
+
+    /**
+     * Gets the number of charts which were hashed and found unchanged, so they were not parsed.
+     * @return The number of charts hashed but not parsed.
+     */
+    public int getHashedCount() {
+        return hashedCount;
+    }
+
+    /**
+     * Gets the number of charts which were new or had changed, so they were parsed.
+     * @return The number of charts parsed.
+     */
+    public int getParsedCount() {
+        return parsedCount;
+    }
+
+    /**
+     * Lists the charts in a directory, updating its index.
+     * @param args Optionally the directory to search, the index file and "verify" to hash every chart.
+     */
+    public static void main(String[] args) {
+        Path directory = Paths.get(args.length > 0 ? args[0] : DEFAULT_DIRECTORY);
+        Path indexFile = Paths.get(args.length > 1 ? args[1] : DEFAULT_INDEX_FILE);
+        boolean verify = args.length > 2 && args[2].equals("verify");
+
+        long start = System.nanoTime();
+        LevelCatalog catalog;
+        try {
+            catalog = open(directory, indexFile, verify);
+        } catch (IOException e) {
+            System.err.println("Could not search " + directory + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        long nanos = System.nanoTime() - start;
+
+        for (int number = 1; number <= catalog.size(); number++) {
+            LevelInfo info = catalog.get(number);
+            System.out.printf("%3d %-24s rules %d, %d lanes, %d notes, %d frames, win at %d, crc %08x%n", number,
+                    info.getName(), info.getLevelNumber(), info.getLaneCount(), info.getTotalNoteCount(),
+                    info.getDurationFrames(), info.getWinScore(), info.getContentHash());
+        }
+        System.out.printf("%d charts in %.1f ms: %d from the index, %d hashed, %d parsed%n", catalog.size(),
+                nanos / 1e6, catalog.getCachedCount(), catalog.getHashedCount(), catalog.getParsedCount());
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * What the level catalog knows about a chart without reading it: where it is, how to tell whether it has changed, its
+ * lane layout, how many notes of each type it has, how long it lasts and the score needed to win it.
+ */
+public class LevelInfo {
+    private final String fileName;
+    private final String name;
+    private final int levelNumber;
+    private final long fileSize;
+    private final long lastModified;
+    private final long contentHash;
+    private final String[] laneTypes;
+    private final int[] lanePositions;
+    private final int[] noteCounts;
+    private final int durationFrames;
+    private final int winScore;
+
+    /**
+     * Creates the description of a chart.
+     * @param fileName The path of the chart file.
+     * @param name The name shown for the chart.
+     * @param levelNumber The number deciding the level's rules, such as whether enemies appear.
+     * @param fileSize The size of the file in bytes.
+     * @param lastModified When the file was last modified, in milliseconds since the epoch.
+     * @param contentHash The CRC32 of the file's contents.
+     * @param laneTypes The type of each lane.
+     * @param lanePositions The x position of each lane.
+     * @param noteCounts The number of notes of each type, indexed by {@link NoteType#ordinal()}.
+     * @param durationFrames The frame the last note appears on.
+     * @param winScore The score needed to win.
+     */
+    public LevelInfo(String fileName, String name, int levelNumber, long fileSize, long lastModified,
+                     long contentHash, String[] laneTypes, int[] lanePositions, int[] noteCounts, int durationFrames,
+                     int winScore) {
+        this.fileName = fileName;
+        this.name = name;
+        this.levelNumber = levelNumber;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.contentHash = contentHash;
+        this.laneTypes = laneTypes;
+        this.lanePositions = lanePositions;
+        this.noteCounts = noteCounts;
+        this.durationFrames = durationFrames;
+        this.winScore = winScore;
+    }
+
+    /**
+     * Creates a copy of the description for the same contents found with a different modification time, such as
+     * after the file was copied.
+     * @param lastModified The new modification time, in milliseconds since the epoch.
+     * @return The updated description.
+     */
+    public LevelInfo withLastModified(long lastModified) {
+        return new LevelInfo(fileName, name, levelNumber, fileSize, lastModified, contentHash, laneTypes,
+                lanePositions, noteCounts, durationFrames, winScore);
+    }
+
+    /**
+     * Gets the path of the chart file.
+     * @return The file name.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Gets the name shown for the chart, which is its file name without the directory or extension.
+     * @return The chart's name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number which decides the level's rules, such as whether enemies appear.
+     * @return The level number.
+     */
+    public int getLevelNumber() {
+        return levelNumber;
+    }
+
+    /**
+     * Gets the size of the file when it was catalogued.
+     * @return The size in bytes.
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Gets when the file was last modified when it was catalogued.
+     * @return The modification time in milliseconds since the epoch.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Gets the hash of the file's contents when it was catalogued.
+     * @return The CRC32 of the file.
+     */
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Gets the number of lanes.
+     * @return The number of lanes.
+     */
+    public int getLaneCount() {
+        return laneTypes.length;
+    }
+
+    /**
+     * Gets the type of a lane.
+     * @param lane The index of the lane.
+     * @return The lane's type.
+     */
+    public String getLaneType(int lane) {
+        return laneTypes[lane];
+    }
+
+    /**
+     * Gets the x position of a lane.
+     * @param lane The index of the lane.
+     * @return The lane's x position.
+     */
+    public int getLanePosition(int lane) {
+        return lanePositions[lane];
+    }
+
+    /**
+     * Gets the number of notes of a type.
+     * @param type The type of note.
+     * @return The number of notes of that type in every lane.
+     */
+    public int getNoteCount(NoteType type) {
+        return noteCounts[type.ordinal()];
+    }
+
+    /**
+     * Gets the total number of notes.
+     * @return The number of notes in every lane.
+     */
+    public int getTotalNoteCount() {
+        int total = 0;
+        for (int count : noteCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Gets how long the chart lasts.
+     * @return The frame the last note appears on.
+     */
+    public int getDurationFrames() {
+        return durationFrames;
+    }
+
+    /**
+     * Gets the score needed to win the level.
+     * @return The winning score.
+     */
+    public int getWinScore() {
+        return winScore;
+    }
+}
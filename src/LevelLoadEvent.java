@@ -0,0 +1,66 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering the construction of a level.
+ */
+@Name("shadowdance.LevelLoad")
+@Label("Level Load")
+@Category({"ShadowDance", "Loading"})
+@Description("Building a level and its lanes and notes")
+@StackTrace(false)
+public class LevelLoadEvent extends Event {
+    private final static EventType TYPE = EventType.getEventType(LevelLoadEvent.class);
+
+    @Label("Level")
+    private int levelNumber;
+
+    @Label("Source")
+    @Description("Where the notes came from: a csv file, a loaded chart or a streamed chart")
+    private String source;
+
+    @Label("Lanes")
+    private int laneCount;
+
+    @Label("Notes")
+    private int noteCount;
+
+    /**
+     * Starts timing a level load if the event is being recorded.
+     * @return The started event, or null if no recording wants it.
+     */
+    public static LevelLoadEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+
+        LevelLoadEvent event = new LevelLoadEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finishes and commits an event started by {@link #start()}.
+     * @param event The started event, or null if none was started.
+     * @param levelNumber The number of the level.
+     * @param source Where the notes came from.
+     * @param laneCount The number of lanes loaded.
+     * @param noteCount The number of notes loaded.
+     */
+    public static void finish(LevelLoadEvent event, int levelNumber, String source, int laneCount, int noteCount) {
+        if (event == null) {
+            return;
+        }
+
+        event.levelNumber = levelNumber;
+        event.source = source;
+        event.laneCount = laneCount;
+        event.noteCount = noteCount;
+        event.commit();
+    }
+}
@@ -0,0 +1,180 @@
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prepares levels in the background so that starting one is only a handoff. Charts are read on worker threads, while
+ * images are uploaded a few at a time on the window's thread, which is the only thread allowed to create them. Apart
+ * from the worker threads, the loader must only be used from the thread which owns the window.
+ */
+public class LevelLoader {
+    private final static long UPLOAD_BUDGET_NANOS = 4_000_000;
+
+    private final LevelCatalog catalog;
+    private final TextureCache textureCache;
+    private final ExecutorService workers;
+    private final Preload[] preloads;
+
+    private static class Preload {
+        private final Future<Level> parse;
+        private Level level = null;
+        private ArrayList<String> pendingTextures = null;
+        private final HashSet<String> acquiredTextures = new HashSet<>();
+        private PreloadState state = PreloadState.PARSING;
+
+        private Preload(Future<Level> parse) {
+            this.parse = parse;
+        }
+    }
+
+    /**
+     * Creates a new loader for the levels in a catalog, which are numbered as they are in the catalog.
+     * @param catalog The catalog of levels.
+     * @param textureCache The cache to upload the levels' images into.
+     */
+    public LevelLoader(LevelCatalog catalog, TextureCache textureCache) {
+        this.catalog = catalog;
+        this.textureCache = textureCache;
+        int levelCount = catalog.size();
+        preloads = new Preload[levelCount];
+        int workerCount = Math.max(1, Math.min(levelCount, Runtime.getRuntime().availableProcessors() - 1));
+        workers = Executors.newFixedThreadPool(workerCount, task -> {
+            Thread thread = new Thread(task, "level-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts preloading a level unless it is already being preloaded. A level which failed to load is tried again.
+     * @param levelNumber The number of the level.
+     */
+    public void preload(int levelNumber) {
+        Preload preload = preloads[levelNumber - 1];
+        if (preload == null || preload.state == PreloadState.FAILED) {
+            LevelInfo info = catalog.get(levelNumber);
+            preloads[levelNumber - 1] = new Preload(workers.submit(() -> LevelCatalog.load(info, true)));
+        }
+    }
+
+    /**
+     * Drops a level's preload, such as when it is no longer shown. A level which is still being read is cancelled, and
+     * the images uploaded for it so far are released. Must be called from the thread which owns the window.
+     * @param levelNumber The number of the level.
+     */
+    public void discard(int levelNumber) {
+        Preload preload = preloads[levelNumber - 1];
+        if (preload == null) {
+            return;
+        }
+
+        preload.parse.cancel(true);
+        textureCache.release(preload.acquiredTextures);
+        preloads[levelNumber - 1] = null;
+    }
+
+    /**
+     * Starts preloading every level.
+     */
+    public void preloadAll() {
+        for (int levelNumber = 1; levelNumber <= preloads.length; levelNumber++) {
+            preload(levelNumber);
+        }
+    }
+
+    /**
+     * Gets how far along a level's preload is.
+     * @param levelNumber The number of the level.
+     * @return The preload state of the level.
+     */
+    public PreloadState getState(int levelNumber) {
+        Preload preload = preloads[levelNumber - 1];
+        return preload == null ? PreloadState.NOT_STARTED : preload.state;
+    }
+
+    /**
+     * Moves preloads along by collecting levels which have been read and uploading their images. At least one image
+     * is uploaded per call, and uploading stops once a small time budget is used up so the frame is not held up. A
+     * level with an image which cannot be loaded fails rather than stopping the game. Must be called from the thread
+     * which owns the window.
+     */
+    public void update() {
+        long start = System.nanoTime();
+        boolean uploaded = false;
+
+        for (Preload preload : preloads) {
+            if (preload == null) {
+                continue;
+            }
+
+            if (preload.state == PreloadState.PARSING && preload.parse.isDone()) {
+                collect(preload);
+            }
+
+            while (preload.state == PreloadState.UPLOADING
+                    && (!uploaded || System.nanoTime() - start < UPLOAD_BUDGET_NANOS)) {
+                ArrayList<String> pending = preload.pendingTextures;
+                if (pending.isEmpty()) {
+                    preload.pendingTextures = null;
+                    preload.state = PreloadState.READY;
+                } else {
+                    String fileName = pending.remove(pending.size() - 1);
+                    try {
+                        textureCache.acquire(fileName);
+                    } catch (RuntimeException e) {
+                        // bagel cannot load the image, such as the art for a lane type the game does not have
+                        System.err.println("Could not load " + fileName + ": " + e.getMessage());
+                        fail(preload);
+                        continue;
+                    }
+                    preload.acquiredTextures.add(fileName);
+                    uploaded = true;
+                }
+            }
+        }
+    }
+
+    // Gives up on a preload whose images could not all be loaded, releasing the ones which were.
+    private void fail(Preload preload) {
+        textureCache.release(preload.acquiredTextures);
+        preload.acquiredTextures.clear();
+        preload.pendingTextures = null;
+        preload.level = null;
+        preload.state = PreloadState.FAILED;
+    }
+
+    // Takes the level from a finished worker and queues its images for upload.
+    private void collect(Preload preload) {
+        try {
+            preload.level = preload.parse.get();
+            preload.pendingTextures = new ArrayList<>(preload.level.getTextureFileNames());
+            preload.state = PreloadState.UPLOADING;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            preload.state = PreloadState.FAILED;
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            preload.state = PreloadState.FAILED;
+        }
+    }
+
+    /**
+     * Hands over a level if it is ready, and starts preloading a fresh copy of it for the next time it is played. The
+     * level's images are already held in the texture cache and should be released once the level is discarded.
+     * @param levelNumber The number of the level.
+     * @return The ready level, or null if it is still loading or failed to load.
+     */
+    public Level take(int levelNumber) {
+        Preload preload = preloads[levelNumber - 1];
+        if (preload == null || preload.state != PreloadState.READY) {
+            return null;
+        }
+
+        preloads[levelNumber - 1] = null;
+        preload(levelNumber);
+        return preload.level;
+    }
+}
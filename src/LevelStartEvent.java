@@ -0,0 +1,57 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event covering the frame work of starting a preloaded level, from taking it from the loader to
+ * being ready to play it.
+ */
+@Name("shadowdance.LevelStart")
+@Label("Level Start")
+@Category({"ShadowDance", "Loading"})
+@Description("Taking a preloaded level and starting to play it")
+@StackTrace(false)
+public class LevelStartEvent extends Event {
+    private final static EventType TYPE = EventType.getEventType(LevelStartEvent.class);
+
+    @Label("Level")
+    @Description("The position of the level in the catalog")
+    private int levelNumber;
+
+    @Label("Name")
+    private String name;
+
+    /**
+     * Starts timing a level start if the event is being recorded.
+     * @return The started event, or null if no recording wants it.
+     */
+    public static LevelStartEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+
+        LevelStartEvent event = new LevelStartEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Finishes and commits an event started by {@link #start()}.
+     * @param event The started event, or null if none was started.
+     * @param levelNumber The position of the level in the catalog.
+     * @param name The name of the level.
+     */
+    public static void finish(LevelStartEvent event, int levelNumber, String name) {
+        if (event == null) {
+            return;
+        }
+
+        event.levelNumber = levelNumber;
+        event.name = name;
+        event.commit();
+    }
+}
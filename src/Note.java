@@ -1,5 +1,3 @@
-import bagel.Image;
-import bagel.Input;
 import bagel.Keys;
 
 /**
@@ -9,14 +7,14 @@ public class Note {
     private final static int START_HEIGHT = 100;
 
     private final int appearanceFrame;
-    private final Image image;
+    private final String imageFileName;
     private int height;
     private boolean active = false;
     private boolean completed = false;
 
     protected Note(int appearanceFrame, String imageFileName, int startHeight) {
         this.appearanceFrame = appearanceFrame;
-        image = new Image(imageFileName);
+        this.imageFileName = imageFileName;
         height = startHeight;
     }
 
@@ -33,6 +31,30 @@ public class Note {
         return active;
     }
 
+    /**
+     * Gets the frame which the note appears on.
+     * @return The note's appearance frame.
+     */
+    public int getAppearanceFrame() {
+        return appearanceFrame;
+    }
+
+    /**
+     * Gets the type of the note.
+     * @return The note's type.
+     */
+    public NoteType getType() {
+        return NoteType.NORMAL;
+    }
+
+    /**
+     * Gets the file name of the image used to draw the note.
+     * @return The note's image file name.
+     */
+    public String getImageFileName() {
+        return imageFileName;
+    }
+
     /**
      * Gets the y position of the note.
      * @return The y position of the note.
@@ -59,18 +81,19 @@ public class Note {
 
     /**
      * Evaluates the score of the note. Ran every frame.
-     * @param input The bagel input object.
+     * @param input The controls for this frame.
      * @param lane The lane which the note is contained in.
      * @param targetHeight The height of the target note.
      * @param key The key which must be pressed to trigger the note.
      * @return The score given for the note.
      */
-    public int checkScore(Input input, Lane lane, int targetHeight, Keys key) {
+    public int checkScore(Controls input, Lane lane, int targetHeight, Keys key) {
         if (!active) {
             return Accuracy.NOT_SCORED;
         }
 
-        int score = Accuracy.evaluateScore(height, targetHeight, input.wasPressed(key));
+        int score = lane.getLevel().getAccuracy().evaluateScore(height, targetHeight, input.wasPressed(key),
+                input.getPressLag(key) * lane.getLastFallSpeed(), lane.getType());
         if (score != Accuracy.NOT_SCORED) {
             deactivate();
         }
@@ -81,16 +104,19 @@ public class Note {
     /**
      * Draw the note's image.
      * @param x The x coordinate of the note.
+     * @param offsetY How far to move the note down from its current position when drawing it.
+     * @param sprites The batch to add the note's sprite to.
      */
-    public void draw(int x) {
+    public void draw(int x, double offsetY, SpriteBatch sprites) {
         if (active) {
-            image.draw(x, height);
+            sprites.add(Level.NOTE_LAYER, imageFileName, x, height + offsetY);
         }
     }
 
     /**
      * Called every frame to simulate the note falling and check if the note should be visible.
      * @param currentFrame The current frame number of the level.
+     * @param fallSpeed The distance the note falls this frame.
      */
     public void update(int currentFrame, int fallSpeed) {
         if (active) {
@@ -0,0 +1,134 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform grid over the notes currently on screen, so that anything which collides with notes only checks the notes
+ * in the cells around it rather than every visible note in every lane. The grid is rebuilt every frame into arrays
+ * which are kept between frames, so rebuilding it does not allocate once the arrays are large enough.
+ */
+public class NoteGrid {
+    private final static int INITIAL_CAPACITY = 64;
+
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStarts;
+    private Lane[] lanes = new Lane[INITIAL_CAPACITY];
+    private int[] notes = new int[INITIAL_CAPACITY];
+    private int[] cells = new int[INITIAL_CAPACITY];
+    private Lane[] sortedLanes = new Lane[INITIAL_CAPACITY];
+    private int[] sortedNotes = new int[INITIAL_CAPACITY];
+    private int[] sortedX = new int[INITIAL_CAPACITY];
+    private int[] sortedY = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Creates a new grid covering an area of the screen. Notes outside of the area are kept in the cells along its
+     * edge, so they are still found, just less efficiently.
+     * @param cellSize The width and height of each cell, which should be at least the largest collision range.
+     * @param width The width of the area to cover.
+     * @param height The height of the area to cover.
+     */
+    public NoteGrid(int cellSize, int width, int height) {
+        this.cellSize = cellSize;
+        columns = width / cellSize + 1;
+        rows = height / cellSize + 1;
+        cellStarts = new int[columns * rows + 1];
+    }
+
+    // Finds the cell a point belongs to along one axis, keeping points outside the grid in its edge cells.
+    private int cellIndex(int position, int count) {
+        return Math.max(0, Math.min(count - 1, Math.floorDiv(position, cellSize)));
+    }
+
+    // Makes sure the grid can hold a number of notes.
+    private void ensureCapacity(int capacity) {
+        if (capacity <= lanes.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, lanes.length * 2);
+        lanes = new Lane[newCapacity];
+        notes = new int[newCapacity];
+        cells = new int[newCapacity];
+        sortedLanes = new Lane[newCapacity];
+        sortedNotes = new int[newCapacity];
+        sortedX = new int[newCapacity];
+        sortedY = new int[newCapacity];
+    }
+
+    /**
+     * Rebuilds the grid from the visible notes of a single type.
+     * @param laneList The lanes to take notes from.
+     * @param noteType The type of note to include.
+     */
+    public void build(List<Lane> laneList, NoteType noteType) {
+        int count = 0;
+        for (int l = 0; l < laneList.size(); l++) {
+            Lane lane = laneList.get(l);
+            count += lane.getVisibleNotesEnd() - lane.getFirstVisibleNote();
+        }
+        ensureCapacity(count);
+
+        // Collect the notes and count how many fall into each cell.
+        Arrays.fill(cellStarts, 0);
+        size = 0;
+        for (int l = 0; l < laneList.size(); l++) {
+            Lane lane = laneList.get(l);
+            int column = cellIndex(lane.getPositionX(), columns);
+            for (int i = lane.getFirstVisibleNote(); i < lane.getVisibleNotesEnd(); i++) {
+                if (!lane.isNoteVisible(i) || lane.getNoteType(i) != noteType) {
+                    continue;
+                }
+
+                int cell = cellIndex(lane.getNoteHeight(i), rows) * columns + column;
+                lanes[size] = lane;
+                notes[size] = i;
+                cells[size] = cell;
+                cellStarts[cell]++;
+                size++;
+            }
+        }
+
+        // Turn the counts into the end of each cell, then fill each cell backwards so its entry becomes its start.
+        int cellCount = columns * rows;
+        for (int cell = 1; cell < cellCount; cell++) {
+            cellStarts[cell] += cellStarts[cell - 1];
+        }
+        cellStarts[cellCount] = size;
+
+        for (int i = size - 1; i >= 0; i--) {
+            int slot = --cellStarts[cells[i]];
+            sortedLanes[slot] = lanes[i];
+            sortedNotes[slot] = notes[i];
+            sortedX[slot] = lanes[i].getPositionX();
+            sortedY[slot] = lanes[i].getNoteHeight(notes[i]);
+        }
+    }
+
+    /**
+     * Deactivates every note in the grid which is within a distance of a point and is still visible.
+     * @param x The x position of the point.
+     * @param y The y position of the point.
+     * @param range The largest distance at which a note is deactivated, which must not be more than the cell size.
+     */
+    public void deactivateWithin(int x, int y, int range) {
+        int rangeSquared = range * range;
+        int column = cellIndex(x, columns);
+        int row = cellIndex(y, rows);
+
+        for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+            int firstCell = r * columns + Math.max(0, column - 1);
+            int lastCell = r * columns + Math.min(columns - 1, column + 1);
+
+            // Cells next to each other in a row are stored next to each other, so they can be scanned in one go.
+            for (int i = cellStarts[firstCell]; i < cellStarts[lastCell + 1]; i++) {
+                int dx = sortedX[i] - x;
+                int dy = sortedY[i] - y;
+                if (dx * dx + dy * dy <= rangeSquared && sortedLanes[i].isNoteVisible(sortedNotes[i])) {
+                    sortedLanes[i].deactivateNote(sortedNotes[i]);
+                }
+            }
+        }
+    }
+}
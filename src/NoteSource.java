@@ -0,0 +1,28 @@
+/**
+ * A sequence of notes for a single lane, read in order of appearance. Used to stream notes into a lane a little ahead
+ * of when they are needed instead of loading the whole chart up front.
+ */
+public interface NoteSource {
+    /**
+     * Gets the number of notes which have not been read yet.
+     * @return The number of remaining notes.
+     */
+    int remaining();
+
+    /**
+     * Gets the appearance frame of the next note without reading it.
+     * @return The next note's appearance frame.
+     */
+    int peekFrame();
+
+    /**
+     * Gets the type of the next note without reading it.
+     * @return The next note's type.
+     */
+    NoteType peekType();
+
+    /**
+     * Moves on to the following note.
+     */
+    void advance();
+}
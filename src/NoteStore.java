@@ -0,0 +1,120 @@
+import bagel.Keys;
+
+import java.util.Set;
+
+/**
+ * Storage for the notes of a single lane, addressed by index in the order the notes appear. The lane decides which
+ * notes are updated, scored and drawn; the store only holds their state.
+ */
+public interface NoteStore {
+    /**
+     * Gets the number of notes in the store.
+     * @return The number of notes.
+     */
+    int size();
+
+    /**
+     * Makes room for a number of notes ahead of time, so that loading a large chart does not repeatedly grow the store.
+     * @param capacity The number of notes the store should be able to hold.
+     */
+    void ensureCapacity(int capacity);
+
+    /**
+     * Called at the start of every frame before any notes are touched. Stores which stream their notes use this to
+     * read the notes which will appear soon.
+     * @param currentFrame The current frame number of the level.
+     */
+    default void advanceTo(int currentFrame) {
+    }
+
+    /**
+     * Tells the store that notes before an index will not be used again, so stores which stream their notes can
+     * drop them.
+     * @param index The index of the first note which is still needed.
+     */
+    default void release(int index) {
+    }
+
+    /**
+     * Inserts a new note.
+     * @param index The index to insert the note at.
+     * @param type The type of the note.
+     * @param appearanceFrame The frame which the note appears on.
+     */
+    void insert(int index, NoteType type, int appearanceFrame);
+
+    /**
+     * Gets the frame which a note appears on.
+     * @param index The index of the note.
+     * @return The note's appearance frame.
+     */
+    int getAppearanceFrame(int index);
+
+    /**
+     * Gets the type of a note.
+     * @param index The index of the note.
+     * @return The note's type.
+     */
+    NoteType getType(int index);
+
+    /**
+     * Gets the y position of a note.
+     * @param index The index of the note.
+     * @return The note's y position.
+     */
+    int getHeight(int index);
+
+    /**
+     * Determines whether a note is visible and falling.
+     * @param index The index of the note.
+     * @return Whether the note is active.
+     */
+    boolean isActive(int index);
+
+    /**
+     * Determines whether a note has already been scored or removed.
+     * @param index The index of the note.
+     * @return Whether the note is completed.
+     */
+    boolean isCompleted(int index);
+
+    /**
+     * Deactivates a note making it no longer visible.
+     * @param index The index of the note.
+     */
+    void deactivate(int index);
+
+    /**
+     * Moves a note and makes it visible once it is due, as in {@link Note#update(int, int)}.
+     * @param index The index of the note.
+     * @param currentFrame The current frame number of the level.
+     * @param fallSpeed The distance the note falls this frame.
+     */
+    void update(int index, int currentFrame, int fallSpeed);
+
+    /**
+     * Evaluates the score of a note, as in {@link Note#checkScore(Controls, Lane, int, Keys)}.
+     * @param index The index of the note.
+     * @param input The controls for this frame.
+     * @param lane The lane which the note is contained in.
+     * @param targetHeight The height of the target note.
+     * @param key The key which must be pressed to trigger the note.
+     * @return The score given for the note.
+     */
+    int checkScore(int index, Controls input, Lane lane, int targetHeight, Keys key);
+
+    /**
+     * Adds the file names of every image needed to draw the notes to a set.
+     * @param fileNames The set to add the file names to.
+     */
+    void addTextures(Set<String> fileNames);
+
+    /**
+     * Draws a note if it is visible.
+     * @param index The index of the note.
+     * @param x The x coordinate of the note.
+     * @param offsetY How far to move the note down from its current position when drawing it.
+     * @param sprites The batch to add the note's sprite to.
+     */
+    void draw(int index, int x, double offsetY, SpriteBatch sprites);
+}
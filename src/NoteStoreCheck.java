@@ -0,0 +1,197 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks that packed notes play exactly as note objects do, since {@link PackedNoteStore} has its own copy of the
+ * scoring rules of {@link Note}, {@link HoldNote} and {@link SpecialNote}. Every catalogued chart is played three ways
+ * side by side, with note objects, with packed notes and with notes streamed from a compiled chart, all given the same
+ * timestamped key presses. After every step the score, the result, the level's state and every visible note of every
+ * lane must be the same. Exits with a non-zero status if any chart differs, so it can be run as part of a build.
+ */
+public final class NoteStoreCheck {
+    private final static String[] STORES = {"object", "packed", "streamed"};
+    private final static int SEEDS_PER_CHART = 20;
+    private final static int MAX_STEPS = 20_000;
+    private final static long STEP_NANOS = 1_000_000_000L / SimulationClock.DEFAULT_STEPS_PER_SECOND;
+    private final static int QUEUE_CAPACITY = 256;
+    private final static double AIM_SPREAD = 60;
+    private final static double STRAY_CHANCE = 0.01;
+    private final static double FIRE_CHANCE = 0.05;
+    private final static int MAX_HOLD_STEPS = 60;
+
+    // Describes the first way a level differs from the one played with note objects, or returns null if it does not.
+    private static String compare(Level expected, Level actual) {
+        if (actual.getTotalScore() != expected.getTotalScore()) {
+            return "score " + actual.getTotalScore() + ", expected " + expected.getTotalScore();
+        }
+        if (actual.isFinished() != expected.isFinished() || actual.didWin() != expected.didWin()) {
+            return (actual.isFinished() ? "finished" : "playing") + (actual.didWin() ? " and won" : "");
+        }
+        if (actual.getFallSpeed() != expected.getFallSpeed()) {
+            return "fall speed " + actual.getFallSpeed() + ", expected " + expected.getFallSpeed();
+        }
+        if (actual.getEnemyCount() != expected.getEnemyCount()) {
+            return actual.getEnemyCount() + " enemies, expected " + expected.getEnemyCount();
+        }
+
+        for (int i = 0; i < expected.getLanes().size(); i++) {
+            Lane expectedLane = expected.getLanes().get(i);
+            Lane actualLane = actual.getLanes().get(i);
+            if (actualLane.getFirstVisibleNote() != expectedLane.getFirstVisibleNote()
+                    || actualLane.getVisibleNotesEnd() != expectedLane.getVisibleNotesEnd()) {
+                return String.format("lane %d shows notes %d to %d, expected %d to %d", i,
+                        actualLane.getFirstVisibleNote(), actualLane.getVisibleNotesEnd(),
+                        expectedLane.getFirstVisibleNote(), expectedLane.getVisibleNotesEnd());
+            }
+
+            for (int note = expectedLane.getFirstVisibleNote(); note < expectedLane.getVisibleNotesEnd(); note++) {
+                boolean visible = expectedLane.isNoteVisible(note);
+                if (actualLane.isNoteVisible(note) != visible || actualLane.getNoteType(note)
+                        != expectedLane.getNoteType(note) || visible && actualLane.getNoteHeight(note)
+                        != expectedLane.getNoteHeight(note)) {
+                    return String.format("lane %d note %d is a %s %s at %d, expected a %s %s at %d", i, note,
+                            actualLane.isNoteVisible(note) ? "visible" : "hidden", actualLane.getNoteType(note),
+                            actualLane.getNoteHeight(note), visible ? "visible" : "hidden",
+                            expectedLane.getNoteType(note), expectedLane.getNoteHeight(note));
+                }
+            }
+        }
+
+        return null;
+    }
+
+    // Finds the key of each lane, or null for keys which do not belong to a lane, such as the key which fires.
+    private static Lane[] findLanes(Level level, KeySet keys) {
+        Lane[] lanes = new Lane[keys.size()];
+        for (Lane lane : level.getLanes()) {
+            lanes[keys.indexOf(Lane.getKey(lane.getType()))] = lane;
+        }
+
+        return lanes;
+    }
+
+    // Plays a chart every way, returning whether they all played the same. Each lane's key is pressed as its next note
+    // reaches the target, give or take a random error, so every judgement is made, along with stray presses.
+    private static boolean check(LevelInfo info, long seed, Path compiled) throws IOException {
+        Chart chart = LevelCatalog.readChart(Paths.get(info.getFileName()));
+        ChartFile.write(chart, compiled);
+
+        Level[] levels = {
+            new Level(info.getLevelNumber(), chart, false),
+            new Level(info.getLevelNumber(), chart, true),
+            new Level(info.getLevelNumber(), ChartFile.stream(compiled))
+        };
+        for (Level level : levels) {
+            level.setWinScore(info.getWinScore());
+            level.setRandomSeed(seed);
+        }
+
+        KeyEventQueue events = new KeyEventQueue(QUEUE_CAPACITY);
+        LatchedControls controls = new LatchedControls();
+        controls.useTimestamps(events);
+        KeySet keys = levels[0].getKeys();
+        Lane[] lanes = findLanes(levels[0], keys);
+
+        Random random = new Random(seed);
+        long[] releaseTimes = new long[keys.size()];
+        boolean[] held = new boolean[keys.size()];
+        int[] aimedNotes = new int[keys.size()];
+        double[] pressErrors = new double[keys.size()];
+        int[] pressedNotes = new int[keys.size()];
+        Arrays.fill(aimedNotes, -1);
+        Arrays.fill(pressedNotes, -1);
+        int steps = 0;
+
+        while (!levels[0].isFinished() && steps < MAX_STEPS) {
+            long stepStart = steps * STEP_NANOS;
+            steps++;
+            long stepTime = steps * STEP_NANOS;
+
+            // Each key changes at most once a step, at its own point in the step, so the events stay in time order.
+            for (int i = 0; i < keys.size(); i++) {
+                long time = stepStart + STEP_NANOS * (i + 1) / (keys.size() + 1);
+                Lane lane = lanes[i];
+                int note = lane == null ? -1 : lane.getFirstVisibleNote();
+                boolean aiming = note >= 0 && note < lane.getVisibleNotesEnd() && lane.isNoteVisible(note)
+                        && note != pressedNotes[i];
+                if (aiming && note != aimedNotes[i]) {
+                    aimedNotes[i] = note;
+                    pressErrors[i] = random.nextGaussian() * AIM_SPREAD;
+                }
+
+                boolean hold = aiming && lane.getNoteType(note) == NoteType.HOLD;
+                int edge = aiming ? lane.getNoteHeight(note) + (hold ? HoldNote.HEIGHT_OFFSET : 0) : 0;
+                if (held[i]) {
+                    if (releaseTimes[i] <= stepTime) {
+                        events.offer(keys.get(i), false, time);
+                        held[i] = false;
+                    }
+                } else if (aiming && edge + pressErrors[i] >= Lane.TARGET_HEIGHT) {
+                    // A hold is let go once its top end should have fallen to the target, give or take an error
+                    double holdDistance = hold ? 2 * HoldNote.HEIGHT_OFFSET + random.nextGaussian() * AIM_SPREAD : 0;
+                    int holdSteps = Math.max(1, (int) (holdDistance / Math.max(1, levels[0].getFallSpeed())));
+                    events.offer(keys.get(i), true, time);
+                    releaseTimes[i] = time + holdSteps * STEP_NANOS;
+                    held[i] = true;
+                    pressedNotes[i] = note;
+                } else if (random.nextDouble() < (lane == null ? FIRE_CHANCE : STRAY_CHANCE)) {
+                    events.offer(keys.get(i), true, time);
+                    releaseTimes[i] = time + (1 + random.nextInt(MAX_HOLD_STEPS)) * STEP_NANOS;
+                    held[i] = true;
+                }
+            }
+
+            controls.beginStep(stepTime, STEP_NANOS);
+            for (Level level : levels) {
+                level.update(controls);
+            }
+            controls.consume();
+
+            for (int i = 1; i < levels.length; i++) {
+                String difference = compare(levels[0], levels[i]);
+                if (difference != null) {
+                    System.out.printf("%s with seed %d: %s notes differ on step %d: %s%n", info.getName(), seed,
+                            STORES[i], steps, difference);
+                    return false;
+                }
+            }
+        }
+
+        System.out.printf("%s with seed %d: %d steps, score %d, %s: every store matches%n", info.getName(), seed,
+                steps, levels[0].getTotalScore(), levels[0].didWin() ? "won" : "lost");
+        return true;
+    }
+
+    /**
+     * Runs the check on every chart in the level catalog.
+     * @param args Command line arguments (not used).
+     * @throws IOException If the charts could not be found, read or compiled.
+     */
+    public static void main(String[] args) throws IOException {
+        LevelCatalog catalog = LevelCatalog.open(Paths.get(LevelCatalog.DEFAULT_DIRECTORY),
+                Paths.get(LevelCatalog.DEFAULT_INDEX_FILE), false);
+        Path compiled = Files.createTempFile("check", ChartFile.EXTENSION);
+
+        int failures = 0;
+        try {
+            for (int number = 1; number <= catalog.size(); number++) {
+                LevelInfo info = catalog.get(number);
+                for (int seed = 0; seed < SEEDS_PER_CHART; seed++) {
+                    failures += check(info, info.getContentHash() + seed, compiled) ? 0 : 1;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(compiled);
+        }
+
+        if (failures > 0) {
+            System.out.printf("FAILED: packed notes played differently from note objects in %d plays%n", failures);
+            System.exit(1);
+        }
+        System.out.println("OK: packed and streamed notes play exactly as note objects do");
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * The kinds of note which can appear in a chart. Used as a tag so that notes can be told apart without checking their
+ * class, and so that notes can be stored without an object per note.
+ */
+public enum NoteType {
+    NORMAL("Normal"),
+    HOLD("Hold"),
+    BOMB("Bomb"),
+    DOUBLE_SCORE("DoubleScore"),
+    SPEED_UP("SpeedUp"),
+    SLOW_DOWN("SlowDown");
+
+    private final String name;
+
+    NoteType(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name used for this type of note in chart files.
+     * @return The chart name of the note type.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Finds a note type from its name in a chart file.
+     * @param name The chart name of the note type.
+     * @return The note type, or null if there is no note type with that name.
+     */
+    public static NoteType fromName(String name) {
+        for (NoteType type : values()) {
+            if (type.name.equals(name)) {
+                return type;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Determines whether notes of this type belong in a type of lane. Speed up, slow down and double score notes go in
+     * the special lane, normal and hold notes go in every other lane and bombs can go in any lane.
+     * @param laneType The type of the lane.
+     * @return Whether the note type belongs in the lane.
+     */
+    public boolean belongsIn(String laneType) {
+        switch (this) {
+            case BOMB:
+                return true;
+            case NORMAL:
+            case HOLD:
+                return !laneType.equals("Special");
+            default:
+                return laneType.equals("Special");
+        }
+    }
+
+    /**
+     * Creates a note of this type.
+     * @param appearanceFrame The frame which the note appears on.
+     * @param laneType The type of the lane the note is in, which decides the image of normal and hold notes.
+     * @return The new note.
+     */
+    public Note create(int appearanceFrame, String laneType) {
+        switch (this) {
+            case HOLD:
+                return new HoldNote(appearanceFrame, "res/holdNote" + laneType + ".png");
+            case BOMB:
+                return new BombNote(appearanceFrame);
+            case DOUBLE_SCORE:
+                return new DoubleScoreNote(appearanceFrame);
+            case SPEED_UP:
+                return new SpeedUpNote(appearanceFrame);
+            case SLOW_DOWN:
+                return new SlowDownNote(appearanceFrame);
+            default:
+                return new Note(appearanceFrame, "res/note" + laneType + ".png");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.nio.ByteBuffer;
+import java.util.function.LongSupplier;
+
+/**
+ * A sink which plays nothing but keeps time as if it were a sound device, so audio timing works without one. It holds
+ * as many chunks as the OpenAL sink, consumes them at the stream's sample rate and stalls when it runs out, just like
+ * a real device. The time can come from a fake clock so that streaming can be checked headless.
+ */
+public class NullAudioSink implements AudioSink {
+    private final static int BUFFER_COUNT = 4;
+    private final static long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final LongSupplier clock;
+    private final long[] bufferEnds = new long[BUFFER_COUNT];
+    private int sampleRate = 1;
+    private int frameSize = 1;
+    private int queuedBuffers = 0;
+    private int finishedBuffers = 0;
+    private long queuedFrames = 0;
+    private long playedFrames = 0;
+    private long anchorFrames = 0;
+    private long anchorTime = 0;
+    private boolean playing = false;
+
+    /**
+     * Creates a sink which keeps time with {@link System#nanoTime()}.
+     */
+    public NullAudioSink() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Creates a sink which keeps time with a given clock.
+     * @param clock The current time in nanoseconds.
+     */
+    public NullAudioSink(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public void open(int sampleRate, int channels, int bitsPerSample) {
+        stop();
+        this.sampleRate = sampleRate;
+        frameSize = channels * bitsPerSample / 8;
+    }
+
+    // Plays up to the current time, stalling at the end of the queued chunks, and frees the chunks which were played.
+    private void advance() {
+        if (!playing) {
+            return;
+        }
+
+        // Playing is measured from when the sink last started or stalled, so rounding never builds up.
+        long now = clock.getAsLong();
+        playedFrames = anchorFrames + (now - anchorTime) * sampleRate / NANOS_PER_SECOND;
+        if (playedFrames >= queuedFrames) {
+            playedFrames = queuedFrames;
+            anchorFrames = queuedFrames;
+            anchorTime = now;
+        }
+
+        while (finishedBuffers < queuedBuffers && bufferEnds[finishedBuffers % BUFFER_COUNT] <= playedFrames) {
+            finishedBuffers++;
+        }
+    }
+
+    @Override
+    public boolean canQueue() {
+        advance();
+        return queuedBuffers - finishedBuffers < BUFFER_COUNT;
+    }
+
+    @Override
+    public void queue(ByteBuffer samples) {
+        advance();
+        queuedFrames += samples.remaining() / frameSize;
+        bufferEnds[queuedBuffers % BUFFER_COUNT] = queuedFrames;
+        queuedBuffers++;
+        samples.position(samples.limit());
+    }
+
+    @Override
+    public void play() {
+        if (!playing) {
+            playing = true;
+            anchorFrames = playedFrames;
+            anchorTime = clock.getAsLong();
+        }
+    }
+
+    @Override
+    public void stop() {
+        playing = false;
+        queuedBuffers = 0;
+        finishedBuffers = 0;
+        queuedFrames = 0;
+        playedFrames = 0;
+    }
+
+    @Override
+    public long getPlayedFrames() {
+        advance();
+        return playedFrames;
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+}
@@ -0,0 +1,87 @@
+import bagel.Keys;
+
+import java.util.ArrayList;
+import java.util.Set;
+
+/**
+ * Stores a lane's notes as note objects.
+ */
+public class ObjectNoteStore implements NoteStore {
+    private final String laneType;
+    private final ArrayList<Note> notes = new ArrayList<>();
+
+    /**
+     * Creates an empty store for a lane.
+     * @param laneType The type of the lane, which decides the images of its notes.
+     */
+    public ObjectNoteStore(String laneType) {
+        this.laneType = laneType;
+    }
+
+    @Override
+    public int size() {
+        return notes.size();
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        notes.ensureCapacity(capacity);
+    }
+
+    @Override
+    public void insert(int index, NoteType type, int appearanceFrame) {
+        notes.add(index, type.create(appearanceFrame, laneType));
+    }
+
+    @Override
+    public int getAppearanceFrame(int index) {
+        return notes.get(index).getAppearanceFrame();
+    }
+
+    @Override
+    public NoteType getType(int index) {
+        return notes.get(index).getType();
+    }
+
+    @Override
+    public int getHeight(int index) {
+        return notes.get(index).getHeight();
+    }
+
+    @Override
+    public boolean isActive(int index) {
+        return notes.get(index).isActive();
+    }
+
+    @Override
+    public boolean isCompleted(int index) {
+        return notes.get(index).isCompleted();
+    }
+
+    @Override
+    public void deactivate(int index) {
+        notes.get(index).deactivate();
+    }
+
+    @Override
+    public void update(int index, int currentFrame, int fallSpeed) {
+        notes.get(index).update(currentFrame, fallSpeed);
+    }
+
+    @Override
+    public int checkScore(int index, Controls input, Lane lane, int targetHeight, Keys key) {
+        return notes.get(index).checkScore(input, lane, targetHeight, key);
+    }
+
+    @Override
+    public void addTextures(Set<String> fileNames) {
+        for (Note note : notes) {
+            fileNames.add(note.getImageFileName());
+        }
+    }
+
+    @Override
+    public void draw(int index, int x, double offsetY, SpriteBatch sprites) {
+        notes.get(index).draw(x, offsetY, sprites);
+    }
+}
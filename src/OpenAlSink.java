@@ -0,0 +1,138 @@
+import org.lwjgl.openal.AL;
+import org.lwjgl.openal.AL10;
+import org.lwjgl.openal.AL11;
+import org.lwjgl.openal.ALC;
+import org.lwjgl.openal.ALC10;
+import org.lwjgl.openal.ALCCapabilities;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Plays audio through OpenAL by queueing chunks on a streaming source. A few buffers are cycled: once the source has
+ * played a buffer it is taken off the queue and refilled with the next chunk. The device stays open between tracks.
+ */
+public class OpenAlSink implements AudioSink {
+    private final static int BUFFER_COUNT = 4;
+
+    private final long device;
+    private final long context;
+    private final int source;
+    private final int[] freeBuffers = new int[BUFFER_COUNT];
+    private final int[] queuedFrameCounts = new int[BUFFER_COUNT];
+    private int freeBufferCount = 0;
+    private int queuedBuffers = 0;
+    private int finishedBuffers = 0;
+    private int format = AL10.AL_FORMAT_MONO16;
+    private int sampleRate = 1;
+    private int frameSize = 1;
+    private long finishedFrames = 0;
+    private boolean playing = false;
+
+    /**
+     * Opens the default sound device.
+     * @throws IllegalStateException If there is no sound device.
+     */
+    public OpenAlSink() {
+        device = ALC10.alcOpenDevice((ByteBuffer) null);
+        if (device == 0) {
+            throw new IllegalStateException("No sound device could be opened");
+        }
+
+        ALCCapabilities capabilities = ALC.createCapabilities(device);
+        context = ALC10.alcCreateContext(device, (IntBuffer) null);
+        if (context == 0 || !ALC10.alcMakeContextCurrent(context)) {
+            ALC10.alcCloseDevice(device);
+            throw new IllegalStateException("No OpenAL context could be created");
+        }
+        AL.createCapabilities(capabilities);
+
+        source = AL10.alGenSources();
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            freeBuffers[freeBufferCount++] = AL10.alGenBuffers();
+        }
+    }
+
+    @Override
+    public void open(int sampleRate, int channels, int bitsPerSample) {
+        stop();
+        this.sampleRate = sampleRate;
+        frameSize = channels * bitsPerSample / 8;
+        if (channels == 1) {
+            format = bitsPerSample == 8 ? AL10.AL_FORMAT_MONO8 : AL10.AL_FORMAT_MONO16;
+        } else {
+            format = bitsPerSample == 8 ? AL10.AL_FORMAT_STEREO8 : AL10.AL_FORMAT_STEREO16;
+        }
+    }
+
+    // Takes the buffers the source has finished playing off its queue so they can be refilled.
+    private void reclaimBuffers() {
+        int processed = AL10.alGetSourcei(source, AL10.AL_BUFFERS_PROCESSED);
+        for (int i = 0; i < processed; i++) {
+            freeBuffers[freeBufferCount++] = AL10.alSourceUnqueueBuffers(source);
+            finishedFrames += queuedFrameCounts[finishedBuffers % BUFFER_COUNT];
+            finishedBuffers++;
+        }
+    }
+
+    @Override
+    public boolean canQueue() {
+        reclaimBuffers();
+        return freeBufferCount > 0;
+    }
+
+    @Override
+    public void queue(ByteBuffer samples) {
+        int buffer = freeBuffers[--freeBufferCount];
+        queuedFrameCounts[queuedBuffers % BUFFER_COUNT] = samples.remaining() / frameSize;
+        queuedBuffers++;
+        AL10.alBufferData(buffer, format, samples, sampleRate);
+        AL10.alSourceQueueBuffers(source, buffer);
+        samples.position(samples.limit());
+
+        // A source which ran out of samples has stopped, so it is restarted now that it has more.
+        if (playing && AL10.alGetSourcei(source, AL10.AL_SOURCE_STATE) != AL10.AL_PLAYING) {
+            AL10.alSourcePlay(source);
+        }
+    }
+
+    @Override
+    public void play() {
+        playing = true;
+        AL10.alSourcePlay(source);
+    }
+
+    @Override
+    public void stop() {
+        playing = false;
+        AL10.alSourceStop(source);
+        reclaimBuffers();
+        queuedBuffers = 0;
+        finishedBuffers = 0;
+        finishedFrames = 0;
+    }
+
+    @Override
+    public long getPlayedFrames() {
+        // A buffer can finish between reading the offset and the finished buffers, so read until they agree.
+        while (true) {
+            reclaimBuffers();
+            int offset = AL10.alGetSourcei(source, AL11.AL_SAMPLE_OFFSET);
+            if (AL10.alGetSourcei(source, AL10.AL_BUFFERS_PROCESSED) == 0) {
+                return finishedFrames + offset;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        AL10.alDeleteSources(source);
+        for (int i = 0; i < freeBufferCount; i++) {
+            AL10.alDeleteBuffers(freeBuffers[i]);
+        }
+        ALC10.alcMakeContextCurrent(0);
+        ALC10.alcDestroyContext(context);
+        ALC10.alcCloseDevice(device);
+    }
+}
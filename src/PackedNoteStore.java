@@ -0,0 +1,273 @@
+import bagel.Keys;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Stores a lane's notes in primitive columns instead of one object per note, using about ten bytes per note. The
+ * scoring rules mirror {@link Note}, {@link HoldNote} and {@link SpecialNote}, and are picked by the note's type tag;
+ * {@link NoteStoreCheck} plays both kinds of store side by side to keep them the same. Special note effects are
+ * delegated to one shared note of each type.
+ * <p>
+ * A store can also stream its notes from a {@link NoteSource}. It then only holds the notes from the oldest one the
+ * lane still needs up to a fixed number of frames ahead of the current frame, so memory use does not grow with the
+ * length of the chart.
+ */
+public class PackedNoteStore implements NoteStore {
+    private final static int INITIAL_CAPACITY = 16;
+    private final static byte ACTIVE = 1;
+    private final static byte COMPLETED = 2;
+    private final static byte PRESSED = 4;
+    private final static NoteType[] TYPES = NoteType.values();
+
+    private final Note[] prototypes = new Note[TYPES.length];
+    private final String[] imageFileNames = new String[TYPES.length];
+    private final boolean[] typesPresent = new boolean[TYPES.length];
+    private final NoteSource source;
+    private final int lookAheadFrames;
+    private int[] appearanceFrames = new int[INITIAL_CAPACITY];
+    private int[] heights = new int[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int first = 0;
+    private int count = 0;
+    private int released = 0;
+
+    /**
+     * Creates an empty store for a lane.
+     * @param laneType The type of the lane, which decides the images of its notes.
+     */
+    public PackedNoteStore(String laneType) {
+        this(laneType, null, 0);
+    }
+
+    /**
+     * Creates a store which streams a lane's notes from a source.
+     * @param laneType The type of the lane, which decides the images of its notes.
+     * @param source The source to read notes from, in order of appearance.
+     * @param lookAheadFrames How many frames before its appearance a note is read from the source.
+     */
+    public PackedNoteStore(String laneType, NoteSource source, int lookAheadFrames) {
+        this.source = source;
+        this.lookAheadFrames = lookAheadFrames;
+
+        for (NoteType type : TYPES) {
+            prototypes[type.ordinal()] = type.create(0, laneType);
+            imageFileNames[type.ordinal()] = prototypes[type.ordinal()].getImageFileName();
+            // The types in a streamed lane are not known up front, so expect every type which belongs in the lane. A
+            // note which does not belong has its image loaded when it is first drawn.
+            typesPresent[type.ordinal()] = source != null && type.belongsIn(laneType);
+        }
+    }
+
+    // Gets the slot in the columns which holds a note, reading notes from the source if it has not been read yet.
+    // Reading can drop released notes from the front of the columns, so the slot is worked out again after each read.
+    private int slot(int index) {
+        while (index - first >= count) {
+            read();
+        }
+
+        return index - first;
+    }
+
+    // Reads the next note from the source into the columns.
+    private void read() {
+        if (count == appearanceFrames.length) {
+            makeRoom();
+        }
+
+        NoteType type = source.peekType();
+        appearanceFrames[count] = source.peekFrame();
+        heights[count] = prototypes[type.ordinal()].getHeight();
+        types[count] = (byte) type.ordinal();
+        flags[count] = 0;
+        count++;
+        source.advance();
+    }
+
+    // Drops released notes if that frees at least half the columns, otherwise grows them.
+    private void makeRoom() {
+        int drop = released - first;
+        if (drop * 2 < count) {
+            ensureCapacity(count * 2);
+            return;
+        }
+
+        count -= drop;
+        System.arraycopy(appearanceFrames, drop, appearanceFrames, 0, count);
+        System.arraycopy(heights, drop, heights, 0, count);
+        System.arraycopy(types, drop, types, 0, count);
+        System.arraycopy(flags, drop, flags, 0, count);
+        first = released;
+    }
+
+    @Override
+    public int size() {
+        return first + count + (source == null ? 0 : source.remaining());
+    }
+
+    @Override
+    public void ensureCapacity(int capacity) {
+        if (capacity > appearanceFrames.length) {
+            appearanceFrames = Arrays.copyOf(appearanceFrames, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+            types = Arrays.copyOf(types, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+    }
+
+    @Override
+    public void advanceTo(int currentFrame) {
+        if (source == null) {
+            return;
+        }
+
+        while (source.remaining() > 0 && source.peekFrame() <= currentFrame + lookAheadFrames) {
+            read();
+        }
+    }
+
+    @Override
+    public void release(int index) {
+        if (source != null && index > released) {
+            released = index;
+        }
+    }
+
+    @Override
+    public void insert(int index, NoteType type, int appearanceFrame) {
+        if (source != null) {
+            throw new IllegalStateException("Notes cannot be added to a streamed lane");
+        }
+
+        if (count == appearanceFrames.length) {
+            ensureCapacity(count * 2);
+        }
+
+        int moved = count - index;
+        System.arraycopy(appearanceFrames, index, appearanceFrames, index + 1, moved);
+        System.arraycopy(heights, index, heights, index + 1, moved);
+        System.arraycopy(types, index, types, index + 1, moved);
+        System.arraycopy(flags, index, flags, index + 1, moved);
+
+        appearanceFrames[index] = appearanceFrame;
+        heights[index] = prototypes[type.ordinal()].getHeight();
+        types[index] = (byte) type.ordinal();
+        flags[index] = 0;
+        typesPresent[type.ordinal()] = true;
+        count++;
+    }
+
+    @Override
+    public int getAppearanceFrame(int index) {
+        return appearanceFrames[slot(index)];
+    }
+
+    @Override
+    public NoteType getType(int index) {
+        return TYPES[types[slot(index)]];
+    }
+
+    @Override
+    public int getHeight(int index) {
+        return heights[slot(index)];
+    }
+
+    @Override
+    public boolean isActive(int index) {
+        return (flags[slot(index)] & ACTIVE) != 0;
+    }
+
+    @Override
+    public boolean isCompleted(int index) {
+        return (flags[slot(index)] & COMPLETED) != 0;
+    }
+
+    @Override
+    public void deactivate(int index) {
+        int slot = slot(index);
+        flags[slot] = (byte) ((flags[slot] & ~ACTIVE) | COMPLETED);
+    }
+
+    @Override
+    public void update(int index, int currentFrame, int fallSpeed) {
+        int slot = slot(index);
+        if ((flags[slot] & ACTIVE) != 0) {
+            heights[slot] += fallSpeed;
+        }
+
+        if (currentFrame >= appearanceFrames[slot] && (flags[slot] & COMPLETED) == 0) {
+            flags[slot] |= ACTIVE;
+        }
+    }
+
+    @Override
+    public int checkScore(int index, Controls input, Lane lane, int targetHeight, Keys key) {
+        int slot = slot(index);
+        if ((flags[slot] & ACTIVE) == 0) {
+            return Accuracy.NOT_SCORED;
+        }
+
+        int height = heights[slot];
+        int fallSpeed = lane.getLastFallSpeed();
+        Accuracy accuracy = lane.getLevel().getAccuracy();
+        int score;
+
+        switch (TYPES[types[slot]]) {
+            case NORMAL:
+                score = accuracy.evaluateScore(height, targetHeight, input.wasPressed(key),
+                        input.getPressLag(key) * fallSpeed, lane.getType());
+                if (score != Accuracy.NOT_SCORED) {
+                    deactivate(index);
+                }
+                return score;
+            case HOLD:
+                if ((flags[slot] & PRESSED) != 0) {
+                    score = accuracy.evaluateScore(height - HoldNote.HEIGHT_OFFSET, targetHeight,
+                            input.wasReleased(key), input.getReleaseLag(key) * fallSpeed, lane.getType());
+                    if (score != Accuracy.NOT_SCORED) {
+                        deactivate(index);
+                    }
+                } else {
+                    score = accuracy.evaluateScore(height + HoldNote.HEIGHT_OFFSET, targetHeight,
+                            input.wasPressed(key), input.getPressLag(key) * fallSpeed, lane.getType());
+                    if (score == Accuracy.MISS_SCORE) {
+                        deactivate(index);
+                    } else if (score != Accuracy.NOT_SCORED) {
+                        flags[slot] |= PRESSED;
+                    }
+                }
+                return score;
+            default:
+                int distance = Math.abs(targetHeight - height);
+
+                if (height >= targetHeight && distance > SpecialNote.SPECIAL_DISTANCE) {
+                    deactivate(index);
+                } else if (input.wasPressed(key) && Math.abs(targetHeight - (height - input.getPressLag(key)
+                        * fallSpeed)) <= SpecialNote.SPECIAL_DISTANCE) {
+                    SpecialNote prototype = (SpecialNote) prototypes[types[slot]];
+                    prototype.activateEffect(lane);
+                    deactivate(index);
+                    return prototype.getScore();
+                }
+                return Accuracy.NOT_SCORED;
+        }
+    }
+
+    @Override
+    public void addTextures(Set<String> fileNames) {
+        for (NoteType type : TYPES) {
+            if (typesPresent[type.ordinal()]) {
+                fileNames.add(imageFileNames[type.ordinal()]);
+            }
+        }
+    }
+
+    @Override
+    public void draw(int index, int x, double offsetY, SpriteBatch sprites) {
+        int slot = slot(index);
+        if ((flags[slot] & ACTIVE) != 0) {
+            sprites.add(Level.NOTE_LAYER, imageFileNames[types[slot]], x, heights[slot] + offsetY);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+import bagel.Font;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * An overlay showing how the game is performing: frame time percentiles, how long the simulation and rendering took,
+ * how many notes, enemies and projectiles are live, how fast the game thread allocates, how many textures are cached,
+ * how long key presses wait to be judged and how much CPU time the frames of the current screen take. Every frame
+ * measurement is kept for a sliding window of recent frames in a {@link SlidingHistogram}, and the window can be
+ * written to a file. The text is only rebuilt a few times a second so that it stays readable and cheap.
+ */
+public class PerformanceOverlay {
+    private final static int WINDOW_FRAMES = 600;
+    private final static long TIME_BUCKET_NANOS = 100_000;
+    private final static int TIME_BUCKETS = 1000;
+    private final static long ALLOCATION_BUCKET_BYTES = 1024;
+    private final static int ALLOCATION_BUCKETS = 1024;
+    private final static int REFRESH_FRAMES = 15;
+    private final static String FONT_FILE = "res/FSO8BITR.TTF";
+    private final static int FONT_SIZE = 14;
+    private final static int POSITION_X = 560;
+    private final static int FIRST_LINE_Y = 30;
+    private final static int LINE_HEIGHT = 20;
+    private final static int LINE_COUNT = 7;
+
+    private final static com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final SlidingHistogram frameTimes = new SlidingHistogram(WINDOW_FRAMES, TIME_BUCKET_NANOS, TIME_BUCKETS);
+    private final SlidingHistogram simulationTimes =
+            new SlidingHistogram(WINDOW_FRAMES, TIME_BUCKET_NANOS, TIME_BUCKETS);
+    private final SlidingHistogram renderTimes = new SlidingHistogram(WINDOW_FRAMES, TIME_BUCKET_NANOS, TIME_BUCKETS);
+    private final SlidingHistogram allocations =
+            new SlidingHistogram(WINDOW_FRAMES, ALLOCATION_BUCKET_BYTES, ALLOCATION_BUCKETS);
+    private final StringBuilder text = new StringBuilder();
+    private final TextureCache textures;
+    private final LatchedControls controls;
+    private final boolean allocationSupported = THREADS.isThreadAllocatedMemorySupported();
+    // The overlay is created on the game thread, which is the thread it measures.
+    private final long gameThreadId = Thread.currentThread().getId();
+    private final long readOverhead = measureReadOverhead();
+    private TextElement[] lines = null;
+    private boolean visible = false;
+    private long frameStart = 0;
+    private long frameAllocatedBytes = 0;
+    private long simulationNanos = 0;
+    private long renderNanos = 0;
+    private int framesUntilRefresh = 0;
+
+    /**
+     * Creates a hidden overlay.
+     * @param textures The game's texture cache, whose size and loading time are shown.
+     * @param controls The game's controls, whose input to judgment latency is shown.
+     */
+    public PerformanceOverlay(TextureCache textures, LatchedControls controls) {
+        this.textures = textures;
+        this.controls = controls;
+    }
+
+    // Reads how many bytes the game thread has allocated so far.
+    private long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(gameThreadId);
+    }
+
+    // Works out how much reading the allocation counter allocates itself, which it does on some JVMs.
+    private long measureReadOverhead() {
+        if (!allocationSupported) {
+            return 0;
+        }
+
+        long probe = allocatedBytes();
+        return Math.max(0, allocatedBytes() - probe);
+    }
+
+    /**
+     * Shows the overlay if it is hidden, or hides it if it is showing.
+     */
+    public void toggle() {
+        visible = !visible;
+        framesUntilRefresh = 0;
+    }
+
+    /**
+     * Determines whether the overlay is showing.
+     * @return Whether the overlay is visible.
+     */
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Forgets every measurement, such as when a new level starts.
+     */
+    public void reset() {
+        frameTimes.clear();
+        simulationTimes.clear();
+        renderTimes.clear();
+        allocations.clear();
+    }
+
+    /**
+     * Marks the start of a frame, recording the time since the previous frame started. Called at the very start of
+     * every frame.
+     */
+    public void beginFrame() {
+        long now = System.nanoTime();
+        if (frameStart != 0) {
+            frameTimes.record(now - frameStart);
+        }
+        frameStart = now;
+
+        frameAllocatedBytes = allocationSupported ? allocatedBytes() : 0;
+        simulationNanos = 0;
+        renderNanos = 0;
+    }
+
+    /**
+     * Adds to the time the current frame has spent simulating the level.
+     * @param nanos The time spent in nanoseconds.
+     */
+    public void addSimulationTime(long nanos) {
+        simulationNanos += nanos;
+    }
+
+    /**
+     * Adds to the time the current frame has spent drawing the level.
+     * @param nanos The time spent in nanoseconds.
+     */
+    public void addRenderTime(long nanos) {
+        renderNanos += nanos;
+    }
+
+    /**
+     * Marks the end of a frame, recording its simulation and render time and how much it allocated.
+     */
+    public void endFrame() {
+        simulationTimes.record(simulationNanos);
+        renderTimes.record(renderNanos);
+        if (allocationSupported) {
+            allocations.record(Math.max(0, allocatedBytes() - frameAllocatedBytes - readOverhead));
+        }
+    }
+
+    // Works out how many bytes a second were allocated over the window.
+    private double getAllocationRate() {
+        long nanos = frameTimes.getSum();
+        return nanos == 0 ? 0 : allocations.getSum() * 1e9 / nanos;
+    }
+
+    /**
+     * Draws the overlay if it is showing, rebuilding its text every few frames.
+     * @param level The level being played, or null if there is none.
+     * @param screenTimer The timer measuring the CPU time of frames on the screen which is showing.
+     */
+    public void draw(Level level, FrameTimer screenTimer) {
+        if (!visible) {
+            return;
+        }
+
+        if (lines == null) {
+            Font font = new Font(FONT_FILE, FONT_SIZE);
+            lines = new TextElement[LINE_COUNT];
+            for (int i = 0; i < LINE_COUNT; i++) {
+                lines[i] = new TextElement(font, POSITION_X, FIRST_LINE_Y + i * LINE_HEIGHT, false);
+            }
+        }
+
+        if (--framesUntilRefresh <= 0) {
+            framesUntilRefresh = REFRESH_FRAMES;
+
+            lines[0].setText(String.format("FRAME P50 %.1f P99 %.1f MAX %.1f MS", frameTimes.getPercentile(50) / 1e6,
+                    frameTimes.getPercentile(99) / 1e6, frameTimes.getMax() / 1e6));
+            lines[1].setText(String.format("SIM %.2f MS RENDER %.2f MS", simulationTimes.getMean() / 1e6,
+                    renderTimes.getMean() / 1e6));
+            lines[2].setText(level == null ? null : describeCounts(level));
+            lines[3].setText(allocationSupported ? String.format("ALLOC %.1f KB/S", getAllocationRate() / 1024)
+                    : null);
+            lines[4].setText(String.format("TEXTURES %d, %d DECODED IN %.1f MS", textures.getTextureCount(),
+                    textures.getLoadCount(), textures.getLoadNanos() / 1e6));
+            lines[5].setText(String.format("INPUT LAG %.2f MS AVG %.2f MS MAX OVER %d PRESSES",
+                    controls.getAverageLatencyNanos() / 1e6, controls.getMaxLatencyNanos() / 1e6,
+                    controls.getLatencyCount()));
+            lines[6].setText(String.format("SCREEN CPU %.3f MS AVG %.3f MS MAX", screenTimer.getAverageNanos() / 1e6,
+                    screenTimer.getMaxNanos() / 1e6));
+        }
+
+        for (TextElement line : lines) {
+            line.draw();
+        }
+    }
+
+    // Lists the live notes of every lane and the enemies and projectiles on screen.
+    private String describeCounts(Level level) {
+        text.setLength(0);
+        text.append("NOTES");
+        ArrayList<Lane> lanes = level.getLanes();
+        for (int i = 0; i < lanes.size(); i++) {
+            text.append(' ').append(lanes.get(i).getLiveNoteCount());
+        }
+        text.append(" ENEMIES ").append(level.getEnemyCount());
+        text.append(" ARROWS ").append(level.getProjectileCount());
+        return text.toString();
+    }
+
+    /**
+     * Writes a summary of the window and every frame in it to a csv file.
+     * @param file The file to write.
+     * @param level The level which was played.
+     * @throws IOException If the file could not be written.
+     */
+    public void dump(Path file, Level level) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.printf("# level %d, score %d, %s%n", level.getLevelNumber(), level.getTotalScore(),
+                    level.didWin() ? "won" : "lost");
+            out.printf("# frame time p50 %.2f ms, p99 %.2f ms, max %.2f ms; simulation %.3f ms, render %.3f ms on "
+                    + "average; %.1f KB/s allocated%n", frameTimes.getPercentile(50) / 1e6,
+                    frameTimes.getPercentile(99) / 1e6, frameTimes.getMax() / 1e6, simulationTimes.getMean() / 1e6,
+                    renderTimes.getMean() / 1e6, getAllocationRate() / 1024);
+            out.println("frame,frame_ns,simulation_ns,render_ns,allocated_bytes");
+
+            // The frame time of the current frame is not known yet, so the other columns are lined up with the
+            // frames whose time is.
+            int frames = frameTimes.getCount();
+            int offset = simulationTimes.getCount() - frames;
+            for (int i = 0; i < frames; i++) {
+                int j = i + offset;
+                out.printf("%d,%d,%d,%d,%d%n", i, frameTimes.getSample(i),
+                        j >= 0 ? simulationTimes.getSample(j) : 0, j >= 0 ? renderTimes.getSample(j) : 0,
+                        j >= 0 && j < allocations.getCount() ? allocations.getSample(j) : 0);
+            }
+        }
+    }
+}
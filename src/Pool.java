@@ -0,0 +1,82 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A dense list of live objects which recycles the objects it removes, so that spawning and despawning short-lived
+ * entities does not allocate once the pool has grown to its busiest size. Removing an object moves the last live
+ * object into its place, so the order of live objects is not kept.
+ * @param <T> The type of object in the pool.
+ */
+public class Pool<T> {
+    private final Supplier<T> factory;
+    private final ArrayList<T> live = new ArrayList<>();
+    private final ArrayList<T> free = new ArrayList<>();
+    private final List<T> liveView = Collections.unmodifiableList(live);
+
+    /**
+     * Creates a new, empty pool.
+     * @param factory Creates a new object when there are none to recycle.
+     */
+    public Pool(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Adds an object to the live list, recycling a removed object if there is one. Recycled objects keep whatever
+     * state they had, so the caller should reset them.
+     * @return The object, now live.
+     */
+    public T obtain() {
+        T object = free.isEmpty() ? factory.get() : free.remove(free.size() - 1);
+        live.add(object);
+        return object;
+    }
+
+    /**
+     * Removes a live object and keeps it to be recycled. The last live object is moved into its place, so when
+     * removing while iterating, iterate from the end.
+     * @param index The index of the live object to remove.
+     */
+    public void release(int index) {
+        int last = live.size() - 1;
+        T object = live.get(index);
+        live.set(index, live.get(last));
+        live.remove(last);
+        free.add(object);
+    }
+
+    /**
+     * Gets a live object.
+     * @param index The index of the live object.
+     * @return The live object.
+     */
+    public T get(int index) {
+        return live.get(index);
+    }
+
+    /**
+     * Gets the number of live objects.
+     * @return The number of live objects.
+     */
+    public int size() {
+        return live.size();
+    }
+
+    /**
+     * Determines whether there are no live objects.
+     * @return Whether the pool has no live objects.
+     */
+    public boolean isEmpty() {
+        return live.isEmpty();
+    }
+
+    /**
+     * Gets the live objects as a list which cannot be modified and always reflects the pool.
+     * @return The live objects.
+     */
+    public List<T> getLive() {
+        return liveView;
+    }
+}
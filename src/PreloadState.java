@@ -0,0 +1,25 @@
+/**
+ * The stages a level goes through while it is being preloaded in the background.
+ */
+public enum PreloadState {
+    /**
+     * The level has not been requested yet.
+     */
+    NOT_STARTED,
+    /**
+     * The level's chart is being read on a worker thread.
+     */
+    PARSING,
+    /**
+     * The level has been read and its images are being uploaded on the window's thread.
+     */
+    UPLOADING,
+    /**
+     * The level is ready to be played.
+     */
+    READY,
+    /**
+     * The level could not be loaded.
+     */
+    FAILED
+}
@@ -1,45 +1,53 @@
-import bagel.DrawOptions;
-import bagel.Image;
-import bagel.Window;
-import bagel.util.Vector2;
-
 /**
  * An object which the guardian fires at enemies to kill them.
  */
 public class Projectile {
     private final static int COLLISION_RANGE = 62;
-    private final static int SPEED = 6;
-    private final static String IMAGE_FILE = "res/arrow.png";
+    // Projectiles used to be moved 6 pixels twice a frame, so they move 12 pixels in a single step to keep their pace.
+    private final static int SPEED = 12;
+    /**
+     * The file name of the image used to draw the projectile.
+     */
+    public final static String IMAGE_FILE = "res/arrow.png";
 
     private double positionX;
     private double positionY;
-    private boolean inactive = false;
-    private final Vector2 velocity;
-    private final Image image = new Image(IMAGE_FILE);
-    private final DrawOptions drawOptions = new DrawOptions();
+    private double previousX;
+    private double previousY;
+    private double velocityX;
+    private double velocityY;
+    private boolean inactive = true;
+    private double rotation = 0;
 
     /**
-     * Creates a new projectile with a starting position and target.
+     * Launches the projectile from a starting position towards a target. Projectiles are recycled, so this resets
+     * everything about the projectile.
      * @param positionX The x coordinate of the starting position.
      * @param positionY The y coordinate of the starting position.
      * @param targetX The x coordinate of the target position.
      * @param targetY The y coordinate of the target position.
      */
-    public Projectile(double positionX, double positionY, double targetX, double targetY) {
+    public void fire(double positionX, double positionY, double targetX, double targetY) {
         this.positionX = positionX;
         this.positionY = positionY;
-        velocity = new Vector2(targetX - positionX, targetY - positionY).normalised().mul(SPEED);
-        drawOptions.setRotation(Math.atan2(targetY - positionY, targetX - positionX));
+        previousX = positionX;
+        previousY = positionY;
+
+        double distance = Math.sqrt((targetX - positionX) * (targetX - positionX)
+                + (targetY - positionY) * (targetY - positionY));
+        velocityX = (targetX - positionX) / distance * SPEED;
+        velocityY = (targetY - positionY) / distance * SPEED;
+        rotation = Math.atan2(targetY - positionY, targetX - positionX);
+        inactive = false;
     }
 
     /**
-     * Determines whether the projectile is within collision range of a point.
-     * @param x The x position of the point.
-     * @param y The y position of the point.
-     * @return Whether the projectile is colliding with the point or not.
+     * Deactivates every enemy the projectile hit while moving this frame, checking along its whole path rather than
+     * only where it ended up.
+     * @param enemies The grid of enemies the projectile can hit.
      */
-    public boolean isCollidingWith(double x, double y) {
-        return Math.sqrt(Math.pow(positionX - x, 2) + Math.pow(positionY - y, 2)) <= COLLISION_RANGE;
+    public void hitEnemies(EnemyGrid enemies) {
+        enemies.deactivateAlong(previousX, previousY, positionX, positionY, COLLISION_RANGE);
     }
 
     /**
@@ -54,14 +62,28 @@ public class Projectile {
      * Updates the position of the projectile every frame according to velocity.
      */
     public void update() {
-        positionX += velocity.x;
-        positionY += velocity.y;
+        previousX = positionX;
+        previousY = positionY;
+        positionX += velocityX;
+        positionY += velocityY;
 
-        if (positionY < 0 || positionY > Window.getHeight() || positionX < 0 || positionX > Window.getWidth()) {
+        if (positionY < 0 || positionY > ShadowDance.WINDOW_HEIGHT
+                || positionX < 0 || positionX > ShadowDance.WINDOW_WIDTH) {
             inactive = true;
+        }
+    }
+
+    /**
+     * Renders the projectile if it is still on screen.
+     * @param sprites The batch to add the projectile's sprite to.
+     * @param alpha How far between its previous position (0) and its current position (1) to draw the projectile.
+     */
+    public void draw(SpriteBatch sprites, double alpha) {
+        if (inactive) {
             return;
         }
 
-        image.draw(positionX, positionY, drawOptions);
+        sprites.add(Level.PROJECTILE_LAYER, IMAGE_FILE, previousX + (positionX - previousX) * alpha,
+                previousY + (positionY - previousY) * alpha, rotation);
     }
 }
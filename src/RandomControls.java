@@ -0,0 +1,66 @@
+import bagel.Keys;
+
+import java.util.Random;
+
+/**
+ * Controls which press and release a level's keys at random, used to play levels without a window or a script. Each
+ * key held down is released after a random number of frames. The same seed always gives the same key presses.
+ */
+public class RandomControls implements Controls {
+    private final static int MAX_HOLD_FRAMES = 120;
+
+    private final KeySet keys;
+    private final Random random;
+    private final double pressChance;
+    private final int[] releaseFrames;
+    private final boolean[] pressed;
+    private final boolean[] released;
+    private int currentFrame = 0;
+
+    /**
+     * Creates random controls.
+     * @param keys The keys to press, which should be the keys the level responds to.
+     * @param seed The seed deciding which keys are pressed and when.
+     * @param pressChance The chance of each key which is not held down being pressed on a frame.
+     */
+    public RandomControls(KeySet keys, long seed, double pressChance) {
+        this.keys = keys;
+        random = new Random(seed);
+        this.pressChance = pressChance;
+        releaseFrames = new int[keys.size()];
+        pressed = new boolean[keys.size()];
+        released = new boolean[keys.size()];
+    }
+
+    /**
+     * Moves on to the next frame, choosing which keys are pressed and released on it. Should be called once before
+     * every level update.
+     */
+    public void advance() {
+        currentFrame++;
+
+        for (int i = 0; i < keys.size(); i++) {
+            boolean held = releaseFrames[i] != 0;
+            released[i] = held && releaseFrames[i] <= currentFrame;
+            pressed[i] = !held && random.nextDouble() < pressChance;
+
+            if (released[i]) {
+                releaseFrames[i] = 0;
+            } else if (pressed[i]) {
+                releaseFrames[i] = currentFrame + 1 + random.nextInt(MAX_HOLD_FRAMES);
+            }
+        }
+    }
+
+    @Override
+    public boolean wasPressed(Keys key) {
+        int index = keys.indexOf(key);
+        return index != KeySet.NOT_FOUND && pressed[index];
+    }
+
+    @Override
+    public boolean wasReleased(Keys key) {
+        int index = keys.indexOf(key);
+        return index != KeySet.NOT_FOUND && released[index];
+    }
+}
@@ -0,0 +1,156 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import javax.imageio.ImageIO;
+
+/**
+ * A backend which draws nothing and instead records the draw commands it is given, so that what would be drawn can
+ * be checked without a window. Texture sizes are read from the image files, since there are no bagel images to ask.
+ */
+public class RecordingSpriteBackend implements SpriteBackend {
+    private final static int INITIAL_CAPACITY = 256;
+
+    private final HashMap<String, double[]> sizes = new HashMap<>();
+    private String[] textures = new String[INITIAL_CAPACITY];
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    private double[] rotations = new double[INITIAL_CAPACITY];
+    private int drawCount = 0;
+    private int batchCount = 0;
+    private String texture = null;
+
+    // Gets the width and height of a texture, reading the image file the first time. A texture which cannot be read
+    // fails the recording, since it would fail in the game too.
+    private double[] getSize(String texture) {
+        double[] size = sizes.get(texture);
+        if (size == null) {
+            BufferedImage image;
+            try {
+                image = ImageIO.read(new File(texture));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read texture " + texture, e);
+            }
+            if (image == null) {
+                throw new IllegalStateException("Texture " + texture + " is not an image");
+            }
+
+            size = new double[] {image.getWidth(), image.getHeight()};
+            sizes.put(texture, size);
+        }
+
+        return size;
+    }
+
+    @Override
+    public double getWidth(String texture) {
+        return getSize(texture)[0];
+    }
+
+    @Override
+    public double getHeight(String texture) {
+        return getSize(texture)[1];
+    }
+
+    @Override
+    public void beginBatch(String texture, int count) {
+        this.texture = texture;
+        batchCount++;
+    }
+
+    @Override
+    public void draw(double x, double y, double rotation) {
+        if (drawCount == textures.length) {
+            int capacity = 2 * drawCount;
+            textures = Arrays.copyOf(textures, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            rotations = Arrays.copyOf(rotations, capacity);
+        }
+
+        textures[drawCount] = texture;
+        xs[drawCount] = x;
+        ys[drawCount] = y;
+        rotations[drawCount] = rotation;
+        drawCount++;
+    }
+
+    /**
+     * Forgets every recorded command, such as before recording the next frame.
+     */
+    public void clear() {
+        drawCount = 0;
+        batchCount = 0;
+        texture = null;
+    }
+
+    /**
+     * Gets the number of sprites drawn since the last clear.
+     * @return The number of draw calls.
+     */
+    public int getDrawCount() {
+        return drawCount;
+    }
+
+    /**
+     * Gets the number of batches begun since the last clear.
+     * @return The number of batches.
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Counts the recorded sprites which used a texture.
+     * @param texture The file name of the texture.
+     * @return The number of sprites drawn with the texture.
+     */
+    public int countDraws(String texture) {
+        int count = 0;
+        for (int i = 0; i < drawCount; i++) {
+            if (textures[i].equals(texture)) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the texture of a recorded sprite.
+     * @param index The index of the sprite, in the order it was drawn.
+     * @return The file name of the sprite's texture.
+     */
+    public String getTexture(int index) {
+        return textures[index];
+    }
+
+    /**
+     * Gets the x coordinate of a recorded sprite.
+     * @param index The index of the sprite, in the order it was drawn.
+     * @return The x coordinate of the centre of the sprite.
+     */
+    public double getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * Gets the y coordinate of a recorded sprite.
+     * @param index The index of the sprite, in the order it was drawn.
+     * @return The y coordinate of the centre of the sprite.
+     */
+    public double getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Gets the rotation of a recorded sprite.
+     * @param index The index of the sprite, in the order it was drawn.
+     * @return The rotation of the sprite in radians.
+     */
+    public double getRotation(int index) {
+        return rotations[index];
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Checks what the sprite batch draws without a window, using a recording backend. Each level is played through with
+ * random input and its sprites are drawn every frame twice: once culled to the window and once into a viewport
+ * large enough that nothing is culled. Every sprite the window draws must be on screen, every on-screen sprite must
+ * be drawn, and each texture must be submitted as one batch per run of sprites. Exits with a non-zero status if any
+ * frame fails, so it can be run as part of a build.
+ */
+public final class RenderCheck {
+    private final static int LEVEL_COUNT = 3;
+    private final static int MAX_FRAMES = 20_000;
+    private final static double PRESS_CHANCE = 0.05;
+    private final static double UNCULLED_SIZE = 1e9;
+    private final static double ALPHA = 0.5;
+
+    // Determines whether a recorded sprite overlaps the window, measured the same way the batch measures it.
+    private static boolean isOnScreen(RecordingSpriteBackend sprites, int index) {
+        String texture = sprites.getTexture(index);
+        double halfWidth = 0.5 * sprites.getWidth(texture);
+        double halfHeight = 0.5 * sprites.getHeight(texture);
+        if (sprites.getRotation(index) != 0) {
+            halfWidth = halfHeight = Math.hypot(halfWidth, halfHeight);
+        }
+
+        double x = sprites.getX(index);
+        double y = sprites.getY(index);
+        return x + halfWidth >= 0 && x - halfWidth <= ShadowDance.WINDOW_WIDTH && y + halfHeight >= 0
+                && y - halfHeight <= ShadowDance.WINDOW_HEIGHT;
+    }
+
+    // Counts the times the texture changes between one recorded sprite and the next, plus one for the first batch.
+    private static int countTextureRuns(RecordingSpriteBackend sprites) {
+        int runs = 0;
+        for (int i = 0; i < sprites.getDrawCount(); i++) {
+            if (i == 0 || !sprites.getTexture(i).equals(sprites.getTexture(i - 1))) {
+                runs++;
+            }
+        }
+
+        return runs;
+    }
+
+    // Plays a level through, checking every frame's draw commands, and returns the number of frames which failed.
+    private static int check(int levelNumber) {
+        Level level = new Level(levelNumber, "res/level" + levelNumber + ".csv", true);
+        level.setRandomSeed(levelNumber);
+        RandomControls controls = new RandomControls(level.getKeys(), levelNumber, PRESS_CHANCE);
+
+        RecordingSpriteBackend window = new RecordingSpriteBackend();
+        RecordingSpriteBackend everything = new RecordingSpriteBackend();
+        SpriteBatch windowBatch = new SpriteBatch(window, ShadowDance.WINDOW_WIDTH, ShadowDance.WINDOW_HEIGHT);
+        SpriteBatch everythingBatch = new SpriteBatch(everything, UNCULLED_SIZE, UNCULLED_SIZE);
+
+        long sprites = 0;
+        long draws = 0;
+        long batches = 0;
+        int failures = 0;
+        int frames = 0;
+
+        while (!level.isFinished() && frames < MAX_FRAMES) {
+            controls.advance();
+            level.update(controls);
+            frames++;
+
+            window.clear();
+            everything.clear();
+            level.addSprites(windowBatch, ALPHA);
+            windowBatch.flush();
+            level.addSprites(everythingBatch, ALPHA);
+            everythingBatch.flush();
+
+            int onScreen = 0;
+            for (int i = 0; i < everything.getDrawCount(); i++) {
+                if (isOnScreen(everything, i)) {
+                    onScreen++;
+                }
+            }
+
+            boolean allOnScreen = true;
+            for (int i = 0; i < window.getDrawCount(); i++) {
+                allOnScreen &= isOnScreen(window, i);
+            }
+
+            boolean failed = !allOnScreen || window.getDrawCount() != onScreen
+                    || window.getDrawCount() + windowBatch.getCulledCount() != everything.getDrawCount()
+                    || window.getBatchCount() != countTextureRuns(window)
+                    || window.getBatchCount() != windowBatch.getBatchCount();
+            if (failed && failures++ == 0) {
+                System.out.printf("level %d frame %d: %d drawn, %d culled, %d on screen of %d, %d batches%n",
+                        levelNumber, frames, window.getDrawCount(), windowBatch.getCulledCount(), onScreen,
+                        everything.getDrawCount(), window.getBatchCount());
+            }
+
+            sprites += everything.getDrawCount();
+            draws += window.getDrawCount();
+            batches += window.getBatchCount();
+        }
+
+        System.out.printf("level %d: %d frames, %.1f sprites, %.1f draws and %.1f batches per frame, %d frames "
+                + "failed%n", levelNumber, frames, (double) sprites / frames, (double) draws / frames,
+                (double) batches / frames, failures);
+        return failures;
+    }
+
+    /**
+     * Runs the check on every level.
+     * @param args Command line arguments (not used).
+     */
+    public static void main(String[] args) {
+        int failures = 0;
+        for (int levelNumber = 1; levelNumber <= LEVEL_COUNT; levelNumber++) {
+            failures += check(levelNumber);
+        }
+
+        if (failures > 0) {
+            System.out.printf("FAILED: %d frames drew the wrong sprites%n", failures);
+            System.exit(1);
+        }
+        System.out.println("OK: every frame drew exactly the sprites on screen");
+    }
+}
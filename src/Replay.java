@@ -0,0 +1,162 @@
+/**
+ * A recorded play of a level: which chart was played and the score it needed to win, the seed of the level's random
+ * numbers, the keys the level responds to, the presses and releases of those keys on every frame, how the score
+ * changed and the result the play reached. Replaying it through {@link ReplayControls} on the same chart gives exactly
+ * the same result.
+ * <p>
+ * Frames are stored as a stream of variable-length integers. Each frame on which a recorded key changed is written
+ * as the number of frames since the previous such frame, the number of key changes on it and then each change as the
+ * key's position in {@link #getKeys()} times four plus {@link #PRESS} or {@link #RELEASE}, plus {@link #LAG} if the
+ * change happened part of the way through the frame. A change with a lag is followed by how far through the frame it
+ * happened, as the eight bytes of a double. A count of 0 ends the stream, counting the frames up to the end of play.
+ * <p>
+ * Score changes are stored in a second stream, as the number of frames since the previous change followed by the
+ * signed change, so a play which goes differently can be traced back to the first frame whose score differs.
+ */
+public class Replay {
+    /**
+     * The kind of a key change which is a press.
+     */
+    public final static int PRESS = 0;
+    /**
+     * The kind of a key change which is a release.
+     */
+    public final static int RELEASE = 1;
+    /**
+     * Added to the kind of a key change which is followed by when in the frame it happened.
+     */
+    public final static int LAG = 2;
+    /**
+     * The number of kinds of key change, which the position of the key is multiplied by.
+     */
+    public final static int KINDS = 4;
+
+    private final String chartFile;
+    private final long chartHash;
+    private final int levelNumber;
+    private final int winScore;
+    private final KeySet keys;
+    private final long seed;
+    private final int frames;
+    private final int score;
+    private final boolean won;
+    private final byte[] events;
+    private final byte[] scores;
+
+    /**
+     * Creates a replay.
+     * @param chartFile The path of the chart which was played, as found by the level catalog.
+     * @param chartHash The CRC32 of the chart file's contents.
+     * @param levelNumber The number deciding the rules the chart was played by.
+     * @param winScore The score which was needed to win.
+     * @param keys The keys which were recorded.
+     * @param seed The seed of the level's random numbers.
+     * @param frames The number of frames which were played.
+     * @param score The total score reached.
+     * @param won Whether the level was won.
+     * @param events The encoded key presses and releases.
+     * @param scores The encoded score changes.
+     */
+    public Replay(String chartFile, long chartHash, int levelNumber, int winScore, KeySet keys, long seed, int frames,
+                  int score, boolean won, byte[] events, byte[] scores) {
+        this.chartFile = chartFile;
+        this.chartHash = chartHash;
+        this.levelNumber = levelNumber;
+        this.winScore = winScore;
+        this.keys = keys;
+        this.seed = seed;
+        this.frames = frames;
+        this.score = score;
+        this.won = won;
+        this.events = events;
+        this.scores = scores;
+    }
+
+    /**
+     * Gets the path of the chart which was played.
+     * @return The chart's file name.
+     */
+    public String getChartFile() {
+        return chartFile;
+    }
+
+    /**
+     * Gets the hash of the chart's contents when it was played, so a chart which has changed since can be told apart.
+     * @return The CRC32 of the chart file.
+     */
+    public long getChartHash() {
+        return chartHash;
+    }
+
+    /**
+     * Gets the number which decides the rules the chart was played by, such as whether enemies appear.
+     * @return The level number.
+     */
+    public int getLevelNumber() {
+        return levelNumber;
+    }
+
+    /**
+     * Gets the score which was needed to win.
+     * @return The winning score.
+     */
+    public int getWinScore() {
+        return winScore;
+    }
+
+    /**
+     * Gets the keys which were recorded, which are the keys the level responds to.
+     * @return The recorded keys.
+     */
+    public KeySet getKeys() {
+        return keys;
+    }
+
+    /**
+     * Gets the seed of the level's random numbers.
+     * @return The seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of frames which were played.
+     * @return The number of frames.
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * Gets the total score reached when the play was recorded.
+     * @return The recorded score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Determines whether the level was won when the play was recorded.
+     * @return Whether the level was won.
+     */
+    public boolean didWin() {
+        return won;
+    }
+
+    /**
+     * Gets the encoded key presses and releases. The array must not be changed.
+     * @return The encoded frames.
+     */
+    public byte[] getEvents() {
+        return events;
+    }
+
+    /**
+     * Gets the encoded score changes. The array must not be changed.
+     * @return The encoded score changes.
+     */
+    public byte[] getScores() {
+        return scores;
+    }
+}
@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Checks that plays recorded through the game's step loop play back to the same result. Every catalogued chart is
+ * played with timestamped key events on a fake clock, with frames which each cover one, two or three simulation steps
+ * and regular stalls, so levels routinely end part of the way through a frame. Each recording is written to a file,
+ * read back and played back headless, and must reach the same score and result on the same frame. Exits with a
+ * non-zero status if any play differs, or if no level ended in the middle of a frame, so it can be run as part of a
+ * build.
+ */
+public final class ReplayCheck {
+    private final static int[] STEPS_PER_FRAME = {1, 2, 3};
+    private final static int STALL_INTERVAL = 97;
+    private final static int STALL_STEPS = 5;
+    private final static int MAX_FRAMES = 20_000;
+    private final static int QUEUE_CAPACITY = 256;
+    private final static double PRESS_CHANCE = 0.03;
+    private final static int MAX_HOLD_STEPS = 60;
+
+    private static int endedMidFrame = 0;
+
+    // Plays a chart through the step loop, records it and plays the recording back, returning whether it matched.
+    private static boolean check(LevelInfo info, int stepsPerFrame, Path file) throws IOException {
+        long seed = info.getContentHash() + stepsPerFrame;
+        Level level = LevelCatalog.load(info, true);
+        level.setRandomSeed(seed);
+        KeySet keys = level.getKeys();
+
+        SimulationClock clock = new SimulationClock();
+        KeyEventQueue events = new KeyEventQueue(QUEUE_CAPACITY);
+        LatchedControls controls = new LatchedControls();
+        controls.useTimestamps(events);
+        ReplayRecorder recorder = new ReplayRecorder(info, keys, seed);
+
+        Random random = new Random(seed);
+        long[] releaseTimes = new long[keys.size()];
+        boolean[] held = new boolean[keys.size()];
+        long now = 0;
+        int frames = 0;
+
+        while (!level.isFinished() && frames < MAX_FRAMES) {
+            frames++;
+            long frameNanos = clock.getStepNanos() * (frames % STALL_INTERVAL == 0 ? STALL_STEPS : stepsPerFrame);
+            long frameStart = now;
+            now += frameNanos;
+
+            // Each key changes at most once a frame, at its own point in the frame, so the events stay in time order.
+            for (int i = 0; i < keys.size(); i++) {
+                long time = frameStart + frameNanos * (i + 1) / (keys.size() + 1);
+                if (held[i] && releaseTimes[i] <= now) {
+                    events.offer(keys.get(i), false, time);
+                    held[i] = false;
+                } else if (!held[i] && random.nextDouble() < PRESS_CHANCE) {
+                    events.offer(keys.get(i), true, time);
+                    releaseTimes[i] = time + (1 + random.nextInt(MAX_HOLD_STEPS)) * clock.getStepNanos();
+                    held[i] = true;
+                }
+            }
+
+            int steps = clock.advance(now);
+            if (StepLoop.run(clock, steps, controls, level, recorder) < steps) {
+                endedMidFrame++;
+            }
+        }
+
+        Replay recorded = recorder.finish(level);
+        ReplayFile.write(recorded, file);
+        Replay replay = ReplayFile.read(file);
+        ReplayVerification result = ReplayPlayer.verify(replay, ReplayPlayer.checkChart(info, replay),
+                LevelCatalog.readChart(Paths.get(info.getFileName())));
+
+        boolean matched = result.matches() && result.getScore() == level.getTotalScore()
+                && result.didWin() == level.didWin();
+        System.out.printf("%s at %d steps a frame: %d frames, %d steps, score %d, played back %d steps, score %d: %s%n",
+                info.getName(), stepsPerFrame, frames, replay.getFrames(), level.getTotalScore(), result.getFrames(),
+                result.getScore(), matched ? "matches" : "DIFFERS from step " + result.getDivergentFrame());
+        return matched;
+    }
+
+    /**
+     * Runs the check on every chart in the level catalog.
+     * @param args Command line arguments (not used).
+     * @throws IOException If the charts could not be found or a replay could not be written or read.
+     */
+    public static void main(String[] args) throws IOException {
+        LevelCatalog catalog = LevelCatalog.open(Paths.get(LevelCatalog.DEFAULT_DIRECTORY),
+                Paths.get(LevelCatalog.DEFAULT_INDEX_FILE), false);
+        Path file = Files.createTempFile("check", ReplayFile.EXTENSION);
+
+        int failures = 0;
+        try {
+            for (int number = 1; number <= catalog.size(); number++) {
+                for (int stepsPerFrame : STEPS_PER_FRAME) {
+                    failures += check(catalog.get(number), stepsPerFrame, file) ? 0 : 1;
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        if (failures > 0) {
+            System.out.printf("FAILED: %d replays did not play back to the recorded result%n", failures);
+            System.exit(1);
+        }
+        if (endedMidFrame == 0) {
+            System.out.println("FAILED: no level ended in the middle of a frame, so that case was not checked");
+            System.exit(1);
+        }
+        System.out.printf("OK: every replay played back to the recorded result, %d ending mid-frame%n",
+                endedMidFrame);
+    }
+}
@@ -0,0 +1,105 @@
+import bagel.Keys;
+
+import java.util.Arrays;
+
+/**
+ * Controls which play back the key presses and releases of a {@link Replay}, frame by frame. Frames are decoded as
+ * they are reached, so playing back does not allocate.
+ */
+public class ReplayControls implements Controls {
+    private final VarIntReader events;
+    private final KeySet keys;
+    private final boolean[] pressed;
+    private final boolean[] released;
+    private final double[] pressLags;
+    private final double[] releaseLags;
+    private int currentFrame = 0;
+    private int nextEventFrame;
+    private int nextChanges;
+    private boolean invalidChange = false;
+
+    /**
+     * Creates controls which play back a replay from its first frame.
+     * @param replay The replay to play back.
+     */
+    public ReplayControls(Replay replay) {
+        events = new VarIntReader(replay.getEvents());
+        keys = replay.getKeys();
+        pressed = new boolean[keys.size()];
+        released = new boolean[keys.size()];
+        pressLags = new double[keys.size()];
+        releaseLags = new double[keys.size()];
+        nextEventFrame = events.readVarInt();
+        nextChanges = events.readVarInt();
+    }
+
+    /**
+     * Moves on to the next frame. Should be called once before every level update.
+     */
+    public void advance() {
+        currentFrame++;
+        Arrays.fill(pressed, false);
+        Arrays.fill(released, false);
+
+        if (currentFrame != nextEventFrame || nextChanges == 0) {
+            return;
+        }
+
+        for (int i = 0; i < nextChanges; i++) {
+            int change = events.readVarInt();
+            int keyIndex = change / Replay.KINDS;
+            double lag = (change & Replay.LAG) != 0 ? events.readDouble() : 0;
+
+            // LatchedControls only ever measures lags from 0 to 1, so any other lag comes from a tampered replay
+            if (!(lag >= 0 && lag <= 1)) {
+                invalidChange = true;
+                continue;
+            }
+            // A change to a key which was not recorded can only come from a tampered replay, which then diverges.
+            if (keyIndex >= keys.size()) {
+                continue;
+            }
+            if ((change & Replay.RELEASE) != 0) {
+                released[keyIndex] = true;
+                releaseLags[keyIndex] = lag;
+            } else {
+                pressed[keyIndex] = true;
+                pressLags[keyIndex] = lag;
+            }
+        }
+
+        nextEventFrame += events.readVarInt();
+        nextChanges = events.readVarInt();
+    }
+
+    /**
+     * Determines whether any frame played back so far changed a key in a way no recording can, such as with a lag
+     * which is not a number or is outside 0 to 1. A replay holding such a change has been tampered with.
+     * @return Whether an invalid change has been read.
+     */
+    public boolean hasInvalidChange() {
+        return invalidChange;
+    }
+
+    @Override
+    public boolean wasPressed(Keys key) {
+        int index = keys.indexOf(key);
+        return index != KeySet.NOT_FOUND && pressed[index];
+    }
+
+    @Override
+    public boolean wasReleased(Keys key) {
+        int index = keys.indexOf(key);
+        return index != KeySet.NOT_FOUND && released[index];
+    }
+
+    @Override
+    public double getPressLag(Keys key) {
+        return wasPressed(key) ? pressLags[keys.indexOf(key)] : 0;
+    }
+
+    @Override
+    public double getReleaseLag(Keys key) {
+        return wasReleased(key) ? releaseLags[keys.indexOf(key)] : 0;
+    }
+}
@@ -0,0 +1,198 @@
+import bagel.Keys;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes replays. A replay file is a little-endian binary file laid out as follows:
+ * <pre>
+ * header   magic "SDRP", u16 version, u16 level number, i64 seed, u32 frame count, i32 score, u8 won, u8 key count,
+ *          u16 chart path length, u32 event length, u32 score change length, u32 CRC32 of everything after the
+ *          header, i32 winning score, u32 CRC32 of the chart file
+ * chart    the path of the chart which was played in UTF-8
+ * keys     for each recorded key, a u8 length followed by the name of the bagel key in ASCII
+ * events   the frames encoded as described in {@link Replay}
+ * scores   the score changes encoded as described in {@link Replay}
+ * </pre>
+ */
+public final class ReplayFile {
+    /**
+     * The file extension of replays.
+     */
+    public final static String EXTENSION = ".replay";
+    /**
+     * The version of the format written by {@link #write(Replay, Path)}.
+     */
+    public final static int VERSION = 4;
+
+    private final static int MAGIC = 0x50524453; // "SDRP" in little-endian order
+    private final static int HEADER_SIZE = 48;
+    private final static int MAX_CHART_PATH_LENGTH = 0xffff;
+    private final static int MAX_KEYS = 255;
+
+    private ReplayFile() {
+    }
+
+    /**
+     * Writes a replay.
+     * @param replay The replay to write.
+     * @param file The file to write to.
+     * @throws IOException If the file could not be written.
+     */
+    public static void write(Replay replay, Path file) throws IOException {
+        byte[] chartFile = replay.getChartFile().getBytes(StandardCharsets.UTF_8);
+        if (chartFile.length > MAX_CHART_PATH_LENGTH) {
+            throw new IllegalArgumentException("the chart path " + replay.getChartFile() + " is too long to store");
+        }
+
+        byte[] keys = encodeKeys(replay.getKeys());
+        byte[] events = replay.getEvents();
+        byte[] scores = replay.getScores();
+        CRC32 crc = new CRC32();
+        crc.update(chartFile);
+        crc.update(keys);
+        crc.update(events);
+        crc.update(scores);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + chartFile.length + keys.length + events.length
+                + scores.length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putShort((short) replay.getLevelNumber());
+        buffer.putLong(replay.getSeed());
+        buffer.putInt(replay.getFrames());
+        buffer.putInt(replay.getScore());
+        buffer.put((byte) (replay.didWin() ? 1 : 0));
+        buffer.put((byte) replay.getKeys().size());
+        buffer.putShort((short) chartFile.length);
+        buffer.putInt(events.length);
+        buffer.putInt(scores.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.putInt(replay.getWinScore());
+        buffer.putInt((int) replay.getChartHash());
+        buffer.put(chartFile);
+        buffer.put(keys);
+        buffer.put(events);
+        buffer.put(scores);
+
+        Files.write(file, buffer.array());
+    }
+
+    // Writes the names of the recorded keys, each preceded by its length.
+    private static byte[] encodeKeys(KeySet keys) {
+        if (keys.size() > MAX_KEYS) {
+            throw new IllegalArgumentException(keys.size() + " keys cannot be stored in a replay");
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] name = keys.get(i).name().getBytes(StandardCharsets.US_ASCII);
+            out.write(name.length);
+            out.write(name, 0, name.length);
+        }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads a replay.
+     * @param file The file to read.
+     * @return The replay.
+     * @throws ReplayFormatException If the file is not a valid replay.
+     * @throws IOException If the file could not be read.
+     */
+    public static Replay read(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.remaining() < HEADER_SIZE) {
+            throw error(file, 0, "file is " + buffer.remaining() + " bytes, shorter than the " + HEADER_SIZE
+                    + " byte header");
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw error(file, 0, "not a replay (bad magic number)");
+        }
+
+        int version = Short.toUnsignedInt(buffer.getShort(4));
+        if (version != VERSION) {
+            throw error(file, 4, "unsupported version " + version + ", expected " + VERSION);
+        }
+
+        int frames = buffer.getInt(16);
+        if (frames < 0) {
+            throw error(file, 16, "negative frame count");
+        }
+
+        int chartFileLength = Short.toUnsignedInt(buffer.getShort(26));
+        if (chartFileLength > buffer.capacity() - HEADER_SIZE) {
+            throw error(file, 26, "chart path length " + chartFileLength + " is longer than the file");
+        }
+        byte[] chartFile = new byte[chartFileLength];
+        buffer.position(HEADER_SIZE);
+        buffer.get(chartFile);
+
+        KeySet keys = readKeys(file, buffer, Byte.toUnsignedInt(buffer.get(25)));
+        int keysEnd = buffer.position();
+
+        int eventLength = buffer.getInt(28);
+        int scoreLength = buffer.getInt(32);
+        long bodyLength = buffer.capacity() - keysEnd;
+        if (eventLength < 0 || scoreLength < 0 || (long) eventLength + scoreLength != bodyLength) {
+            throw error(file, 28, "event length " + eventLength + " and score change length " + scoreLength
+                    + " do not match the " + bodyLength + " bytes after the keys");
+        }
+
+        byte[] events = new byte[eventLength];
+        byte[] scores = new byte[scoreLength];
+        buffer.get(events);
+        buffer.get(scores);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, keysEnd - HEADER_SIZE);
+        crc.update(events);
+        crc.update(scores);
+        if ((int) crc.getValue() != buffer.getInt(36)) {
+            throw error(file, 36, "checksum mismatch, the file is corrupt");
+        }
+
+        return new Replay(new String(chartFile, StandardCharsets.UTF_8), Integer.toUnsignedLong(buffer.getInt(44)),
+                Short.toUnsignedInt(buffer.getShort(6)), buffer.getInt(40), keys, buffer.getLong(8), frames,
+                buffer.getInt(20), buffer.get(24) != 0, events, scores);
+    }
+
+    // Reads the names of the recorded keys, leaving the buffer just after them.
+    private static KeySet readKeys(Path file, ByteBuffer buffer, int keyCount) throws ReplayFormatException {
+        int start = buffer.position();
+        Keys[] keys = new Keys[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            int offset = buffer.position();
+            int length = buffer.hasRemaining() ? Byte.toUnsignedInt(buffer.get()) : -1;
+            if (length < 0 || length > buffer.remaining()) {
+                throw error(file, offset, "file ends in the middle of key " + i);
+            }
+
+            byte[] name = new byte[length];
+            buffer.get(name);
+            try {
+                keys[i] = Keys.valueOf(new String(name, StandardCharsets.US_ASCII));
+            } catch (IllegalArgumentException e) {
+                throw error(file, offset, "unknown key " + new String(name, StandardCharsets.US_ASCII));
+            }
+        }
+
+        KeySet keySet = new KeySet(keys);
+        if (keySet.size() != keyCount) {
+            throw error(file, start, "a key is recorded more than once");
+        }
+        return keySet;
+    }
+
+    private static ReplayFormatException error(Path file, long offset, String message) {
+        return new ReplayFormatException(file.toString(), offset, message);
+    }
+}
@@ -0,0 +1,16 @@
+import java.io.IOException;
+
+/**
+ * Thrown when a replay file cannot be read because its contents are malformed.
+ */
+public class ReplayFormatException extends IOException {
+    /**
+     * Creates a new exception for a problem in a replay file.
+     * @param fileName The name of the replay file.
+     * @param offset The byte offset of the problem.
+     * @param message A description of the problem.
+     */
+    public ReplayFormatException(String fileName, long offset, String message) {
+        super(fileName + " (byte " + offset + "): " + message);
+    }
+}
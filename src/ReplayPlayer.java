@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+
+/**
+ * Plays replays back without a window as fast as possible and checks that they reach the result that was recorded,
+ * frame by frame.
+ */
+public final class ReplayPlayer {
+    private ReplayPlayer() {
+    }
+
+    /**
+     * Finds the catalogued chart a replay was recorded on, checking that it is the chart and rules the replay claims.
+     * @param catalog The catalog of charts.
+     * @param replay The replay.
+     * @return The chart's description.
+     * @throws IOException If the chart is not in the catalog or does not match the replay.
+     */
+    public static LevelInfo findChart(LevelCatalog catalog, Replay replay) throws IOException {
+        LevelInfo info = catalog.find(replay.getChartFile());
+        if (info == null) {
+            throw new NoSuchFileException(replay.getChartFile(), null, "the chart is not in the catalog");
+        }
+
+        return checkChart(info, replay);
+    }
+
+    /**
+     * Checks that a replay was recorded on a chart: that the chart has not changed since, and that the replay claims
+     * the level number and winning score the chart is played with. Both are taken from the chart when the replay is
+     * played back, so a replay claiming others has been tampered with or recorded on different rules.
+     * @param info The chart's description.
+     * @param replay The replay.
+     * @return The chart's description.
+     * @throws IOException If the chart does not match the replay.
+     */
+    public static LevelInfo checkChart(LevelInfo info, Replay replay) throws IOException {
+        if (info.getContentHash() != replay.getChartHash()) {
+            throw new IOException(String.format("%s has changed since the replay was recorded (crc %08x, recorded "
+                    + "%08x)", info.getFileName(), info.getContentHash(), replay.getChartHash()));
+        }
+        if (info.getLevelNumber() != replay.getLevelNumber() || info.getWinScore() != replay.getWinScore()) {
+            throw new IOException(String.format("%s is played as level %d needing %d to win, but the replay claims "
+                    + "level %d needing %d", info.getFileName(), info.getLevelNumber(), info.getWinScore(),
+                    replay.getLevelNumber(), replay.getWinScore()));
+        }
+
+        return info;
+    }
+
+    /**
+     * Plays a replay through a level built from a chart, stopping at the first frame whose score differs from the
+     * recording or which changes a key in a way no recording can. The level's rules and winning score come from the
+     * chart's description, never from the replay, and it is seeded with the replay's seed.
+     * @param replay The replay to play back.
+     * @param info The description of the chart, as checked by {@link #checkChart(LevelInfo, Replay)}.
+     * @param chart The chart of the level which was recorded.
+     * @return The result of playing the replay back.
+     */
+    public static ReplayVerification verify(Replay replay, LevelInfo info, Chart chart) {
+        Level level = new Level(info.getLevelNumber(), chart, true);
+        level.setWinScore(info.getWinScore());
+        level.setRandomSeed(replay.getSeed());
+        ReplayControls controls = new ReplayControls(replay);
+        VarIntReader scores = new VarIntReader(replay.getScores());
+
+        int expectedScore = 0;
+        int nextScoreFrame = scores.isAtEnd() ? Integer.MAX_VALUE : scores.readVarInt();
+        int frames = 0;
+        int divergentFrame = ReplayVerification.NO_DIVERGENCE;
+
+        while (!level.isFinished() && frames < replay.getFrames()) {
+            controls.advance();
+            if (controls.hasInvalidChange()) {
+                divergentFrame = frames + 1;
+                break;
+            }
+            level.update(controls);
+            frames++;
+
+            if (frames == nextScoreFrame) {
+                expectedScore += scores.readSignedVarInt();
+                nextScoreFrame = scores.isAtEnd() ? Integer.MAX_VALUE : nextScoreFrame + scores.readVarInt();
+            }
+            if (level.getTotalScore() != expectedScore) {
+                divergentFrame = frames;
+                break;
+            }
+        }
+
+        // A play can also differ by ending on another frame, or by claiming a result its score changes do not add up to
+        if (divergentFrame == ReplayVerification.NO_DIVERGENCE && (frames != replay.getFrames()
+                || level.getTotalScore() != replay.getScore() || level.didWin() != replay.didWin())) {
+            divergentFrame = frames;
+        }
+
+        return new ReplayVerification(frames, level.getTotalScore(), level.didWin(), divergentFrame);
+    }
+
+    /**
+     * Plays back replays, printing each result and exiting with status 1 if any differs from the recording.
+     * @param args The replay files, optionally preceded by "--chart" and the chart file (csv or compiled) they were
+     *             recorded on. Otherwise each replay's chart is found in the level catalog.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: ReplayPlayer [--chart <chart csv or compiled chart>] <replay file>...");
+            System.exit(1);
+        }
+
+        int first = 0;
+        String chartFile = null;
+        if (args[0].equals("--chart") && args.length > 2) {
+            chartFile = args[1];
+            first = 2;
+        }
+
+        LevelCatalog catalog = null;
+        LevelInfo givenChart = null;
+        try {
+            if (chartFile == null) {
+                catalog = LevelCatalog.open(Paths.get(LevelCatalog.DEFAULT_DIRECTORY),
+                        Paths.get(LevelCatalog.DEFAULT_INDEX_FILE), false);
+            } else {
+                givenChart = LevelCatalog.describe(Paths.get(chartFile));
+            }
+        } catch (IOException e) {
+            System.err.println("Could not find the levels: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        boolean allMatched = true;
+        for (int i = first; i < args.length; i++) {
+            try {
+                Replay replay = ReplayFile.read(Paths.get(args[i]));
+                LevelInfo info = givenChart != null ? checkChart(givenChart, replay) : findChart(catalog, replay);
+                Chart chart = LevelCatalog.readChart(Paths.get(info.getFileName()));
+
+                long start = System.nanoTime();
+                ReplayVerification result = verify(replay, info, chart);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                allMatched &= result.matches();
+                System.out.printf("%s: %s, %d frames, score %d (recorded %d), %s (recorded %s), %.0f frames/s: "
+                        + "%s%n", args[i], replay.getChartFile(), result.getFrames(), result.getScore(),
+                        replay.getScore(), result.didWin() ? "won" : "lost", replay.didWin() ? "won" : "lost",
+                        result.getFrames() / seconds, result.matches() ? "matches"
+                                : "DIFFERS from frame " + result.getDivergentFrame());
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+                allMatched = false;
+            }
+        }
+
+        if (!allMatched) {
+            System.exit(1);
+        }
+    }
+}
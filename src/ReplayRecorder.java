@@ -0,0 +1,96 @@
+/**
+ * Records the presses and releases of a level's keys on every frame, and how its score changes, into a
+ * {@link Replay}. Only frames on which a key or the score changed take any space, usually three or four bytes each.
+ * The buffers are sized from the chart up front, so recording an ordinary play does not allocate.
+ */
+public class ReplayRecorder {
+    private final static int EVENT_BYTES_PER_FRAME = 8;
+    private final static int SCORE_BYTES_PER_NOTE = 10;
+
+    private final LevelInfo chart;
+    private final KeySet keys;
+    private final long seed;
+    private final VarIntWriter events;
+    private final VarIntWriter scores;
+    private int frames = 0;
+    private int lastEventFrame = 0;
+    private int lastScoreFrame = 0;
+    private int lastScore = 0;
+
+    /**
+     * Starts a recording. The level must be loaded from the chart and seeded with the same seed.
+     * @param chart The catalogued chart being played.
+     * @param keys The keys to record, which should be the keys the level responds to.
+     * @param seed The seed of the level's random numbers.
+     */
+    public ReplayRecorder(LevelInfo chart, KeySet keys, long seed) {
+        this.chart = chart;
+        this.keys = keys;
+        this.seed = seed;
+        // A timed key change takes up to twelve bytes, so this is room for a change every frame and a half for the
+        // length of the chart, and for every note to be judged twice, each changing the score.
+        events = new VarIntWriter(chart.getDurationFrames() * EVENT_BYTES_PER_FRAME);
+        scores = new VarIntWriter(chart.getTotalNoteCount() * SCORE_BYTES_PER_NOTE);
+    }
+
+    /**
+     * Records one frame. Called once after every level update, with the controls that were passed to it.
+     * @param input The controls for this frame.
+     * @param level The level which was updated.
+     */
+    public void record(Controls input, Level level) {
+        frames++;
+
+        int score = level.getTotalScore();
+        if (score != lastScore) {
+            scores.writeVarInt(frames - lastScoreFrame);
+            scores.writeSignedVarInt(score - lastScore);
+            lastScoreFrame = frames;
+            lastScore = score;
+        }
+
+        int changes = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            changes += (input.wasPressed(keys.get(i)) ? 1 : 0) + (input.wasReleased(keys.get(i)) ? 1 : 0);
+        }
+
+        if (changes == 0) {
+            return;
+        }
+
+        events.writeVarInt(frames - lastEventFrame);
+        events.writeVarInt(changes);
+        lastEventFrame = frames;
+
+        for (int i = 0; i < keys.size(); i++) {
+            if (input.wasPressed(keys.get(i))) {
+                writeChange(i, Replay.PRESS, input.getPressLag(keys.get(i)));
+            }
+            if (input.wasReleased(keys.get(i))) {
+                writeChange(i, Replay.RELEASE, input.getReleaseLag(keys.get(i)));
+            }
+        }
+    }
+
+    // Writes one key change, followed by how far through the frame it happened if that is known.
+    private void writeChange(int keyIndex, int kind, double lag) {
+        if (lag == 0) {
+            events.writeVarInt(keyIndex * Replay.KINDS + kind);
+        } else {
+            events.writeVarInt(keyIndex * Replay.KINDS + kind + Replay.LAG);
+            events.writeDouble(lag);
+        }
+    }
+
+    /**
+     * Ends the recording.
+     * @param level The level which was recorded, whose result is stored with the replay.
+     * @return The recorded replay.
+     */
+    public Replay finish(Level level) {
+        events.writeVarInt(frames - lastEventFrame);
+        events.writeVarInt(0);
+        return new Replay(chart.getFileName(), chart.getContentHash(), chart.getLevelNumber(), chart.getWinScore(),
+                keys, seed, frames, level.getTotalScore(), level.didWin(), events.toByteArray(), scores.toByteArray());
+    }
+}
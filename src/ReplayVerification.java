@@ -0,0 +1,69 @@
+/**
+ * The outcome of playing a replay back and comparing it with what was recorded.
+ */
+public class ReplayVerification {
+    /**
+     * The divergent frame of a replay which played back exactly as recorded.
+     */
+    public final static int NO_DIVERGENCE = -1;
+
+    private final int frames;
+    private final int score;
+    private final boolean won;
+    private final int divergentFrame;
+
+    /**
+     * Creates the outcome of playing back a replay.
+     * @param frames The number of frames that were played back.
+     * @param score The total score reached when playback stopped.
+     * @param won Whether the level was won when playback stopped.
+     * @param divergentFrame The first frame whose score or result differs from the recording, or
+     *                       {@link #NO_DIVERGENCE}.
+     */
+    public ReplayVerification(int frames, int score, boolean won, int divergentFrame) {
+        this.frames = frames;
+        this.score = score;
+        this.won = won;
+        this.divergentFrame = divergentFrame;
+    }
+
+    /**
+     * Gets the number of frames that were played back. Playback stops at the first divergent frame.
+     * @return The number of frames.
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * Gets the total score reached when playback stopped.
+     * @return The total score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Determines whether the level was won when playback stopped.
+     * @return Whether the level was won.
+     */
+    public boolean didWin() {
+        return won;
+    }
+
+    /**
+     * Gets the first frame whose score or result differs from the recording.
+     * @return The first divergent frame, or {@link #NO_DIVERGENCE} if the replay played back exactly.
+     */
+    public int getDivergentFrame() {
+        return divergentFrame;
+    }
+
+    /**
+     * Determines whether the replay played back exactly as recorded.
+     * @return Whether the replay matches its recording.
+     */
+    public boolean matches() {
+        return divergentFrame == NO_DIVERGENCE;
+    }
+}
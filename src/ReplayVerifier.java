@@ -0,0 +1,216 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Verifies a directory of submitted replays by playing each one back on a fork-join pool and checking it reaches the
+ * score it claims. Replays are read in batches of a fixed size, so memory use does not grow with the number of files.
+ * Each replay's chart is found in the level catalog, and is loaded once and shared by every replay of it.
+ */
+public class ReplayVerifier implements AutoCloseable {
+    private final static int BATCHES_PER_THREAD = 16;
+
+    private final ForkJoinPool pool;
+    private final int batchSize;
+    private final LevelCatalog catalog;
+    private final LevelInfo givenChart;
+    private final ConcurrentHashMap<String, Chart> charts = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> mismatches = new ConcurrentLinkedQueue<>();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Creates a verifier with its own fork-join pool.
+     * @param parallelism The number of replays to play back at once.
+     * @param catalog The catalog each replay's chart is found in, which is not used if a chart is given.
+     * @param givenChart The description of the chart every replay was recorded on, or null to find each replay's
+     *                   chart in the catalog.
+     */
+    public ReplayVerifier(int parallelism, LevelCatalog catalog, LevelInfo givenChart) {
+        pool = new ForkJoinPool(parallelism);
+        batchSize = parallelism * BATCHES_PER_THREAD;
+        this.catalog = catalog;
+        this.givenChart = givenChart;
+    }
+
+    // Plays back the replays in part of a batch, splitting it in two until a single replay is left.
+    private class VerifyTask extends RecursiveAction {
+        private final Path[] files;
+        private final int start;
+        private final int end;
+
+        VerifyTask(Path[] files, int start, int end) {
+            this.files = files;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new VerifyTask(files, start, middle), new VerifyTask(files, middle, end));
+            } else if (end > start) {
+                verifyFile(files[start]);
+            }
+        }
+    }
+
+    // Plays back one replay, counting it and noting any mismatch.
+    private void verifyFile(Path file) {
+        try {
+            Replay replay = ReplayFile.read(file);
+            LevelInfo info = givenChart != null ? ReplayPlayer.checkChart(givenChart, replay)
+                    : ReplayPlayer.findChart(catalog, replay);
+            ReplayVerification result = ReplayPlayer.verify(replay, info, getChart(info));
+
+            runs.increment();
+            frames.add(result.getFrames());
+            if (!result.matches()) {
+                failures.increment();
+                mismatches.add(String.format("%s: %s claims %d, diverges at frame %d with %d", file,
+                        replay.getChartFile(), replay.getScore(), result.getDivergentFrame(), result.getScore()));
+            }
+        } catch (IOException | UncheckedIOException e) {
+            runs.increment();
+            failures.increment();
+            mismatches.add(file + ": " + e.getMessage());
+        }
+    }
+
+    // Gets a chart, loading it the first time any replay needs it.
+    private Chart getChart(LevelInfo info) {
+        return charts.computeIfAbsent(info.getFileName(), key -> {
+            try {
+                return LevelCatalog.readChart(Paths.get(key));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Plays back every replay in a directory, printing each mismatch as soon as its batch is done.
+     * @param directory The directory holding the replays.
+     * @return Whether every replay matched the score it claims.
+     * @throws IOException If the directory could not be read.
+     */
+    public boolean verifyDirectory(Path directory) throws IOException {
+        List<Path> batch = new ArrayList<>(batchSize);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ReplayFile.EXTENSION)) {
+            for (Path file : files) {
+                batch.add(file);
+                if (batch.size() == batchSize) {
+                    verifyBatch(batch);
+                }
+            }
+        }
+        verifyBatch(batch);
+
+        return failures.sum() == 0;
+    }
+
+    // Plays back a batch of replays on the pool and reports its mismatches, leaving the batch empty.
+    private void verifyBatch(List<Path> batch) {
+        Path[] files = batch.toArray(new Path[0]);
+        pool.invoke(new VerifyTask(files, 0, files.length));
+        batch.clear();
+
+        String mismatch;
+        while ((mismatch = mismatches.poll()) != null) {
+            System.out.println(mismatch);
+        }
+    }
+
+    /**
+     * Gets the number of replays played back so far, including any which could not be read.
+     * @return The number of replays.
+     */
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    /**
+     * Gets the number of frames played back so far.
+     * @return The number of frames.
+     */
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    /**
+     * Gets the number of replays which did not match the score they claim or could not be read.
+     * @return The number of failed replays.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Stops the pool's threads.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Verifies a directory of replays and prints the throughput, exiting with status 1 if any replay fails.
+     * @param args The directory of replays, optionally followed by the number of threads and the chart file every
+     *             replay was recorded on.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: ReplayVerifier <replay directory> [threads] [chart csv or compiled chart]");
+            System.exit(1);
+        }
+
+        Path directory = Paths.get(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        LevelCatalog catalog = null;
+        LevelInfo givenChart = null;
+        try {
+            if (args.length > 2) {
+                givenChart = LevelCatalog.describe(Paths.get(args[2]));
+            } else {
+                catalog = LevelCatalog.open(Paths.get(LevelCatalog.DEFAULT_DIRECTORY),
+                        Paths.get(LevelCatalog.DEFAULT_INDEX_FILE), false);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not find the levels: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        boolean allMatched;
+        long start = System.nanoTime();
+        try (ReplayVerifier verifier = new ReplayVerifier(threads, catalog, givenChart)) {
+            allMatched = verifier.verifyDirectory(directory);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%d replays, %d failed, on %d threads in %.2f s: %.0f runs/s, %.0f frames/s%n",
+                    verifier.getRuns(), verifier.getFailures(), threads, seconds, verifier.getRuns() / seconds,
+                    verifier.getFrames() / seconds);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        if (!allMatched) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import bagel.Keys;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+
+/**
+ * Controls which replay a fixed script of key presses and releases, used to drive a level without a window.
+ * Frames are numbered the same way as the level's frames, so the first call to {@link #advance()} moves to frame 1.
+ * Scripts are indexed by frame so that replaying them does not allocate.
+ */
+public class ScriptedControls implements Controls {
+    private final ArrayList<EnumSet<Keys>> presses = new ArrayList<>();
+    private final ArrayList<EnumSet<Keys>> releases = new ArrayList<>();
+    private int currentFrame = 0;
+
+    // Gets the keys scheduled on a frame, creating the set if it does not exist yet.
+    private static EnumSet<Keys> keysOn(ArrayList<EnumSet<Keys>> script, int frame) {
+        while (script.size() <= frame) {
+            script.add(null);
+        }
+
+        EnumSet<Keys> keys = script.get(frame);
+        if (keys == null) {
+            keys = EnumSet.noneOf(Keys.class);
+            script.set(frame, keys);
+        }
+
+        return keys;
+    }
+
+    // Gets the keys scheduled on the current frame, or null if there are none.
+    private EnumSet<Keys> currentKeys(ArrayList<EnumSet<Keys>> script) {
+        return currentFrame < script.size() ? script.get(currentFrame) : null;
+    }
+
+    /**
+     * Schedules a key press.
+     * @param frame The frame the key should be pressed on.
+     * @param key The key to press.
+     * @return These controls, so that calls can be chained.
+     */
+    public ScriptedControls press(int frame, Keys key) {
+        keysOn(presses, frame).add(key);
+        return this;
+    }
+
+    /**
+     * Schedules a key release.
+     * @param frame The frame the key should be released on.
+     * @param key The key to release.
+     * @return These controls, so that calls can be chained.
+     */
+    public ScriptedControls release(int frame, Keys key) {
+        keysOn(releases, frame).add(key);
+        return this;
+    }
+
+    /**
+     * Moves the script on to the next frame. Should be called once before every level update.
+     */
+    public void advance() {
+        currentFrame++;
+    }
+
+    @Override
+    public boolean wasPressed(Keys key) {
+        EnumSet<Keys> keys = currentKeys(presses);
+        return keys != null && keys.contains(key);
+    }
+
+    @Override
+    public boolean wasReleased(Keys key) {
+        EnumSet<Keys> keys = currentKeys(releases);
+        return keys != null && keys.contains(key);
+    }
+}
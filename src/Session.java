@@ -0,0 +1,56 @@
+import java.util.concurrent.Callable;
+
+/**
+ * One independent play of a level with its own level, scoring, effects and input. Sessions share nothing but the
+ * chart they are built from, which is only read, so any number of them can run on different threads at once.
+ */
+public class Session implements Callable<SessionResult> {
+    private final int levelNumber;
+    private final Chart chart;
+    private final boolean packedNotes;
+    private final long seed;
+    private final double pressChance;
+    private final int maxFrames;
+
+    /**
+     * Creates a session which plays a chart with random key presses.
+     * @param levelNumber The number of the level used to determine the rules and winning score.
+     * @param chart The chart to play.
+     * @param packedNotes Whether to store notes in primitive arrays rather than as objects.
+     * @param seed The seed for the key presses and for the level's own random numbers.
+     * @param pressChance The chance of each key being pressed on a frame.
+     * @param maxFrames The maximum number of frames to simulate.
+     */
+    public Session(int levelNumber, Chart chart, boolean packedNotes, long seed, double pressChance, int maxFrames) {
+        this.levelNumber = levelNumber;
+        this.chart = chart;
+        this.packedNotes = packedNotes;
+        this.seed = seed;
+        this.pressChance = pressChance;
+        this.maxFrames = maxFrames;
+    }
+
+    /**
+     * Plays the session until the level finishes or the frame limit is reached.
+     * @return The result of the session.
+     */
+    public SessionResult run() {
+        Level level = new Level(levelNumber, chart, packedNotes);
+        level.setRandomSeed(seed);
+        RandomControls controls = new RandomControls(level.getKeys(), seed, pressChance);
+
+        int frames = 0;
+        while (!level.isFinished() && frames < maxFrames) {
+            controls.advance();
+            level.update(controls);
+            frames++;
+        }
+
+        return new SessionResult(seed, frames, level.getTotalScore(), level.didWin());
+    }
+
+    @Override
+    public SessionResult call() {
+        return run();
+    }
+}
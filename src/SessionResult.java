@@ -0,0 +1,55 @@
+/**
+ * The outcome of playing a session through to the end.
+ */
+public class SessionResult {
+    private final long seed;
+    private final int frames;
+    private final int score;
+    private final boolean won;
+
+    /**
+     * Creates the result of a session.
+     * @param seed The seed the session was played with.
+     * @param frames The number of frames that were simulated.
+     * @param score The total score reached.
+     * @param won Whether the level was won.
+     */
+    public SessionResult(long seed, int frames, int score, boolean won) {
+        this.seed = seed;
+        this.frames = frames;
+        this.score = score;
+        this.won = won;
+    }
+
+    /**
+     * Gets the seed the session was played with.
+     * @return The session's seed.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Gets the number of frames that were simulated.
+     * @return The number of frames.
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * Gets the total score reached.
+     * @return The total score.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Determines whether the level was won.
+     * @return Whether the level was won.
+     */
+    public boolean didWin() {
+        return won;
+    }
+}
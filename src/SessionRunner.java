@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many independent headless sessions in parallel on a fixed pool of threads, such as to check how a chart
+ * plays for thousands of different players.
+ */
+public class SessionRunner implements AutoCloseable {
+    private final static int DEFAULT_SESSIONS = 1000;
+    private final static int DEFAULT_MAX_FRAMES = 1_000_000;
+    private final static double PRESS_CHANCE = 0.02;
+
+    private final ExecutorService pool;
+
+    /**
+     * Creates a runner with its own pool of threads.
+     * @param threads The number of sessions to run at once.
+     */
+    public SessionRunner(int threads) {
+        pool = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Runs sessions on the pool and waits for all of them to finish.
+     * @param sessions The sessions to run.
+     * @return The result of every session, in the same order as the sessions.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public List<SessionResult> runAll(List<Session> sessions) throws InterruptedException {
+        List<SessionResult> results = new ArrayList<>(sessions.size());
+
+        for (Future<SessionResult> future : pool.invokeAll(sessions)) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A session failed", e.getCause());
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Stops the pool's threads once the sessions already submitted are done.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Plays a chart many times with different random players and prints the throughput and scores.
+     * @param args The level number, optionally followed by a chart file (csv or compiled), the number of sessions and
+     *             the number of threads.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("usage: SessionRunner <level number> [chart csv or compiled chart] [sessions] "
+                    + "[threads]");
+            System.exit(1);
+        }
+
+        int levelNumber = Integer.parseInt(args[0]);
+        Path file = Paths.get(args.length > 1 ? args[1] : "res/level" + levelNumber + ".csv");
+        int sessionCount = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SESSIONS;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        Chart chart;
+        try {
+            chart = file.toString().endsWith(ChartFile.EXTENSION) ? ChartFile.read(file) : ChartCompiler.parseCsv(file);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        List<Session> sessions = new ArrayList<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            sessions.add(new Session(levelNumber, chart, true, i, PRESS_CHANCE, DEFAULT_MAX_FRAMES));
+        }
+
+        List<SessionResult> results;
+        long start = System.nanoTime();
+        try (SessionRunner runner = new SessionRunner(threads)) {
+            results = runner.runAll(sessions);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long totalFrames = 0;
+        long totalScore = 0;
+        int wins = 0;
+        int bestScore = Integer.MIN_VALUE;
+        int worstScore = Integer.MAX_VALUE;
+        for (SessionResult result : results) {
+            totalFrames += result.getFrames();
+            totalScore += result.getScore();
+            bestScore = Math.max(bestScore, result.getScore());
+            worstScore = Math.min(worstScore, result.getScore());
+            if (result.didWin()) {
+                wins++;
+            }
+        }
+
+        System.out.printf("%d sessions on %d threads in %.2f s: %.0f sessions/s, %.0f frames/s%n", sessionCount,
+                threads, seconds, sessionCount / seconds, totalFrames / seconds);
+        System.out.printf("score: %.1f average, %d worst, %d best; %d won%n", (double) totalScore / sessionCount,
+                worstScore, bestScore, wins);
+    }
+}
@@ -1,5 +1,11 @@
 import bagel.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * SWEN20003 Project 2, Semester 2, 2023.
  * Inspiration taken from Project 1 solution.
@@ -7,16 +13,21 @@ import bagel.*;
  */
 
 public class ShadowDance extends AbstractGame  {
-    private final static int WINDOW_WIDTH = 1024;
-    private final static int WINDOW_HEIGHT = 768;
+    /**
+     * The width of the game window in pixels.
+     */
+    public final static int WINDOW_WIDTH = 1024;
+    /**
+     * The height of the game window in pixels.
+     */
+    public final static int WINDOW_HEIGHT = 768;
     private final static int DEFAULT_FONT_SIZE = 64;
     private final static int INSTRUCTIONS_FONT_SIZE = 24;
     private final static int TITLE_POSITION_Y = 250;
     private final static int INSTRUCTIONS_TOP_POSITION_Y = TITLE_POSITION_Y + 190;
     private final static int INSTRUCTIONS_BOTTOM_POSITION_Y = INSTRUCTIONS_TOP_POSITION_Y + INSTRUCTIONS_FONT_SIZE + 16;
     private final static int LEVEL_SELECTION_POSITION_Y = INSTRUCTIONS_BOTTOM_POSITION_Y + 100;
-    private final static int LEVEL_COUNT = 3;
-    private final static String LEVEL_SELECTION_TEXT = "1 2 3";
+    private final static int LEVELS_PER_PAGE = 9;
     private final static String GAME_TITLE = "SHADOW DANCE";
     private final static String INSTRUCTIONS_TOP_LINE = "SELECT LEVELS WITH";
     private final static String INSTRUCTIONS_BOTTOM_LINE = "NUMBER KEYS";
@@ -25,18 +36,112 @@ public class ShadowDance extends AbstractGame  {
     private final static String LOSE_TEXT = "TRY AGAIN";
     private final static String RETURN_TEXT = "PRESS SPACE TO RETURN TO LEVEL SELECTION";
     private final static int RETURN_POSITION_Y = 500;
-    private final static String NUM_KEY_PREFIX = "NUM_";
+    private final static Keys[] LEVEL_KEYS = {Keys.NUM_1, Keys.NUM_2, Keys.NUM_3, Keys.NUM_4, Keys.NUM_5, Keys.NUM_6,
+            Keys.NUM_7, Keys.NUM_8, Keys.NUM_9};
+    private final static String PAGE_TEXT = "PAGE %d OF %d - LEFT AND RIGHT TO TURN";
+    private final static String LOADING_TEXT = "LOADING LEVEL ";
+    private final static String FAILED_TEXT = "COULD NOT LOAD LEVEL ";
+    private final static int LOADING_POSITION_Y = LEVEL_SELECTION_POSITION_Y + 60;
+    private final static int PAGE_POSITION_Y = LOADING_POSITION_Y + 40;
+    private final static String REPLAY_DIRECTORY = "replays";
+    private final static String PERFORMANCE_DIRECTORY = "perf";
 
     private final Image BACKGROUND_IMAGE = new Image("res/background.png");
     private final Font TITLE_FONT = new Font("res/FSO8BITR.TTF", DEFAULT_FONT_SIZE);
     private final Font INSTRUCTIONS_FONT = new Font("res/FSO8BITR.TTF", INSTRUCTIONS_FONT_SIZE);
-    private static Level currentLevel;
+    private final Font SCORE_FONT = Level.createScoreFont();
+    private final Font MESSAGE_FONT = Accuracy.createFont();
+    private final TextElement[] titleTexts = {
+            new TextElement(TITLE_FONT, GAME_TITLE, 0.5 * WINDOW_WIDTH, TITLE_POSITION_Y, true),
+            new TextElement(INSTRUCTIONS_FONT, INSTRUCTIONS_TOP_LINE, 0.5 * WINDOW_WIDTH, INSTRUCTIONS_TOP_POSITION_Y,
+                    true),
+            new TextElement(INSTRUCTIONS_FONT, INSTRUCTIONS_BOTTOM_LINE, 0.5 * WINDOW_WIDTH,
+                    INSTRUCTIONS_BOTTOM_POSITION_Y, true)
+    };
+    private final TextElement selectionText = new TextElement(INSTRUCTIONS_FONT, 0.5 * WINDOW_WIDTH,
+            LEVEL_SELECTION_POSITION_Y, true);
+    private final TextElement pageText = new TextElement(INSTRUCTIONS_FONT, 0.5 * WINDOW_WIDTH, PAGE_POSITION_Y,
+            true);
+    private final TextElement loadingText = new TextElement(INSTRUCTIONS_FONT, 0.5 * WINDOW_WIDTH, LOADING_POSITION_Y,
+            true);
+    private final TextElement resultText = new TextElement(TITLE_FONT, 0.5 * WINDOW_WIDTH, WIN_POSITION_Y, true);
+    private final TextElement returnText = new TextElement(INSTRUCTIONS_FONT, RETURN_TEXT, 0.5 * WINDOW_WIDTH,
+            RETURN_POSITION_Y, true);
+    private final FrameTimer titleTimer = new FrameTimer();
+    private final FrameTimer levelTimer = new FrameTimer();
+    private final FrameTimer endTimer = new FrameTimer();
+    private final LatchedControls controls = new LatchedControls();
+    private final SimulationClock simulationClock = new SimulationClock();
+    private final KeyTimestamper keyTimestamper = new KeyTimestamper();
+    private final TextureCache textures = new TextureCache();
+    private final PerformanceOverlay overlay = new PerformanceOverlay(textures, controls);
+    private final SpriteBatch sprites = new SpriteBatch(new BagelSpriteBackend(textures), WINDOW_WIDTH, WINDOW_HEIGHT);
+    private final LevelCatalog catalog = openCatalog();
+    private final LevelLoader loader = new LevelLoader(catalog, textures);
+    private StepClock clock = simulationClock;
+    private AudioSink audioSink = null;
+    private AudioStream music = null;
+    private Level currentLevel = null;
+    private LevelInfo currentChart = null;
+    private ReplayRecorder recorder = null;
+    private int requestedLevel = 0;
+    private int page = 0;
+    private boolean timestampsInstalled = false;
 
     /**
      * Create a new instance of the ShadowDance game.
      */
     public ShadowDance() {
         super(WINDOW_WIDTH, WINDOW_HEIGHT, GAME_TITLE);
+        showPage(0);
+    }
+
+    // Finds the levels from the catalog's index, so only charts which are new or have changed are read.
+    private static LevelCatalog openCatalog() {
+        try {
+            return LevelCatalog.open(Paths.get(LevelCatalog.DEFAULT_DIRECTORY),
+                    Paths.get(LevelCatalog.DEFAULT_INDEX_FILE), false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not find the levels", e);
+        }
+    }
+
+    // Shows a page of levels on the title screen and starts preloading them. The levels of the page it replaces are
+    // dropped along with any level chosen from it, so only one page of levels is ever held in memory.
+    private void showPage(int newPage) {
+        for (int number = getFirstOnPage(page); number <= getLastOnPage(page); number++) {
+            loader.discard(number);
+        }
+        requestedLevel = 0;
+
+        page = newPage;
+        int first = getFirstOnPage(page);
+        int last = getLastOnPage(page);
+
+        StringBuilder selection = new StringBuilder();
+        for (int number = first; number <= last; number++) {
+            selection.append(number == first ? "" : " ").append(number - first + 1);
+            loader.preload(number);
+        }
+        selectionText.setText(selection.toString());
+
+        int pageCount = getPageCount();
+        pageText.setText(pageCount > 1 ? String.format(PAGE_TEXT, page + 1, pageCount) : null);
+    }
+
+    // Gets the number of the first level on a page.
+    private static int getFirstOnPage(int page) {
+        return page * LEVELS_PER_PAGE + 1;
+    }
+
+    // Gets the number of the last level on a page.
+    private int getLastOnPage(int page) {
+        return Math.min(catalog.size(), getFirstOnPage(page) + LEVELS_PER_PAGE - 1);
+    }
+
+    // Gets the number of pages the levels are shown on.
+    private int getPageCount() {
+        return Math.max(1, (catalog.size() + LEVELS_PER_PAGE - 1) / LEVELS_PER_PAGE);
     }
 
     /**
@@ -49,67 +154,202 @@ public class ShadowDance extends AbstractGame  {
     }
 
     /**
-     * Get the level which is currently being played.
-     * @return The level currently being played.
-     */
-    public static Level getCurrentLevel() {
-        return currentLevel;
-    }
-
-    /**
-     * Update the state of the game, potentially reading from input.
+     * Update the state of the game, potentially reading from input. The CPU time of every frame is measured
+     * separately for the title screen, levels and the end screen, and F3 shows or hides the performance overlay.
      * @param input The bagel input object.
      */
     @Override
     protected void update(Input input) {
+        FrameTimer timer = currentLevel == null ? titleTimer : currentLevel.isFinished() ? endTimer : levelTimer;
+        timer.begin();
+        overlay.beginFrame();
+        if (input.wasPressed(Keys.F3)) {
+            overlay.toggle();
+        }
+
+        updateScreen(input);
+
+        overlay.endFrame();
+        overlay.draw(currentLevel, timer);
+        timer.end();
+    }
+
+    // Updates and draws whichever screen is showing.
+    private void updateScreen(Input input) {
+        // Bagel has set up its own key callback by the first frame, so timestamped keys are chained in front of it here
+        if (!timestampsInstalled) {
+            keyTimestamper.install();
+            controls.useTimestamps(keyTimestamper.getQueue());
+            timestampsInstalled = true;
+        }
+
         if (input.wasPressed(Keys.ESCAPE)) {
             Window.close();
         }
 
         BACKGROUND_IMAGE.draw(0.5 * Window.getWidth(), 0.5 * Window.getHeight());
 
-        // Check if the player started a level
-        for (int numKey = 1; numKey <= LEVEL_COUNT; numKey++) {
-            if (input.wasPressed(Keys.valueOf(NUM_KEY_PREFIX + numKey)) && currentLevel == null) {
-                currentLevel = new Level(numKey);
+        // Levels are only uploaded between levels so that preloading never takes time from gameplay
+        if (currentLevel == null || currentLevel.isFinished()) {
+            loader.update();
+        }
+
+        // Check if the player turned the page or started a level, which may still be loading in the background
+        if (currentLevel == null) {
+            if (input.wasPressed(Keys.RIGHT) && page + 1 < getPageCount()) {
+                showPage(page + 1);
+            } else if (input.wasPressed(Keys.LEFT) && page > 0) {
+                showPage(page - 1);
+            }
+
+            for (int numKey = 1; numKey <= LEVEL_KEYS.length; numKey++) {
+                int number = page * LEVELS_PER_PAGE + numKey;
+                if (input.wasPressed(LEVEL_KEYS[numKey - 1]) && number <= catalog.size()) {
+                    loader.preload(number);
+                    requestedLevel = number;
+                }
+            }
+        }
+
+        if (currentLevel == null && requestedLevel != 0) {
+            LevelStartEvent event = LevelStartEvent.start();
+            currentLevel = loader.take(requestedLevel);
+            if (currentLevel != null) {
+                currentChart = catalog.get(requestedLevel);
+                startMusic(currentChart);
+                clock.reset();
+                controls.reset();
+                overlay.reset();
+                long seed = System.nanoTime();
+                currentLevel.setRandomSeed(seed);
+                recorder = new ReplayRecorder(currentChart, currentLevel.getKeys(), seed);
+                LevelStartEvent.finish(event, requestedLevel, currentChart.getName());
+                requestedLevel = 0;
             }
         }
 
         if (currentLevel == null) {
             // Draw title screen
-            TITLE_FONT.drawString(GAME_TITLE,
-                    0.5 * (Window.getWidth() - TITLE_FONT.getWidth(GAME_TITLE)),
-                    TITLE_POSITION_Y);
-            INSTRUCTIONS_FONT.drawString(INSTRUCTIONS_TOP_LINE,
-                    0.5 * (Window.getWidth() - INSTRUCTIONS_FONT.getWidth(INSTRUCTIONS_TOP_LINE)),
-                    INSTRUCTIONS_TOP_POSITION_Y);
-            INSTRUCTIONS_FONT.drawString(INSTRUCTIONS_BOTTOM_LINE,
-                    0.5 * (Window.getWidth() - INSTRUCTIONS_FONT.getWidth(INSTRUCTIONS_BOTTOM_LINE)),
-                    INSTRUCTIONS_BOTTOM_POSITION_Y);
-            INSTRUCTIONS_FONT.drawString(LEVEL_SELECTION_TEXT,
-                    0.5 * (Window.getWidth() - INSTRUCTIONS_FONT.getWidth(LEVEL_SELECTION_TEXT)),
-                    LEVEL_SELECTION_POSITION_Y);
+            for (TextElement text : titleTexts) {
+                text.draw();
+            }
+            selectionText.draw();
+            pageText.draw();
+
+            // Show that a chosen level is still loading rather than holding up the frame
+            if (requestedLevel != 0) {
+                loadingText.setText(loader.getState(requestedLevel) == PreloadState.FAILED ? FAILED_TEXT
+                        : LOADING_TEXT, requestedLevel);
+                loadingText.draw();
+            }
             return;
         }
 
         if (currentLevel.isFinished()) {
             // End the game and calculate whether the player won or not since the level is over
-            String textToDraw = currentLevel.didWin() ? WIN_TEXT : LOSE_TEXT;
-            TITLE_FONT.drawString(textToDraw,
-                    0.5 * (Window.getWidth() - TITLE_FONT.getWidth(textToDraw)),
-                    WIN_POSITION_Y);
-            INSTRUCTIONS_FONT.drawString(RETURN_TEXT,
-                    0.5 * (Window.getWidth() - INSTRUCTIONS_FONT.getWidth(RETURN_TEXT)),
-                    RETURN_POSITION_Y);
+            resultText.setText(currentLevel.didWin() ? WIN_TEXT : LOSE_TEXT);
+            resultText.draw();
+            returnText.draw();
 
             if (input.wasPressed(Keys.SPACE)) {
+                levelTimer.reset();
+                endTimer.reset();
+                saveReplay();
+                stopMusic();
+                currentLevel.releaseTextures(textures);
                 currentLevel = null;
-                Accuracy.reset();
+                currentChart = null;
             }
 
             return;
         }
 
-        currentLevel.update(input);
+        // Run as many fixed steps as the time since the last frame calls for, then draw between the last two of them
+        controls.capture(input);
+        if (music != null) {
+            music.update();
+        }
+        long simulationStart = System.nanoTime();
+        StepLoop.run(clock, clock.advance(simulationStart), controls, currentLevel, recorder);
+
+        long renderStart = System.nanoTime();
+        overlay.addSimulationTime(renderStart - simulationStart);
+        currentLevel.draw(sprites, clock.getAlpha(), SCORE_FONT, MESSAGE_FONT);
+        overlay.addRenderTime(System.nanoTime() - renderStart);
+
+        if (currentLevel.isFinished() && overlay.isVisible()) {
+            savePerformance();
+        }
+    }
+
+    // Writes the frame times of the level which just finished while the performance overlay was showing.
+    private void savePerformance() {
+        Path file = Paths.get(PERFORMANCE_DIRECTORY, String.format("%s-%d.csv", currentChart.getName(),
+                System.currentTimeMillis()));
+
+        try {
+            overlay.dump(file, currentLevel);
+            System.out.println("Performance saved to " + file);
+        } catch (IOException e) {
+            System.err.println("Could not save the performance: " + e.getMessage());
+        }
+    }
+
+    // Plays the chart's track if there is one and times the chart from it, otherwise the chart is timed by the frames.
+    private void startMusic(LevelInfo chart) {
+        clock = simulationClock;
+        Path file = LevelCatalog.getTrackFile(chart);
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        // Without a sound device the track is still streamed to a silent sink so the chart keeps the same timing.
+        if (audioSink == null) {
+            try {
+                audioSink = new OpenAlSink();
+            } catch (IllegalStateException | LinkageError e) {
+                System.err.println("Playing without sound: " + e.getMessage());
+                audioSink = new NullAudioSink();
+            }
+        }
+
+        try {
+            music = new AudioStream(file, audioSink);
+            music.start();
+            clock = new ChartClock(music);
+        } catch (IOException e) {
+            System.err.println("Could not play the track: " + e.getMessage());
+            stopMusic();
+        }
+    }
+
+    // Stops the track of the level which just finished, if it had one.
+    private void stopMusic() {
+        if (music == null) {
+            return;
+        }
+
+        try {
+            music.close();
+        } catch (IOException e) {
+            System.err.println("Could not close the track: " + e.getMessage());
+        }
+        music = null;
+    }
+
+    // Saves the recording of the level which just finished so that the play can be reproduced.
+    private void saveReplay() {
+        Replay replay = recorder.finish(currentLevel);
+        Path file = Paths.get(REPLAY_DIRECTORY, String.format("%s-%d%s", currentChart.getName(),
+                System.currentTimeMillis(), ReplayFile.EXTENSION));
+
+        try {
+            Files.createDirectories(file.getParent());
+            ReplayFile.write(replay, file);
+            System.out.printf("Replay saved to %s (%d bytes of input for %d frames)%n", file,
+                    replay.getEvents().length, replay.getFrames());
+        } catch (IOException e) {
+            System.err.println("Could not save the replay: " + e.getMessage());
+        }
     }
 }
@@ -0,0 +1,109 @@
+/**
+ * Decides how many fixed-length simulation steps to run for each rendered frame, so the game plays at the same speed
+ * whatever the display's refresh rate. Real time is collected in an accumulator and simulated in whole steps, with
+ * the simulation always run up to the first step at or after the current time. The state drawn is then interpolated
+ * between the last two steps using {@link #getAlpha()}.
+ * <p>
+ * Frame times within a small tolerance of a whole number of steps are snapped to it, so on a display which refreshes
+ * at the simulation rate every frame runs exactly one step despite timer jitter, just as if there were no clock.
+ */
+public class SimulationClock implements StepClock {
+    /**
+     * The default number of simulation steps per second, which the game's timings were designed around.
+     */
+    public final static int DEFAULT_STEPS_PER_SECOND = 60;
+    private final static long NANOS_PER_SECOND = 1_000_000_000L;
+    private final static long SNAP_TOLERANCE_NANOS = 500_000;
+    // After a long stall, stop catching up rather than freezing the display while many steps run.
+    private final static int MAX_STEPS_PER_FRAME = 8;
+
+    private final long stepNanos;
+    private long lastTime = 0;
+    private boolean started = false;
+    private long accumulator = 0;
+
+    /**
+     * Creates a clock which runs the simulation at the default rate.
+     */
+    public SimulationClock() {
+        this(DEFAULT_STEPS_PER_SECOND);
+    }
+
+    /**
+     * Creates a clock which runs the simulation at a given rate.
+     * @param stepsPerSecond The number of simulation steps per second.
+     */
+    public SimulationClock(int stepsPerSecond) {
+        stepNanos = NANOS_PER_SECOND / stepsPerSecond;
+    }
+
+    /**
+     * Restarts the clock, so that the next frame runs exactly one step. Used when a level starts.
+     */
+    @Override
+    public void reset() {
+        started = false;
+        accumulator = 0;
+    }
+
+    /**
+     * Adds the time since the last frame and works out how many simulation steps to run for this frame.
+     * @param now The current time in nanoseconds, from {@link System#nanoTime()}.
+     * @return The number of steps to run this frame, which may be zero on displays faster than the simulation.
+     */
+    @Override
+    public int advance(long now) {
+        long delta = started ? now - lastTime : stepNanos;
+        lastTime = now;
+        started = true;
+
+        long wholeSteps = Math.round((double) delta / stepNanos);
+        if (wholeSteps > 0 && Math.abs(delta - wholeSteps * stepNanos) <= SNAP_TOLERANCE_NANOS) {
+            delta = wholeSteps * stepNanos;
+        }
+
+        accumulator += delta;
+        int steps = 0;
+        while (accumulator > 0 && steps < MAX_STEPS_PER_FRAME) {
+            accumulator -= stepNanos;
+            steps++;
+        }
+
+        // Drop any time which could not be caught up on.
+        if (accumulator > 0) {
+            accumulator = 0;
+        }
+
+        return steps;
+    }
+
+    /**
+     * Gets the length of a simulation step.
+     * @return The length of a step in nanoseconds.
+     */
+    @Override
+    public long getStepNanos() {
+        return stepNanos;
+    }
+
+    /**
+     * Gets the time which one of the steps run for the latest frame simulates up to.
+     * @param step The index of the step within the frame, from 0.
+     * @param steps The number of steps run for the frame, as returned by {@link #advance(long)}.
+     * @return The time at the end of the step in nanoseconds, from {@link System#nanoTime()}.
+     */
+    @Override
+    public long getStepTime(int step, int steps) {
+        return lastTime - accumulator - (steps - 1 - step) * stepNanos;
+    }
+
+    /**
+     * Gets how far the current time is between the last two simulation steps, where 1 means the current time is
+     * exactly the time of the latest step.
+     * @return A value above 0 and at most 1.
+     */
+    @Override
+    public double getAlpha() {
+        return 1 + (double) accumulator / stepNanos;
+    }
+}
@@ -0,0 +1,134 @@
+import java.util.Arrays;
+
+/**
+ * A histogram of the most recent samples of some measurement, such as frame times. Samples are kept in a ring of
+ * fixed size, and each one is also counted in a bucket of fixed width, so that adding a sample and dropping the
+ * oldest one is constant time and percentiles only need a walk over the buckets. All storage is allocated up front,
+ * so recording samples never allocates. Values beyond the last bucket are counted in it.
+ * <p>
+ * A histogram has a single writer and takes no locks. It should be read from the thread which writes to it.
+ */
+public class SlidingHistogram {
+    private final long[] samples;
+    private final int[] bucketCounts;
+    private final long bucketWidth;
+    private int next = 0;
+    private int count = 0;
+    private long sum = 0;
+
+    /**
+     * Creates an empty histogram.
+     * @param windowSize The number of most recent samples to keep.
+     * @param bucketWidth The range of values counted in each bucket.
+     * @param bucketCount The number of buckets.
+     */
+    public SlidingHistogram(int windowSize, long bucketWidth, int bucketCount) {
+        samples = new long[windowSize];
+        bucketCounts = new int[bucketCount];
+        this.bucketWidth = bucketWidth;
+    }
+
+    // Finds the bucket a value is counted in.
+    private int bucket(long value) {
+        return (int) Math.max(0, Math.min(bucketCounts.length - 1, value / bucketWidth));
+    }
+
+    /**
+     * Adds a sample, dropping the oldest one if the window is full.
+     * @param value The value of the sample.
+     */
+    public void record(long value) {
+        if (count == samples.length) {
+            long oldest = samples[next];
+            bucketCounts[bucket(oldest)]--;
+            sum -= oldest;
+        } else {
+            count++;
+        }
+
+        samples[next] = value;
+        bucketCounts[bucket(value)]++;
+        sum += value;
+        next = next + 1 == samples.length ? 0 : next + 1;
+    }
+
+    /**
+     * Gets the number of samples in the window.
+     * @return The number of samples.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets a sample in the window.
+     * @param index The index of the sample, where 0 is the oldest.
+     * @return The value of the sample.
+     */
+    public long getSample(int index) {
+        int slot = next - count + index;
+        return samples[slot < 0 ? slot + samples.length : slot];
+    }
+
+    /**
+     * Gets the sum of the samples in the window.
+     * @return The sum of the samples.
+     */
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * Gets the mean of the samples in the window.
+     * @return The mean, or 0 if there are no samples.
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Gets the largest sample in the window, exactly rather than to the width of a bucket.
+     * @return The largest sample, or 0 if there are no samples.
+     */
+    public long getMax() {
+        long max = 0;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, samples[i]);
+        }
+
+        return max;
+    }
+
+    /**
+     * Gets a percentile of the samples in the window, to the width of a bucket.
+     * @param percentile The percentile, from 0 to 100.
+     * @return The upper edge of the bucket holding the percentile, at most the largest sample, or 0 if there are no
+     * samples.
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return Math.min((i + 1) * bucketWidth, getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Forgets every sample.
+     */
+    public void clear() {
+        Arrays.fill(bucketCounts, 0);
+        next = 0;
+        count = 0;
+        sum = 0;
+    }
+}
@@ -1,11 +1,13 @@
-import bagel.Input;
 import bagel.Keys;
 
 /**
  * An abstract superclass representing any special note.
  */
 public abstract class SpecialNote extends Note {
-    private final static int SPECIAL_DISTANCE = 50;
+    /**
+     * The furthest a special note can be from the target and still be activated.
+     */
+    public final static int SPECIAL_DISTANCE = 50;
 
     /**
      * Create a new special note based on a set of parameters.
@@ -24,7 +26,7 @@ public abstract class SpecialNote extends Note {
     }
 
     @Override
-    public int checkScore(Input input, Lane lane, int targetHeight, Keys key) {
+    public int checkScore(Controls input, Lane lane, int targetHeight, Keys key) {
         if (!isActive()) {
             return Accuracy.NOT_SCORED;
         }
@@ -33,7 +35,8 @@ public abstract class SpecialNote extends Note {
 
         if (getHeight() >= targetHeight && distance > SPECIAL_DISTANCE) {
             deactivate();
-        } else if (input.wasPressed(key) && distance <= SPECIAL_DISTANCE) {
+        } else if (input.wasPressed(key) && Math.abs(targetHeight - (getHeight() - input.getPressLag(key)
+                * lane.getLastFallSpeed())) <= SPECIAL_DISTANCE) {
             activateEffect(lane);
             deactivate();
             return getScore();
@@ -10,6 +10,11 @@ public class SpeedUpNote extends SpecialNote {
         super(appearanceFrame, IMAGE_FILE);
     }
 
+    @Override
+    public NoteType getType() {
+        return NoteType.SPEED_UP;
+    }
+
     @Override
     protected int getScore() {
         return SCORE;
@@ -17,8 +22,8 @@ public class SpeedUpNote extends SpecialNote {
 
     @Override
     protected void activateEffect(Lane lane) {
-        Accuracy.setMessage(ACTIVATE_MESSAGE);
-        Level level = ShadowDance.getCurrentLevel();
+        lane.getLevel().getAccuracy().setMessage(ACTIVATE_MESSAGE);
+        Level level = lane.getLevel();
         level.setFallSpeed(level.getFallSpeed() + 1);
     }
 }
@@ -0,0 +1,35 @@
+/**
+ * Where a {@link SpriteBatch} sends its sprites once they are culled and grouped by texture. Sprites are drawn
+ * centred on their position, like bagel's images.
+ */
+public interface SpriteBackend {
+    /**
+     * Gets the width of a texture, used to tell whether a sprite is on screen.
+     * @param texture The file name of the texture.
+     * @return The width of the texture in pixels.
+     */
+    double getWidth(String texture);
+
+    /**
+     * Gets the height of a texture, used to tell whether a sprite is on screen.
+     * @param texture The file name of the texture.
+     * @return The height of the texture in pixels.
+     */
+    double getHeight(String texture);
+
+    /**
+     * Starts a run of sprites which all use the same texture. Every following call to
+     * {@link #draw(double, double, double)} uses this texture until the next batch begins.
+     * @param texture The file name of the texture.
+     * @param count The number of sprites in the batch.
+     */
+    void beginBatch(String texture, int count);
+
+    /**
+     * Draws one sprite with the texture of the current batch.
+     * @param x The x coordinate of the centre of the sprite.
+     * @param y The y coordinate of the centre of the sprite.
+     * @param rotation The rotation of the sprite in radians.
+     */
+    void draw(double x, double y, double rotation);
+}
@@ -0,0 +1,201 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Collects the sprites of a frame and submits them to a backend in as few batches as possible. Sprites outside the
+ * viewport are culled as they are added. When the batch is flushed the remaining sprites are grouped by layer and,
+ * within a layer, by texture, so every texture is looked up once per layer rather than once per sprite. Lower layers
+ * are drawn first; sprites in the same layer with the same texture keep the order they were added in.
+ * <p>
+ * Flushing sorts with a counting sort over reused arrays, so once the arrays have grown to fit a frame, drawing
+ * does not allocate.
+ */
+public class SpriteBatch {
+    /**
+     * The number of layers sprites can be drawn in.
+     */
+    public final static int LAYER_COUNT = 8;
+
+    private final static int INITIAL_CAPACITY = 256;
+    private final static int INITIAL_TEXTURES = 16;
+
+    private final SpriteBackend backend;
+    private final double viewportWidth;
+    private final double viewportHeight;
+    private final HashMap<String, Integer> textureIds = new HashMap<>();
+    private final ArrayList<String> textures = new ArrayList<>();
+    private double[] halfWidths = new double[INITIAL_TEXTURES];
+    private double[] halfHeights = new double[INITIAL_TEXTURES];
+    private double[] radii = new double[INITIAL_TEXTURES];
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    private double[] rotations = new double[INITIAL_CAPACITY];
+    private int[] order = new int[INITIAL_CAPACITY];
+    private int[] bucketStarts = new int[LAYER_COUNT * INITIAL_TEXTURES + 1];
+    private int count = 0;
+    private int culled = 0;
+    private int lastDrawCount = 0;
+    private int lastBatchCount = 0;
+    private int lastCulledCount = 0;
+
+    /**
+     * Creates an empty batch.
+     * @param backend Where to send the sprites when the batch is flushed.
+     * @param viewportWidth The width of the visible area, which starts at x = 0.
+     * @param viewportHeight The height of the visible area, which starts at y = 0.
+     */
+    public SpriteBatch(SpriteBackend backend, double viewportWidth, double viewportHeight) {
+        this.backend = backend;
+        this.viewportWidth = viewportWidth;
+        this.viewportHeight = viewportHeight;
+    }
+
+    // Gets the number standing for a texture, measuring the texture the first time it is seen.
+    private int getTextureId(String texture) {
+        Integer id = textureIds.get(texture);
+        if (id != null) {
+            return id;
+        }
+
+        int newId = textures.size();
+        if (newId == halfWidths.length) {
+            halfWidths = Arrays.copyOf(halfWidths, 2 * newId);
+            halfHeights = Arrays.copyOf(halfHeights, 2 * newId);
+            radii = Arrays.copyOf(radii, 2 * newId);
+        }
+
+        halfWidths[newId] = 0.5 * backend.getWidth(texture);
+        halfHeights[newId] = 0.5 * backend.getHeight(texture);
+        radii[newId] = Math.hypot(halfWidths[newId], halfHeights[newId]);
+        textures.add(texture);
+        textureIds.put(texture, newId);
+        return newId;
+    }
+
+    /**
+     * Adds a sprite to be drawn at the next flush, unless it is entirely outside the viewport.
+     * @param layer The layer to draw the sprite in, from 0 to {@link #LAYER_COUNT} - 1.
+     * @param texture The file name of the sprite's texture.
+     * @param x The x coordinate of the centre of the sprite.
+     * @param y The y coordinate of the centre of the sprite.
+     */
+    public void add(int layer, String texture, double x, double y) {
+        add(layer, texture, x, y, 0);
+    }
+
+    /**
+     * Adds a rotated sprite to be drawn at the next flush, unless it is entirely outside the viewport.
+     * @param layer The layer to draw the sprite in, from 0 to {@link #LAYER_COUNT} - 1.
+     * @param texture The file name of the sprite's texture.
+     * @param x The x coordinate of the centre of the sprite.
+     * @param y The y coordinate of the centre of the sprite.
+     * @param rotation The rotation of the sprite in radians.
+     */
+    public void add(int layer, String texture, double x, double y, double rotation) {
+        if (layer < 0 || layer >= LAYER_COUNT) {
+            throw new IllegalArgumentException("Layer " + layer + " is not between 0 and " + (LAYER_COUNT - 1));
+        }
+
+        int id = getTextureId(texture);
+
+        // A rotated sprite could point in any direction, so it is culled by the circle around it
+        double halfWidth = rotation == 0 ? halfWidths[id] : radii[id];
+        double halfHeight = rotation == 0 ? halfHeights[id] : radii[id];
+        if (x + halfWidth < 0 || x - halfWidth > viewportWidth || y + halfHeight < 0
+                || y - halfHeight > viewportHeight) {
+            culled++;
+            return;
+        }
+
+        if (count == keys.length) {
+            int capacity = 2 * count;
+            keys = Arrays.copyOf(keys, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            rotations = Arrays.copyOf(rotations, capacity);
+            order = new int[capacity];
+        }
+
+        keys[count] = id * LAYER_COUNT + layer;
+        xs[count] = x;
+        ys[count] = y;
+        rotations[count] = rotation;
+        count++;
+    }
+
+    /**
+     * Draws every sprite added since the last flush, grouped into batches, and empties the batch.
+     */
+    public void flush() {
+        // Sort the sprites by layer and then texture, keeping the order they were added in within each group
+        int bucketCount = LAYER_COUNT * textures.size();
+        if (bucketStarts.length < bucketCount + 1) {
+            bucketStarts = new int[bucketCount + 1];
+        }
+        Arrays.fill(bucketStarts, 0, bucketCount + 1, 0);
+        for (int i = 0; i < count; i++) {
+            bucketStarts[bucket(keys[i]) + 1]++;
+        }
+        for (int i = 0; i < bucketCount; i++) {
+            bucketStarts[i + 1] += bucketStarts[i];
+        }
+        for (int i = 0; i < count; i++) {
+            order[bucketStarts[bucket(keys[i])]++] = i;
+        }
+
+        int batches = 0;
+        int start = 0;
+        while (start < count) {
+            int id = keys[order[start]] / LAYER_COUNT;
+            int end = start + 1;
+            while (end < count && keys[order[end]] / LAYER_COUNT == id) {
+                end++;
+            }
+
+            backend.beginBatch(textures.get(id), end - start);
+            for (int i = start; i < end; i++) {
+                int sprite = order[i];
+                backend.draw(xs[sprite], ys[sprite], rotations[sprite]);
+            }
+            batches++;
+            start = end;
+        }
+
+        lastDrawCount = count;
+        lastBatchCount = batches;
+        lastCulledCount = culled;
+        count = 0;
+        culled = 0;
+    }
+
+    // Gets the position of a sprite's group in draw order: every texture of a layer comes before the next layer.
+    private int bucket(int key) {
+        return (key % LAYER_COUNT) * textures.size() + key / LAYER_COUNT;
+    }
+
+    /**
+     * Gets the number of sprites drawn by the latest flush.
+     * @return The number of draw calls.
+     */
+    public int getDrawCount() {
+        return lastDrawCount;
+    }
+
+    /**
+     * Gets the number of batches submitted by the latest flush.
+     * @return The number of batches.
+     */
+    public int getBatchCount() {
+        return lastBatchCount;
+    }
+
+    /**
+     * Gets the number of sprites culled for being outside the viewport before the latest flush.
+     * @return The number of culled sprites.
+     */
+    public int getCulledCount() {
+        return lastCulledCount;
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Decides how many fixed-length simulation steps to run for each rendered frame, and where between the last two steps
+ * the frame should be drawn.
+ */
+public interface StepClock {
+    /**
+     * Restarts the clock, so that the next frame runs exactly one step. Used when a level starts.
+     */
+    void reset();
+
+    /**
+     * Works out how many simulation steps to run for the current frame.
+     * @param now The current time in nanoseconds, from {@link System#nanoTime()}.
+     * @return The number of steps to run this frame, which may be zero on displays faster than the simulation.
+     */
+    int advance(long now);
+
+    /**
+     * Gets the length of a simulation step.
+     * @return The length of a step in nanoseconds.
+     */
+    long getStepNanos();
+
+    /**
+     * Gets the time which one of the steps run for the latest frame simulates up to.
+     * @param step The index of the step within the frame, from 0.
+     * @param steps The number of steps run for the frame, as returned by {@link #advance(long)}.
+     * @return The time at the end of the step in nanoseconds, from {@link System#nanoTime()}.
+     */
+    long getStepTime(int step, int steps);
+
+    /**
+     * Gets how far the current time is between the last two simulation steps, where 1 means the current time is
+     * exactly the time of the latest step.
+     * @return A value above 0 and at most 1.
+     */
+    double getAlpha();
+}
@@ -0,0 +1,32 @@
+/**
+ * Runs the fixed simulation steps of one rendered frame: each step is given the keys which changed before it ends,
+ * updates the level, is recorded and then forgets its keys. The game and the headless checks share this loop, so the
+ * checks run exactly the steps the game runs.
+ */
+public final class StepLoop {
+    private StepLoop() {
+    }
+
+    /**
+     * Runs the steps a clock called for on the current frame. Stops as soon as the level finishes, so a frame which
+     * covers several steps records nothing after the end of the level, just as a replay of it plays back.
+     * @param clock The clock which decided the number of steps.
+     * @param steps The number of steps to run, as returned by {@link StepClock#advance(long)}.
+     * @param controls The controls holding the keys of this frame.
+     * @param level The level to update.
+     * @param recorder The recording of the level.
+     * @return The number of steps which were run.
+     */
+    public static int run(StepClock clock, int steps, LatchedControls controls, Level level, ReplayRecorder recorder) {
+        int run = 0;
+        while (run < steps && !level.isFinished()) {
+            controls.beginStep(clock.getStepTime(run, steps), clock.getStepNanos());
+            level.update(controls);
+            recorder.record(controls, level);
+            controls.consume();
+            run++;
+        }
+
+        return run;
+    }
+}
@@ -0,0 +1,111 @@
+import bagel.Font;
+
+/**
+ * A piece of on-screen text which keeps its string and layout between frames. The text is only rebuilt and measured
+ * again when its value changes, so drawing unchanged text costs a single call to bagel.
+ */
+public class TextElement {
+    private final Font font;
+    private final double x;
+    private final double y;
+    private final boolean centred;
+    private String text = null;
+    private String prefix = null;
+    private int value = 0;
+    private boolean numbered = false;
+    private boolean dirty = false;
+    private double drawX = 0;
+    private long layoutCount = 0;
+
+    /**
+     * Creates an empty text element.
+     * @param font The font to draw the text with.
+     * @param x The x coordinate of the left of the text, or of its centre if it is centred.
+     * @param y The y coordinate of the text's baseline.
+     * @param centred Whether the text is centred on x rather than starting at it.
+     */
+    public TextElement(Font font, double x, double y, boolean centred) {
+        this.font = font;
+        this.x = x;
+        this.y = y;
+        this.centred = centred;
+    }
+
+    /**
+     * Creates a text element showing fixed text.
+     * @param font The font to draw the text with.
+     * @param text The text to show.
+     * @param x The x coordinate of the left of the text, or of its centre if it is centred.
+     * @param y The y coordinate of the text's baseline.
+     * @param centred Whether the text is centred on x rather than starting at it.
+     */
+    public TextElement(Font font, String text, double x, double y, boolean centred) {
+        this(font, x, y, centred);
+        setText(text);
+    }
+
+    /**
+     * Changes the text. Nothing is rebuilt if the text is the same as before.
+     * @param text The new text, or null to show nothing.
+     */
+    public void setText(String text) {
+        if (!numbered && (text == null ? this.text == null : text.equals(this.text))) {
+            return;
+        }
+
+        this.text = text;
+        numbered = false;
+        dirty = true;
+    }
+
+    /**
+     * Changes the text to a prefix followed by a number, such as a score. The string is only built when the prefix or
+     * number differs from before, so this does not allocate while the number stays the same.
+     * @param prefix The text before the number.
+     * @param value The number.
+     */
+    public void setText(String prefix, int value) {
+        if (numbered && prefix.equals(this.prefix) && value == this.value) {
+            return;
+        }
+
+        this.prefix = prefix;
+        this.value = value;
+        text = prefix + value;
+        numbered = true;
+        dirty = true;
+    }
+
+    /**
+     * Gets the text currently shown.
+     * @return The text, or null if nothing is shown.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the number of times the text has been measured, which only happens when it changes.
+     * @return The number of layouts.
+     */
+    public long getLayoutCount() {
+        return layoutCount;
+    }
+
+    /**
+     * Draws the text, measuring it first if it has changed since it was last drawn.
+     */
+    public void draw() {
+        if (text == null) {
+            return;
+        }
+
+        if (dirty) {
+            drawX = centred ? x - 0.5 * font.getWidth(text) : x;
+            dirty = false;
+            layoutCount++;
+        }
+
+        font.drawString(text, drawX, y);
+    }
+}
@@ -0,0 +1,101 @@
+import bagel.Image;
+
+import java.util.HashMap;
+import java.util.Set;
+
+/**
+ * A reference-counted registry of images keyed by file name, so that every texture is decoded and uploaded once no
+ * matter how many notes or entities use it. Must only be used from the thread which owns the window.
+ */
+public class TextureCache {
+    private final HashMap<String, Entry> entries = new HashMap<>();
+    private long loadCount = 0;
+    private long loadNanos = 0;
+
+    private static class Entry {
+        private final Image image;
+        private int references = 0;
+
+        private Entry(Image image) {
+            this.image = image;
+        }
+    }
+
+    // Gets the entry for an image, loading it if it is not already cached.
+    private Entry load(String fileName) {
+        Entry entry = entries.get(fileName);
+        if (entry == null) {
+            long start = System.nanoTime();
+            entry = new Entry(new Image(fileName));
+            loadNanos += System.nanoTime() - start;
+            loadCount++;
+            entries.put(fileName, entry);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Loads every image in a set and holds a reference to each of them.
+     * @param fileNames The file names of the images.
+     */
+    public void acquire(Set<String> fileNames) {
+        for (String fileName : fileNames) {
+            acquire(fileName);
+        }
+    }
+
+    /**
+     * Loads a single image and holds a reference to it, so that loading can be spread over several frames.
+     * @param fileName The file name of the image.
+     */
+    public void acquire(String fileName) {
+        load(fileName).references++;
+    }
+
+    /**
+     * Gives up a reference to every image in a set. Images with no references left are removed from the cache.
+     * @param fileNames The file names of the images.
+     */
+    public void release(Set<String> fileNames) {
+        for (String fileName : fileNames) {
+            Entry entry = entries.get(fileName);
+            if (entry != null && --entry.references <= 0) {
+                entries.remove(fileName);
+            }
+        }
+    }
+
+    /**
+     * Gets a cached image, loading it if it was not preloaded.
+     * @param fileName The file name of the image.
+     * @return The image.
+     */
+    public Image get(String fileName) {
+        return load(fileName).image;
+    }
+
+    /**
+     * Gets the number of images currently held by the cache.
+     * @return The number of cached textures.
+     */
+    public int getTextureCount() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the number of times an image has been decoded since the cache was created.
+     * @return The number of image loads.
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Gets the total time spent decoding images since the cache was created.
+     * @return The total load time in nanoseconds.
+     */
+    public long getLoadNanos() {
+        return loadNanos;
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * An effect which changes a level for a limited number of frames, such as doubling scores. Effects are started and
+ * ended by the level's {@link EffectScheduler}, so an effect only does work when it starts or ends. Effects should
+ * keep no state of their own, since one instance may be active several times at once.
+ */
+public interface TimedEffect {
+    /**
+     * Applies the effect to a level.
+     * @param level The level the effect starts in.
+     */
+    void start(Level level);
+
+    /**
+     * Undoes the effect once its time is up.
+     * @param level The level the effect ends in.
+     */
+    void end(Level level);
+}
@@ -0,0 +1,63 @@
+/**
+ * Reads the values written by a {@link VarIntWriter} back in order. Reading past the end gives zeros rather than
+ * failing, so a truncated stream simply ends early.
+ */
+public class VarIntReader {
+    private final byte[] data;
+    private int position = 0;
+
+    /**
+     * Creates a reader from the start of some data.
+     * @param data The bytes to read.
+     */
+    public VarIntReader(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * Reads an integer written by {@link VarIntWriter#writeVarInt(int)}.
+     * @return The value read, or 0 at the end of the data.
+     */
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; position < data.length; shift += 7) {
+            int b = data[position++];
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Reads an integer written by {@link VarIntWriter#writeSignedVarInt(int)}.
+     * @return The value read, or 0 at the end of the data.
+     */
+    public int readSignedVarInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a double written by {@link VarIntWriter#writeDouble(double)}.
+     * @return The value read.
+     */
+    public double readDouble() {
+        long bits = 0;
+        for (int i = 0; i < Long.BYTES && position < data.length; i++) {
+            bits |= (data[position++] & 0xffL) << (8 * i);
+        }
+
+        return Double.longBitsToDouble(bits);
+    }
+
+    /**
+     * Determines whether there is anything left to read.
+     * @return Whether the end of the data has been reached.
+     */
+    public boolean isAtEnd() {
+        return position >= data.length;
+    }
+}
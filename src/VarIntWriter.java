@@ -0,0 +1,75 @@
+import java.util.Arrays;
+
+/**
+ * A growable buffer of variable-length integers, which take one byte for every seven bits of their value so that
+ * small numbers take a single byte.
+ */
+public class VarIntWriter {
+    private final static int INITIAL_CAPACITY = 256;
+
+    private byte[] data;
+    private int size = 0;
+
+    /**
+     * Creates an empty buffer with room for a few hundred bytes.
+     */
+    public VarIntWriter() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty buffer with room for a number of bytes, so that writing that many never grows it.
+     * @param capacity The number of bytes to make room for.
+     */
+    public VarIntWriter(int capacity) {
+        data = new byte[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Writes an integer which is never negative, seven bits at a time, lowest first, with the top bit set on every
+     * byte but the last.
+     * @param value The value to write.
+     */
+    public void writeVarInt(int value) {
+        while ((value & ~0x7f) != 0) {
+            writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    /**
+     * Writes an integer which may be negative, mapping small negative numbers to small positive ones first.
+     * @param value The value to write.
+     */
+    public void writeSignedVarInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes the exact bits of a double, lowest byte first.
+     * @param value The value to write.
+     */
+    public void writeDouble(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        for (int i = 0; i < Long.BYTES; i++) {
+            writeByte((int) (bits >>> (8 * i)));
+        }
+    }
+
+    /**
+     * Copies out everything written so far.
+     * @return The written bytes.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    // Appends a byte, growing the buffer when it is full.
+    private void writeByte(int value) {
+        if (size == data.length) {
+            data = Arrays.copyOf(data, 2 * size);
+        }
+        data[size++] = (byte) value;
+    }
+}
@@ -0,0 +1,200 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads the samples of an uncompressed WAV file a piece at a time, so that a track can be played without holding all
+ * of it in memory. Only 8 and 16 bit PCM with one or two channels is supported, which are the formats OpenAL plays.
+ */
+public class WavReader implements AutoCloseable {
+    private final static int PCM_FORMAT = 1;
+
+    private final String fileName;
+    private final InputStream in;
+    private long offset = 0;
+    private int sampleRate = 0;
+    private int channels = 0;
+    private int bitsPerSample = 0;
+    private long dataLength = 0;
+    private long remaining = 0;
+
+    /**
+     * Opens a WAV file and reads its header, leaving the file positioned at the first sample.
+     * @param file The file to read.
+     * @throws IOException If the file could not be read or is not a supported WAV file.
+     */
+    public WavReader(Path file) throws IOException {
+        fileName = file.toString();
+        in = new BufferedInputStream(Files.newInputStream(file));
+
+        try {
+            readHeader();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // Reads the RIFF header and the chunks before the samples, keeping the format.
+    private void readHeader() throws IOException {
+        if (readTag() != tag("RIFF")) {
+            throw new AudioFormatException(fileName, 0, "not a RIFF file");
+        }
+        readInt();
+        if (readTag() != tag("WAVE")) {
+            throw new AudioFormatException(fileName, 8, "not a WAVE file");
+        }
+
+        while (true) {
+            long chunkOffset = offset;
+            int id = readTag();
+            long size = readInt() & 0xFFFFFFFFL;
+
+            if (id == tag("data")) {
+                if (sampleRate == 0) {
+                    throw new AudioFormatException(fileName, chunkOffset, "samples come before the format");
+                }
+                dataLength = size;
+                remaining = size;
+                return;
+            }
+
+            if (id == tag("fmt ")) {
+                if (size < 16) {
+                    throw new AudioFormatException(fileName, chunkOffset, "format chunk is too short");
+                }
+                int format = readShort();
+                channels = readShort();
+                sampleRate = readInt();
+                readInt();
+                readShort();
+                bitsPerSample = readShort();
+                if (format != PCM_FORMAT) {
+                    throw new AudioFormatException(fileName, chunkOffset, "format " + format + " is not PCM");
+                }
+                if (channels < 1 || channels > 2 || (bitsPerSample != 8 && bitsPerSample != 16) || sampleRate <= 0) {
+                    throw new AudioFormatException(fileName, chunkOffset, String.format(
+                            "%d channels of %d bit samples at %d Hz are not supported", channels, bitsPerSample,
+                            sampleRate));
+                }
+                size -= 16;
+            }
+
+            // Chunks are padded to an even length.
+            skip(size + (size & 1));
+        }
+    }
+
+    // Packs a four letter chunk id the way readTag reads it.
+    private static int tag(String name) {
+        return name.charAt(0) | name.charAt(1) << 8 | name.charAt(2) << 16 | name.charAt(3) << 24;
+    }
+
+    // Reads a four letter chunk id.
+    private int readTag() throws IOException {
+        return readInt();
+    }
+
+    // Reads a little-endian 32 bit integer.
+    private int readInt() throws IOException {
+        return readByte() | readByte() << 8 | readByte() << 16 | readByte() << 24;
+    }
+
+    // Reads a little-endian 16 bit integer.
+    private int readShort() throws IOException {
+        return readByte() | readByte() << 8;
+    }
+
+    // Reads a byte of the header, failing if the file ends.
+    private int readByte() throws IOException {
+        int value = in.read();
+        if (value < 0) {
+            throw new AudioFormatException(fileName, offset, "file ends before the samples");
+        }
+        offset++;
+        return value;
+    }
+
+    // Skips part of the header, failing if the file ends.
+    private void skip(long length) throws IOException {
+        for (long i = 0; i < length; i++) {
+            readByte();
+        }
+    }
+
+    /**
+     * Gets the number of sample frames per second.
+     * @return The sample rate in Hz.
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Gets the number of channels.
+     * @return 1 for mono or 2 for stereo.
+     */
+    public int getChannels() {
+        return channels;
+    }
+
+    /**
+     * Gets the size of a single sample of one channel.
+     * @return 8 or 16.
+     */
+    public int getBitsPerSample() {
+        return bitsPerSample;
+    }
+
+    /**
+     * Gets the size of a sample frame, which holds one sample for every channel.
+     * @return The size of a frame in bytes.
+     */
+    public int getFrameSize() {
+        return channels * bitsPerSample / 8;
+    }
+
+    /**
+     * Gets the number of sample frames in the file, according to its header.
+     * @return The number of frames.
+     */
+    public long getFrameCount() {
+        return dataLength / getFrameSize();
+    }
+
+    /**
+     * Reads the next samples, exactly as they are stored in the file.
+     * @param buffer The array to read into.
+     * @param start The index in the array to read to.
+     * @param length The most bytes to read.
+     * @return The number of bytes read, or -1 at the end of the samples.
+     * @throws IOException If the file could not be read.
+     */
+    public int read(byte[] buffer, int start, int length) throws IOException {
+        if (remaining == 0) {
+            return -1;
+        }
+
+        // Files which end before their header says they should are played up to where they end.
+        int read = in.read(buffer, start, (int) Math.min(length, remaining));
+        if (read < 0) {
+            remaining = 0;
+            return -1;
+        }
+
+        remaining -= read;
+        offset += read;
+        return read;
+    }
+
+    /**
+     * Closes the file.
+     * @throws IOException If the file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}